@@ -0,0 +1,69 @@
+package wscheng.cleancode.example.args.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import wscheng.cleancode.example.args.ArgsCodec;
+import wscheng.cleancode.example.args.ArgsSchema;
+import wscheng.cleancode.example.args.EncodedArgs;
+import wscheng.cleancode.example.args.ParsedArgs;
+
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+// What a worker process pays to get at the command line its supervisor already parsed:
+// parsing it again, decoding the supervisor's encoding, or reading the encoding in place.
+// Each reads one integer and one string, as a worker typically would.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecBenchmark {
+    @Param({"SMALL", "WIDE"})
+    public Workload.Shape shape;
+
+    @Param({"HEAP", "DIRECT"})
+    public String buffer;
+
+    private String[] args;
+    private char integer;
+    private char string;
+    private ArgsSchema schema;
+    private ParsedArgs parsed;
+    private ByteBuffer encoded;
+
+    @Setup
+    public void setUp() throws ParseException {
+        args = Workload.arguments(shape, Workload.Input.FLAGS);
+        integer = Workload.intId(shape);
+        string = Workload.stringId(shape);
+        schema = ArgsSchema.compile(shape.schema());
+        parsed = schema.parse(args);
+        ByteBuffer heap = ArgsCodec.encode(parsed);
+        encoded = buffer.equals("HEAP") ? heap : ByteBuffer.allocateDirect(heap.remaining()).put(heap).flip();
+    }
+
+    @Benchmark
+    public int reparse() {
+        ParsedArgs reparsed = schema.parse(args);
+        return reparsed.getInt(integer) + reparsed.getString(string).length();
+    }
+
+    @Benchmark
+    public int decode() {
+        ParsedArgs decoded = ArgsCodec.read(schema, encoded.duplicate());
+        return decoded.getInt(integer) + decoded.getString(string).length();
+    }
+
+    @Benchmark
+    public int view() {
+        EncodedArgs view = new EncodedArgs(schema, encoded);
+        return view.getInt(integer) + view.getString(string).length();
+    }
+
+    @Benchmark
+    public ByteBuffer encode() {
+        return ArgsCodec.encode(parsed);
+    }
+}
@@ -0,0 +1,60 @@
+package wscheng.cleancode.example.args.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import wscheng.cleancode.example.args.ArgsCommand;
+import wscheng.cleancode.example.args.ArgsSchema;
+import wscheng.cleancode.example.args.ParsedArgs;
+
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The cold start of a tool with 300 subcommands: declare them all, then run one. The command
+// tree compiles only the schema of the one that runs; eagerCompile is the tool that compiles
+// every schema up front and dispatches on the name itself.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandTreeBenchmark {
+    private static final int COMMANDS = 300;
+
+    @Param({"SMALL", "WIDE"})
+    public Workload.Shape shape;
+
+    private String[] names;
+    private String[] args;
+
+    @Setup
+    public void setUp() {
+        names = new String[COMMANDS];
+        for (int i = 0; i < COMMANDS; i++) {
+            names[i] = "command" + i;
+        }
+        String[] commandArgs = Workload.arguments(shape, Workload.Input.FLAGS);
+        args = new String[commandArgs.length + 1];
+        args[0] = names[COMMANDS / 2];
+        System.arraycopy(commandArgs, 0, args, 1, commandArgs.length);
+    }
+
+    @Benchmark
+    public ParsedArgs commandTree() throws ParseException {
+        ArgsCommand root = ArgsCommand.of("");
+        for (String name : names) {
+            root = root.withSubcommand(name, ArgsCommand.of(shape.schema()));
+        }
+        return root.parse(args).args();
+    }
+
+    @Benchmark
+    public ParsedArgs eagerCompile() throws ParseException {
+        Map<String, ArgsSchema> schemas = new HashMap<String, ArgsSchema>();
+        for (String name : names) {
+            schemas.put(name, ArgsSchema.compile(shape.schema()));
+        }
+        return schemas.get(args[0]).parse(args, 1, args.length - 1);
+    }
+}
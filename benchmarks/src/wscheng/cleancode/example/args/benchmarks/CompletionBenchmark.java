@@ -0,0 +1,45 @@
+package wscheng.cleancode.example.args.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import wscheng.cleancode.example.args.ArgsCompleter;
+import wscheng.cleancode.example.args.ArgsSchema;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+// One keystroke of tab completion at the end of a full command line: the options a lone -
+// could become, and the value the last option waits for.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompletionBenchmark {
+    @Param({"SMALL", "WIDE"})
+    public Workload.Shape shape;
+
+    private ArgsCompleter completer;
+    private ArgsCompleter.Completion completion;
+    private String options;
+    private String value;
+
+    @Setup
+    public void setUp() throws ParseException {
+        completer = new ArgsCompleter(ArgsSchema.compile(shape.schema()));
+        completion = completer.newCompletion();
+        String line = String.join(" ", Workload.arguments(shape, Workload.Input.FLAGS));
+        options = line + " -";
+        value = line + " -" + Workload.intId(shape) + " ";
+    }
+
+    @Benchmark
+    public int completeOption() {
+        return completer.complete(options, options.length(), completion).count();
+    }
+
+    @Benchmark
+    public String completeValue() {
+        return completer.complete(value, value.length(), completion).valueHint();
+    }
+}
@@ -0,0 +1,63 @@
+package wscheng.cleancode.example.args.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import wscheng.cleancode.example.args.ArgsSchema;
+import wscheng.cleancode.example.args.ErrorPolicy;
+import wscheng.cleancode.example.args.ParsedArgs;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// What each error policy costs on command lines full of errors, and what FAIL_FAST saves a
+// gatekeeper that only needs to know whether a long command line is valid when its first
+// argument already is not.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorPolicyBenchmark {
+    private static final int REPEATS = 50;
+
+    @Param({"SMALL", "WIDE"})
+    public Workload.Shape shape;
+
+    @Param({"LENIENT", "FAIL_FAST", "COLLECT_ALL"})
+    public ErrorPolicy policy;
+
+    private String[] errors;
+    private String[] earlyError;
+    private ArgsSchema schema;
+
+    @Setup
+    public void setUp() throws ParseException {
+        errors = Workload.arguments(shape, Workload.Input.ERRORS);
+        List<String> args = new ArrayList<String>(Arrays.asList("-" + Workload.intId(shape), "not-a-number"));
+        String[] valid = Workload.arguments(shape, Workload.Input.FLAGS);
+        for (int i = 0; i < REPEATS; i++) {
+            args.addAll(Arrays.asList(valid));
+        }
+        earlyError = args.toArray(new String[0]);
+        schema = ArgsSchema.compile(shape.schema()).withErrorPolicy(policy);
+    }
+
+    @Benchmark
+    public boolean errorsValidate() {
+        return schema.parse(errors).isValid();
+    }
+
+    @Benchmark
+    public String errorsMessage() throws Exception {
+        ParsedArgs parsed = schema.parse(errors);
+        return parsed.isValid() ? null : parsed.errorMessage();
+    }
+
+    @Benchmark
+    public boolean earlyErrorValidate() {
+        return schema.parse(earlyError).isValid();
+    }
+}
@@ -0,0 +1,59 @@
+package wscheng.cleancode.example.args.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import wscheng.cleancode.example.args.ArgsSchema;
+import wscheng.cleancode.example.args.ParsedArgs;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GetterBenchmark {
+    @Param({"SMALL", "WIDE"})
+    public Workload.Shape shape;
+
+    private char flag;
+    private char string;
+    private char integer;
+    private ParsedArgs parsed;
+    private wscheng.cleancode.example.args.draftv1.Args draftv1;
+    private BaselineArgs baseline;
+
+    @Setup
+    public void setUp() throws ParseException {
+        flag = Workload.flagId(shape);
+        string = Workload.stringId(shape);
+        integer = Workload.intId(shape);
+        String[] args = Workload.arguments(shape, Workload.Input.FLAGS);
+        parsed = ArgsSchema.compile(shape.schema()).parse(args);
+        draftv1 = new wscheng.cleancode.example.args.draftv1.Args(shape.schema(), args);
+        baseline = new BaselineArgs(shape.schema(), args);
+    }
+
+    @Benchmark
+    public void parsedArgs(Blackhole blackhole) {
+        blackhole.consume(parsed.getBoolean(flag));
+        blackhole.consume(parsed.getString(string));
+        blackhole.consume(parsed.getInt(integer));
+    }
+
+    @Benchmark
+    public void draftv1(Blackhole blackhole) {
+        blackhole.consume(draftv1.getBoolean(flag));
+        blackhole.consume(draftv1.getString(string));
+        blackhole.consume(draftv1.getInt(integer));
+    }
+
+    @Benchmark
+    public void baseline(Blackhole blackhole) {
+        blackhole.consume(baseline.getBoolean(flag));
+        blackhole.consume(baseline.getString(string));
+        blackhole.consume(baseline.getInt(integer));
+    }
+}
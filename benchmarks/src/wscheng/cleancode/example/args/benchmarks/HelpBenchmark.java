@@ -0,0 +1,63 @@
+package wscheng.cleancode.example.args.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import wscheng.cleancode.example.args.ArgsHelp;
+import wscheng.cleancode.example.args.ArgsSchema;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+// A completion engine that prints the help of every one of its subcommands: once the help of
+// a schema is rendered, writing it again is a copy. firstRender pays for rendering every time.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HelpBenchmark {
+    private static final int COMMANDS = 300;
+    private static final int WIDTH = 100;
+
+    @Param({"SMALL", "WIDE"})
+    public Workload.Shape shape;
+
+    private ArgsSchema[] commands;
+    private ArgsHelp[] helps;
+    private final StringBuilder out = new StringBuilder(1 << 20);
+
+    @Setup
+    public void setUp() throws ParseException {
+        String schema = shape.schema();
+        commands = new ArgsSchema[COMMANDS];
+        helps = new ArgsHelp[COMMANDS];
+        for (int i = 0; i < COMMANDS; i++) {
+            ArgsHelp help = ArgsHelp.none();
+            for (String element : schema.split(",")) {
+                help = help.with(element.charAt(0), "Option " + element.charAt(0) + " of command " + i
+                        + ", described at some length so that it wraps at narrow widths.");
+            }
+            helps[i] = help;
+            commands[i] = ArgsSchema.compile(schema).withHelp(help);
+        }
+    }
+
+    @Benchmark
+    public int cachedHelp() throws IOException {
+        out.setLength(0);
+        for (ArgsSchema command : commands) {
+            command.writeHelp(out, WIDTH);
+        }
+        return out.length();
+    }
+
+    @Benchmark
+    public int firstRender() {
+        int length = 0;
+        for (int i = 0; i < COMMANDS; i++) {
+            length += commands[i].withHelp(helps[i]).help(WIDTH).length();
+        }
+        return length;
+    }
+}
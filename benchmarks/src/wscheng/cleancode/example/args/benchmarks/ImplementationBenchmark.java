@@ -0,0 +1,51 @@
+package wscheng.cleancode.example.args.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import wscheng.cleancode.example.args.Args;
+import wscheng.cleancode.example.args.ArgsSchema;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+// The implementations DifferentialArgsTest checks against each other, timed on the same work:
+// compile the schema, parse, ask whether the line is valid.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImplementationBenchmark {
+    @Param({"SMALL", "WIDE"})
+    public Workload.Shape shape;
+
+    @Param({"FLAGS", "ERRORS"})
+    public Workload.Input input;
+
+    private String[] args;
+
+    @Setup
+    public void setUp() {
+        args = Workload.arguments(shape, input);
+    }
+
+    @Benchmark
+    public boolean args() throws ParseException {
+        return new Args(shape.schema(), args).isValid();
+    }
+
+    @Benchmark
+    public boolean specialized() throws ParseException {
+        return ArgsSchema.compile(shape.schema()).withSpecializedParsing(true).parse(args).isValid();
+    }
+
+    @Benchmark
+    public boolean lazy() throws ParseException {
+        return ArgsSchema.compile(shape.schema()).withLazyValues(true).parse(args).isValid();
+    }
+
+    @Benchmark
+    public boolean draftV1() throws ParseException {
+        return new wscheng.cleancode.example.args.draftv1.Args(shape.schema(), args).isValid();
+    }
+}
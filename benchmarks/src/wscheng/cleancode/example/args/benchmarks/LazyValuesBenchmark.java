@@ -0,0 +1,53 @@
+package wscheng.cleancode.example.args.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import wscheng.cleancode.example.args.ArgsSchema;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+// A caller that parses a full command line but only reads one integer from it: the lazy
+// schema converts that one value, the eager one converts all of them.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LazyValuesBenchmark {
+    @Param({"SMALL", "WIDE"})
+    public Workload.Shape shape;
+
+    private String[] args;
+    private char integer;
+    private ArgsSchema eager;
+    private ArgsSchema lazy;
+
+    @Setup
+    public void setUp() throws ParseException {
+        args = Workload.arguments(shape, Workload.Input.FLAGS);
+        integer = Workload.intId(shape);
+        eager = ArgsSchema.compile(shape.schema());
+        lazy = eager.withLazyValues(true);
+    }
+
+    @Benchmark
+    public int eagerReadOne() {
+        return eager.parse(args).getInt(integer);
+    }
+
+    @Benchmark
+    public int lazyReadOne() {
+        return lazy.parse(args).getInt(integer);
+    }
+
+    @Benchmark
+    public boolean eagerValidate() {
+        return eager.parse(args).isValid();
+    }
+
+    @Benchmark
+    public boolean lazyValidate() {
+        return lazy.parse(args).isValid();
+    }
+}
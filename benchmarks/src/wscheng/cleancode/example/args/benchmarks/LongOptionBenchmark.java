@@ -0,0 +1,44 @@
+package wscheng.cleancode.example.args.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import wscheng.cleancode.example.args.ArgsSchema;
+import wscheng.cleancode.example.args.ParsedArgs;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+// The same options given by long name and by letter, against one schema that declares both.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LongOptionBenchmark {
+    private static final String SCHEMA =
+            "v|verbose,q|quiet,d|dry-run,f|force,o|output*,i|input*,n|max-count#,t|timeout##";
+    private static final String[] LONG_ARGS = {
+            "--verbose", "--dry-run", "--force", "--output=out.txt", "--input", "in.txt",
+            "--max-count=12", "--timeout", "30000"
+    };
+    private static final String[] SHORT_ARGS = {
+            "-vdf", "-o", "out.txt", "-i", "in.txt", "-n", "12", "-t", "30000"
+    };
+
+    private ArgsSchema schema;
+
+    @Setup
+    public void setUp() throws ParseException {
+        schema = ArgsSchema.compile(SCHEMA);
+    }
+
+    @Benchmark
+    public ParsedArgs longOptions() {
+        return schema.parse(LONG_ARGS);
+    }
+
+    @Benchmark
+    public ParsedArgs shortOptions() {
+        return schema.parse(SHORT_ARGS);
+    }
+}
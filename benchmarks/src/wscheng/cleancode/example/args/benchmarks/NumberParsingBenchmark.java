@@ -0,0 +1,154 @@
+package wscheng.cleancode.example.args.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import wscheng.cleancode.example.args.ArgsSchema;
+import wscheng.cleancode.example.args.NumberParser;
+import wscheng.cleancode.example.args.ParsedArgs;
+
+import java.text.ParseException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// NumberParser against the Integer.parseInt / Double.parseDouble path it replaced, both on
+// separate strings and on numbers embedded in one long CharSequence (substring + parse versus
+// parsing the range in place), plus a launcher-style command line with a thousand numeric flags.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NumberParsingBenchmark {
+    private static final int NUMBERS = 1000;
+
+    private String[] ints;
+    // Command-line style doubles such as 12.375, and full-precision ones such as 12.374981260348017.
+    private String[] doubles;
+    private String[] preciseDoubles;
+    private String joined;
+    private int[] starts;
+    private int[] ends;
+    private final long[] out = new long[1];
+    private ArgsSchema schema;
+    private String schemaString;
+    private String[] args;
+
+    @Setup
+    public void setUp() throws ParseException {
+        Random random = new Random(1);
+        ints = new String[NUMBERS];
+        doubles = new String[NUMBERS];
+        preciseDoubles = new String[NUMBERS];
+        starts = new int[NUMBERS];
+        ends = new int[NUMBERS];
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < NUMBERS; i++) {
+            ints[i] = Integer.toString(random.nextInt());
+            doubles[i] = Integer.toString(random.nextInt(100000)) + '.' + random.nextInt(1000);
+            preciseDoubles[i] = Double.toString(random.nextDouble() * 1000);
+            starts[i] = text.length();
+            text.append(ints[i]);
+            ends[i] = text.length();
+            text.append(' ');
+        }
+        joined = text.toString();
+
+        StringBuilder elements = new StringBuilder();
+        for (char c = 'a'; c <= 'z'; c++) {
+            elements.append(c).append("#,");
+        }
+        schemaString = elements.substring(0, elements.length() - 1);
+        schema = ArgsSchema.compile(schemaString);
+        args = new String[NUMBERS * 2];
+        for (int i = 0; i < NUMBERS; i++) {
+            args[2 * i] = "-" + (char) ('a' + i % 26);
+            args[2 * i + 1] = ints[i];
+        }
+    }
+
+    @Benchmark
+    public long integerParseInt() {
+        long sum = 0;
+        for (String s : ints) {
+            sum += Integer.parseInt(s);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long numberParserInt() {
+        long sum = 0;
+        for (String s : ints) {
+            NumberParser.parseLong(s, 0, s.length(), Integer.MIN_VALUE, Integer.MAX_VALUE, out, 0);
+            sum += out[0];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long integerParseIntOfSubstrings() {
+        long sum = 0;
+        for (int i = 0; i < NUMBERS; i++) {
+            sum += Integer.parseInt(joined.substring(starts[i], ends[i]));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long numberParserInPlace() {
+        long sum = 0;
+        for (int i = 0; i < NUMBERS; i++) {
+            NumberParser.parseLong(joined, starts[i], ends[i], Integer.MIN_VALUE, Integer.MAX_VALUE, out, 0);
+            sum += out[0];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double doubleParseDouble() {
+        double sum = 0;
+        for (String s : doubles) {
+            sum += Double.parseDouble(s);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double numberParserDouble() {
+        double sum = 0;
+        for (String s : doubles) {
+            NumberParser.parseDouble(s, 0, s.length(), out, 0);
+            sum += Double.longBitsToDouble(out[0]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double doubleParseDoublePrecise() {
+        double sum = 0;
+        for (String s : preciseDoubles) {
+            sum += Double.parseDouble(s);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double numberParserDoublePrecise() {
+        double sum = 0;
+        for (String s : preciseDoubles) {
+            NumberParser.parseDouble(s, 0, s.length(), out, 0);
+            sum += Double.longBitsToDouble(out[0]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public ParsedArgs thousandIntFlags() {
+        return schema.parse(args);
+    }
+
+    @Benchmark
+    public BaselineArgs thousandIntFlagsBaseline() throws ParseException {
+        return new BaselineArgs(schemaString, args);
+    }
+}
@@ -0,0 +1,82 @@
+package wscheng.cleancode.example.args.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import wscheng.cleancode.example.args.Args;
+import wscheng.cleancode.example.args.ArgsCache;
+import wscheng.cleancode.example.args.ArgsMetrics;
+import wscheng.cleancode.example.args.ArgsSchema;
+import wscheng.cleancode.example.args.ParsedArgs;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+// Args and draftv1.Args compile the schema on every construction; compiledSchema shows
+// what a caller that keeps its ArgsSchema around pays, and cached what it pays when the same
+// command line comes back through an ArgsCache, and instrumented the cost of an ArgsMetrics
+// listener, and specialized what a schema's own generated parser saves. BaselineArgs is the
+// original code.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+    @Param({"SMALL", "MEDIUM", "WIDE"})
+    public Workload.Shape shape;
+
+    @Param({"FLAGS", "CLUSTERED", "ERRORS"})
+    public Workload.Input input;
+
+    private String schema;
+    private String[] args;
+    private ArgsSchema compiled;
+    private ArgsCache cache;
+    private ArgsSchema instrumented;
+    private ArgsSchema specialized;
+
+    @Setup
+    public void setUp() throws ParseException {
+        schema = shape.schema();
+        args = Workload.arguments(shape, input);
+        compiled = ArgsSchema.compile(schema);
+        cache = new ArgsCache(64);
+        instrumented = compiled.withListener(new ArgsMetrics());
+        specialized = compiled.withSpecializedParsing(true);
+    }
+
+    @Benchmark
+    public ParsedArgs compiledSchema() {
+        return compiled.parse(args);
+    }
+
+    @Benchmark
+    public ParsedArgs cached() {
+        return cache.parse(compiled, args);
+    }
+
+    @Benchmark
+    public ParsedArgs instrumented() {
+        return instrumented.parse(args);
+    }
+
+    @Benchmark
+    public ParsedArgs specialized() {
+        return specialized.parse(args);
+    }
+
+    @Benchmark
+    public Args args() throws ParseException {
+        return new Args(schema, args);
+    }
+
+    @Benchmark
+    public wscheng.cleancode.example.args.draftv1.Args draftv1() throws ParseException {
+        return new wscheng.cleancode.example.args.draftv1.Args(schema, args);
+    }
+
+    @Benchmark
+    public BaselineArgs baseline() throws ParseException {
+        return new BaselineArgs(schema, args);
+    }
+}
@@ -0,0 +1,28 @@
+package wscheng.cleancode.example.args.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import wscheng.cleancode.example.args.ArgsSchema;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchemaCompileBenchmark {
+    @Param({"SMALL", "MEDIUM", "WIDE"})
+    public Workload.Shape shape;
+
+    @Benchmark
+    public ArgsSchema compile() throws ParseException {
+        return ArgsSchema.compile(shape.schema());
+    }
+
+    @Benchmark
+    public ArgsSchema compileStrict() throws ParseException {
+        return ArgsSchema.compileStrict(shape.schema());
+    }
+}
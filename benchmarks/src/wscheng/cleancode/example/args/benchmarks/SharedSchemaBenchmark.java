@@ -0,0 +1,46 @@
+package wscheng.cleancode.example.args.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import wscheng.cleancode.example.args.ArgsSchema;
+import wscheng.cleancode.example.args.ParsedArgs;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+// One compiled ArgsSchema parsed from one thread and from every core at once; the ratio of the
+// two throughputs is how well a shared schema scales. ArgsConcurrencyTest checks that the
+// threads do not see each other's values.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SharedSchemaBenchmark {
+    @Param({"SMALL", "WIDE"})
+    public Workload.Shape shape;
+
+    @Param({"FLAGS", "ERRORS"})
+    public Workload.Input input;
+
+    private ArgsSchema schema;
+    private String[] args;
+
+    @Setup
+    public void setUp() throws ParseException {
+        schema = ArgsSchema.compile(shape.schema());
+        args = Workload.arguments(shape, input);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ParsedArgs oneThread() {
+        return schema.parse(args);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public ParsedArgs everyCore() {
+        return schema.parse(args);
+    }
+}
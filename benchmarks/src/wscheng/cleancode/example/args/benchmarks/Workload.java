@@ -0,0 +1,98 @@
+package wscheng.cleancode.example.args.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Schema shapes and argument vectors shared by the benchmarks.
+public final class Workload {
+    public enum Shape {
+        // Three elements, one of each type.
+        SMALL("b,s*,n#"),
+        // A dozen elements, mostly flags.
+        MEDIUM("a,b,c,d,e,f,g,h,s*,t*,n#,m#"),
+        // All 52 letters: lowercase flags, A-M strings, N-Z integers.
+        WIDE(wideSchema());
+
+        private final String schema;
+
+        Shape(String schema) {
+            this.schema = schema;
+        }
+
+        public String schema() {
+            return schema;
+        }
+    }
+
+    public enum Input {
+        // Every element on its own, as in -a -b -s value.
+        FLAGS,
+        // All flags clustered into a single argument, as in -abcd.
+        CLUSTERED,
+        // Invalid integers, unexpected characters and a missing trailing parameter.
+        ERRORS
+    }
+
+    private Workload() {
+    }
+
+    public static String[] arguments(Shape shape, Input input) {
+        List<String> flags = new ArrayList<String>();
+        List<String> valued = new ArrayList<String>();
+        for (String element : shape.schema().split(",")) {
+            char id = element.charAt(0);
+            if (element.endsWith("*")) {
+                valued.add("-" + id);
+                valued.add(input == Input.ERRORS ? "-" : "value-" + id);
+            } else if (element.endsWith("#")) {
+                valued.add("-" + id);
+                valued.add(input == Input.ERRORS ? "not-a-number" : Integer.toString(id * 31));
+            } else {
+                flags.add(Character.toString(id));
+            }
+        }
+        List<String> args = new ArrayList<String>();
+        if (input == Input.CLUSTERED) {
+            args.add("-" + String.join("", flags));
+        } else {
+            for (String flag : flags) {
+                args.add("-" + flag);
+            }
+        }
+        args.addAll(valued);
+        if (input == Input.ERRORS) {
+            args.add("-0123");
+            args.add("-" + lastValuedId(shape));
+        }
+        return args.toArray(new String[args.size()]);
+    }
+
+    // A flag, a string and an integer that every shape declares.
+    public static char flagId(Shape shape) {
+        return shape == Shape.WIDE ? 'z' : 'b';
+    }
+
+    public static char stringId(Shape shape) {
+        return shape == Shape.WIDE ? 'M' : 's';
+    }
+
+    public static char intId(Shape shape) {
+        return shape == Shape.WIDE ? 'Z' : 'n';
+    }
+
+    private static char lastValuedId(Shape shape) {
+        String schema = shape.schema();
+        return schema.charAt(schema.lastIndexOf(',') + 1);
+    }
+
+    private static String wideSchema() {
+        StringBuilder schema = new StringBuilder();
+        for (char c = 'a'; c <= 'z'; c++) {
+            schema.append(c).append(',');
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            schema.append(c).append(c <= 'M' ? "*," : "#,");
+        }
+        return schema.substring(0, schema.length() - 1);
+    }
+}
@@ -1,294 +1,74 @@
 package wscheng.cleancode.example.args;
 
 import java.text.ParseException;
-import java.util.*;
+import java.time.Duration;
 
 public class Args {
-    private String schema;
+    private ArgsSchema schema;
     private String[] args;
-    private boolean valid;
-    private Set<Character> unexpectedArguments = new TreeSet<Character>();
-    private Map<Character, ArgumentMarshaler> booleanArgs = new HashMap<Character, ArgumentMarshaler>();
-    private Map<Character, ArgumentMarshaler> stringArgs = new HashMap<Character, ArgumentMarshaler>();
-    private Map<Character, ArgumentMarshaler> intArgs = new HashMap<Character, ArgumentMarshaler>();
-    private Map<Character, ArgumentMarshaler> marshalers = new HashMap<Character, ArgumentMarshaler>();
-    private Set<Character> argsFound = new HashSet<Character>();
-    private int currentArgument;
-    private char errorArgument = '\0';
-    private String errorParameter;
+    private ParsedArgs parsed;
 
-    enum ErrorCode {
-        OK, MISSING_STRING, INVALID_INTEGER, MISSING_INTEGER
+    public Args(String schema, String[] args) throws ParseException {
+        this(ArgsSchema.compile(schema), args);
     }
 
-    private ErrorCode errorCode = ErrorCode.OK;
-
-    public Args(String schema, String[] args) throws ParseException {
+    public Args(ArgsSchema schema, String[] args) {
         this.schema = schema;
         this.args = args;
-        valid = parse();
+        parsed = schema.parse(args);
     }
 
+    // Asked of the parse rather than remembered, so that a lazy schema stays lazy until here.
     public boolean isValid() {
-        return valid;
-    }
-
-    public boolean parse() throws ParseException {
-        if (schema.length() == 0 && args.length == 0) {
-            return true;
-        }
-        parseSchema();
-        parseArguments();
-        return valid;
-    }
-
-    private boolean parseSchema() throws ParseException {
-        for (String element : schema.split(",")) {
-            if (element.length() > 0) {
-                String trimmedElement = element.trim();
-                parseSchemaElement(trimmedElement);
-            }
-        }
-        return true;
-    }
-
-    private void parseSchemaElement(String element) throws ParseException {
-        char elementId = element.charAt(0);
-        String elementTail = element.substring(1);
-        validateSchemaElementId(elementId);
-
-        if (isBooleanSchemaElement(elementTail)) {
-            parseBooleanSchemaElement(elementId);
-        } else if (isStringSchemaElement(elementTail)) {
-            parseStringSchemaElement(elementId);
-        } else if (isIntSchemaElement(elementTail)) {
-            parseIntSchemaElement(elementId);
-        }
-    }
-
-    private void validateSchemaElementId(char elementId) throws ParseException {
-        if (!Character.isLetter(elementId)) {
-            throw new ParseException("Bad character:" + elementId + "in Args format: " + schema, 0);
-        }
+        return parsed.isValid();
     }
 
-    private boolean isBooleanSchemaElement(String elementTail) {
-        return elementTail.length() == 0;
-    }
-
-    private void parseBooleanSchemaElement(char elementId) {
-        ArgumentMarshaler m = new BooleanArgumentMarshaler();
-        marshalers.put(elementId, m);
-        booleanArgs.put(elementId, m);
-    }
-
-    private boolean isStringSchemaElement(String elementTail) {
-        return elementTail.equals("*");
-    }
-
-    private void parseStringSchemaElement(char elementId) {
-        ArgumentMarshaler m = new StringArgumentMarshaler();
-        marshalers.put(elementId, m);
-        stringArgs.put(elementId, m);
-    }
-
-    private boolean isIntSchemaElement(String elementTail) {
-        return elementTail.equals("#");
-    }
-
-    private void parseIntSchemaElement(char elementId) {
-        ArgumentMarshaler m = new IntegerArgumentMarshaler();
-        marshalers.put(elementId, m);
-        intArgs.put(elementId, m);
-    }
-
-    private boolean parseArguments() {
-        for (currentArgument = 0; currentArgument < args.length; currentArgument++) {
-            String arg = args[currentArgument];
-            try {
-                parseArgument(arg);
-            } catch (ArgsException e) {
-            }
-        }
-        return true;
-    }
-
-    private void parseArgument(String arg) throws ArgsException {
-        if (arg.startsWith("-")) {
-            parseElements(arg);
-        }
-    }
-
-    private void parseElements(String arg) throws ArgsException {
-        for (int i = 1; i < arg.length(); i++) {
-            parseElement(arg.charAt(i));
-        }
-    }
-
-    private void parseElement(char argChar) throws ArgsException {
-        if (setArgument(argChar)) {
-            argsFound.add(argChar);
-        } else {
-            unexpectedArguments.add(argChar);
-        }
-    }
-
-    private boolean setArgument(char argChar) throws ArgsException {
-        boolean set = true;
-        try {
-            ArgumentMarshaler m = marshalers.get(argChar);
-            if (m instanceof BooleanArgumentMarshaler) {
-                setBooleanArg(m);
-            } else if (m instanceof StringArgumentMarshaler) {
-                setStringArg(m);
-            } else if (m instanceof IntegerArgumentMarshaler) {
-                setIntArg(m);
-            } else set = false;
-        } catch (ArgsException e) {
-            valid = false;
-            errorArgument = argChar;
-            throw e;
-        }
-        return set;
-    }
-
-    private void setBooleanArg(ArgumentMarshaler m) {
-        // NPE? won't happen, has already run isBoolean; But, does this violate the law of Demeter?
-        try {
-            m.set("true");
-        } catch (ArgsException e) {
-        }
-    }
-
-    private void setStringArg(ArgumentMarshaler m) throws ArgsException {
-        currentArgument++;
-        try {
-            m.set(args[currentArgument]);
-        } catch (ArrayIndexOutOfBoundsException e) {
-             errorCode = ErrorCode.MISSING_STRING;
-            throw new ArgsException();
-        }
-    }
-
-    private void setIntArg(ArgumentMarshaler m) throws ArgsException {
-        currentArgument++;
-        String parameter = null;
-        try {
-            parameter = args[currentArgument];
-            m.set(parameter);
-        } catch (ArrayIndexOutOfBoundsException e) {
-            errorCode = ErrorCode.MISSING_INTEGER;
-            throw new ArgsException();
-        } catch (ArgsException e) {
-            errorParameter = parameter;
-            errorCode = ErrorCode.INVALID_INTEGER;
-            throw e;
-        }
+    public boolean parse() {
+        parsed = schema.parse(args);
+        return parsed.isValid();
     }
 
     public int cardinality() {
-        return argsFound.size();
+        return parsed.cardinality();
     }
 
     public String usage() {
-        if (schema.length() > 0) {
-            return "-[" + schema + "]";
-        } else {
-            return "";
-        }
+        return schema.usage();
     }
 
     public String errorMessage() throws Exception {
-        if (unexpectedArguments.size() > 0) {
-            return unexpetecArgumentMessage();
-        } else {
-            switch (errorCode) {
-                case MISSING_STRING:
-                    return String.format("Could not find string parameter for -%c.", errorArgument);
-                case OK:
-                    throw new Exception("TILT: Should not get here.");
-            }
-        }
-        return "";
-    }
-
-    private String unexpetecArgumentMessage() {
-        StringBuffer message = new StringBuffer("Argument(s) =");
-        for (char c : unexpectedArguments) {
-            message.append(c);
-        }
-        message.append(" unexpected.");
-        return message.toString();
+        return parsed.errorMessage();
     }
 
     public boolean getBoolean(char arg) {
-        ArgumentMarshaler am = marshalers.get(arg);
-        return am != null && (Boolean)am.get();
+        return parsed.getBoolean(arg);
     }
 
     public String getString(char c) {
-        ArgumentMarshaler am = stringArgs.get(c);
-        return am == null ? "" : (String) am.get();
+        return parsed.getString(c);
     }
 
     public int getInt(char c) {
-        ArgumentMarshaler am = intArgs.get(c);
-        return am == null ? 0 : (Integer) am.get();
+        return parsed.getInt(c);
     }
 
-    private abstract class ArgumentMarshaler {
-        public abstract void set(String s) throws ArgsException;
-        public abstract Object get();
+    public long getLong(char c) {
+        return parsed.getLong(c);
     }
-    // BooleanArgumentMarshaler is declare private in ArgumentMarshaler in the book, and this is wrong.
-    // Because we couldn't call it.
-    private class BooleanArgumentMarshaler extends ArgumentMarshaler {
-        private boolean booleanValue = false;
 
-        @Override
-        public void set(String s) {
-            // This is bad, because s is never parsed....?
-            booleanValue = true;
-        }
-
-        @Override
-        public Object get() {
-            return booleanValue;
-        }
+    public double getDouble(char c) {
+        return parsed.getDouble(c);
     }
 
-    private class StringArgumentMarshaler extends ArgumentMarshaler {
-        private String stringValue;
-
-        @Override
-        public void set(String s) {
-            stringValue = s;
-        }
-
-        @Override
-        public Object get() {
-            return stringValue;
-        }
+    public String[] getStringArray(char c) {
+        return parsed.getStringArray(c);
     }
 
-    private class IntegerArgumentMarshaler extends ArgumentMarshaler {
-        private int integerValue = 0;
-
-        @Override
-        public void set(String s) throws ArgsException {
-            try {
-                integerValue = Integer.parseInt(s);
-            } catch (NumberFormatException e) {
-                throw new ArgsException();
-            }
-        }
-
-        @Override
-        public Object get() {
-            return integerValue;
-        }
+    public Duration getDuration(char c) {
+        return parsed.getDuration(c);
     }
-    private class ArgsException extends Exception {
 
+    public <T> T getValue(char c, Class<T> type) {
+        return parsed.getValue(c, type);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package wscheng.cleancode.example.args;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Parses many argument vectors against one compiled schema, reusing a single ParsedArgs
+// and parser for all of them. Not thread-safe: use one batch parser per thread.
+public final class ArgsBatchParser {
+    private final ArgsSchema schema;
+    private final ParsedArgs row;
+    private final ArgumentParser parser;
+
+    public ArgsBatchParser(ArgsSchema schema) {
+        this.schema = schema;
+        this.row = new ParsedArgs(schema);
+        this.parser = new ArgumentParser(schema, row);
+    }
+
+    public interface RowSink {
+        // parsed is overwritten by the next row, so copy out whatever has to be kept.
+        void accept(int row, ParsedArgs parsed);
+    }
+
+    public ArgsColumns parse(Iterable<String[]> commandLines) {
+        return parse(commandLines.iterator());
+    }
+
+    public ArgsColumns parse(Stream<String[]> commandLines) {
+        return parse(commandLines.iterator());
+    }
+
+    public ArgsColumns parse(Iterator<String[]> commandLines) {
+        ArgsColumns columns = new ArgsColumns(schema);
+        parse(commandLines, columns);
+        return columns.trim();
+    }
+
+    // Returns the number of rows parsed.
+    public int parse(Iterator<String[]> commandLines, RowSink sink) {
+        int rows = 0;
+        while (commandLines.hasNext()) {
+            sink.accept(rows++, parser.parse(commandLines.next()));
+        }
+        return rows;
+    }
+}
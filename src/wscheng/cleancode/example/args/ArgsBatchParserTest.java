@@ -0,0 +1,84 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class ArgsBatchParserTest extends TestCase {
+    private ArgsSchema schema;
+
+    @Override
+    protected void setUp() throws Exception {
+        schema = ArgsSchema.compile("b,s*,n#");
+    }
+
+    public void testColumnsHoldEveryRow() throws Exception {
+        List<String[]> commandLines = Arrays.asList(
+                new String[] {"-b", "-n", "1"},
+                new String[] {"-s", "two"},
+                new String[] {"-n", "x", "-s", "three"},
+                new String[] {"-bz"});
+        ArgsColumns columns = new ArgsBatchParser(schema).parse(commandLines);
+
+        assertEquals(4, columns.rows());
+        assertEquals("{0, 3}", columns.booleanColumn('b').toString());
+        assertTrue(Arrays.equals(new int[] {1, 0, 0, 0}, columns.intColumn('n')));
+        assertTrue(Arrays.equals(new String[] {null, "two", "three", null}, columns.stringColumn('s')));
+        assertEquals("{0}", columns.presentColumn('n').toString());
+        assertEquals("{2, 3}", columns.invalidRows().toString());
+        assertEquals(ErrorCode.INVALID_INTEGER, columns.errorCode(2));
+        assertEquals(ErrorCode.OK, columns.errorCode(3));
+    }
+
+    public void testBufferIsResetBetweenRows() throws Exception {
+        final List<String> seen = new ArrayList<String>();
+        ArgsBatchParser parser = new ArgsBatchParser(schema);
+        int rows = parser.parse(Arrays.asList(
+                new String[] {"-b", "-s", "one", "-n", "1", "-q"},
+                new String[] {}).iterator(), new ArgsBatchParser.RowSink() {
+            public void accept(int row, ParsedArgs parsed) {
+                seen.add(row + ":" + parsed.cardinality() + ":" + parsed.getString('s') + ":"
+                        + parsed.getInt('n') + ":" + parsed.isValid());
+            }
+        });
+        assertEquals(2, rows);
+        assertEquals(Arrays.asList("0:3:one:1:false", "1:0:null:0:true"), seen);
+    }
+
+    public void testColumnsMatchSingleParses() throws Exception {
+        List<String[]> commandLines = new ArrayList<String[]>();
+        for (int i = 0; i < 1000; i++) {
+            commandLines.add(i % 2 == 0
+                    ? new String[] {"-n", Integer.toString(i), "-s", "s" + i}
+                    : new String[] {"-b", "-n", i % 3 == 0 ? "bad" : Integer.toString(-i)});
+        }
+        ArgsColumns columns = new ArgsBatchParser(schema).parse(commandLines.stream());
+        for (int row = 0; row < commandLines.size(); row++) {
+            ParsedArgs parsed = schema.parse(commandLines.get(row));
+            assertEquals(parsed.getBoolean('b'), columns.booleanColumn('b').get(row));
+            assertEquals(parsed.getInt('n'), columns.intColumn('n')[row]);
+            assertEquals(parsed.isValid(), columns.isValid(row));
+            assertEquals(parsed.errorCode(), columns.errorCode(row));
+        }
+        assertEquals(1000, columns.intColumn('n').length);
+    }
+
+    public void testEmptyBatch() throws Exception {
+        ArgsColumns columns = new ArgsBatchParser(schema).parse(Stream.<String[]>empty());
+        assertEquals(0, columns.rows());
+        assertEquals(0, columns.intColumn('n').length);
+    }
+
+    public void testColumnTypeIsChecked() throws Exception {
+        ArgsColumns columns = new ArgsBatchParser(schema).parse(Stream.<String[]>empty());
+        try {
+            columns.intColumn('b');
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Not an integer argument: b", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package wscheng.cleancode.example.args;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Remembers the ParsedArgs of recently seen (schema, arguments) pairs, so a command line that
+// comes back is answered without parsing it again. A large cache is split over segments that
+// each evict their least recently used entry, which keeps threads from queueing on one lock;
+// a small one is a single segment and so evicts in exact LRU order.
+//
+// A cached ParsedArgs is shared by every caller that asks for the same command line. That is
+// safe because its public API only reads, and because lazy values are resolved before it is
+// published. Schemas are compared by identity: keep the compiled ArgsSchema around.
+//
+// Only a parse that depends on nothing but its arguments is cached. A schema with validators
+// is always parsed afresh, as a check such as freeLocalPort() or a readable file can change
+// its answer, and so is a command line with an @file when the schema expands them, as the
+// file can change, or be missing just once. Those parses count as bypasses, not misses.
+public final class ArgsCache {
+    private static final int MAXIMUM_SEGMENTS = 16;
+    // Below this many entries per segment, splitting would make the eviction order too coarse.
+    private static final int MINIMUM_SEGMENT_SIZE = 64;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ArgsCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maximumSize);
+        }
+        int segmentCount = Integer.highestOneBit(
+                Math.max(1, Math.min(MAXIMUM_SEGMENTS, maximumSize / MINIMUM_SEGMENT_SIZE)));
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(maximumSize / segmentCount, evictions);
+        }
+        segmentMask = segmentCount - 1;
+    }
+
+    // Two threads that miss on the same command line at once both parse it; the results are equal.
+    public ParsedArgs parse(ArgsSchema schema, String[] args) {
+        if (!isCacheable(schema, args)) {
+            bypasses.increment();
+            return schema.parse(args);
+        }
+        Key key = new Key(schema, args);
+        Segment segment = segmentFor(key);
+        ParsedArgs parsed = segment.get(key);
+        if (parsed != null) {
+            hits.increment();
+            return parsed;
+        }
+        misses.increment();
+        parsed = schema.parse(args);
+        parsed.resolveAll();
+        segment.put(key.copy(), parsed);
+        return parsed;
+    }
+
+    private static boolean isCacheable(ArgsSchema schema, String[] args) {
+        if (schema.hasValidation()) {
+            return false;
+        }
+        if (schema.expandsArgumentFiles()) {
+            for (String arg : args) {
+                if (arg.startsWith("@")) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long bypassCount() {
+        return bypasses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private Segment segmentFor(Key key) {
+        // Spread the hash so the segment does not depend only on its lowest bits.
+        int hash = key.hash ^ (key.hash >>> 16);
+        return segments[hash & segmentMask];
+    }
+
+    private static class Segment {
+        private final LinkedHashMap<Key, ParsedArgs> entries;
+
+        Segment(final int capacity, final LongAdder evictions) {
+            entries = new LinkedHashMap<Key, ParsedArgs>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, ParsedArgs> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized ParsedArgs get(Key key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(Key key, ParsedArgs parsed) {
+            entries.put(key, parsed);
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+    }
+
+    // Looks the arguments up in place; only a key that is stored takes a copy of them, so a
+    // caller that reuses its array afterwards cannot change what is cached.
+    private static final class Key {
+        private final ArgsSchema schema;
+        private final String[] args;
+        private final int hash;
+
+        Key(ArgsSchema schema, String[] args) {
+            this(schema, args, 31 * System.identityHashCode(schema) + Arrays.hashCode(args));
+        }
+
+        private Key(ArgsSchema schema, String[] args, int hash) {
+            this.schema = schema;
+            this.args = args;
+            this.hash = hash;
+        }
+
+        Key copy() {
+            return new Key(schema, args.clone(), hash);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && schema == other.schema && Arrays.equals(args, other.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ArgsCacheTest extends TestCase {
+    private ArgsSchema schema;
+
+    @Override
+    protected void setUp() throws Exception {
+        schema = ArgsSchema.compile("b,s*,n#");
+    }
+
+    public void testRepeatedCommandLineIsAHit() throws Exception {
+        ArgsCache cache = new ArgsCache(8);
+        ParsedArgs first = cache.parse(schema, new String[] {"-b", "-n", "3"});
+        ParsedArgs second = cache.parse(schema, new String[] {"-b", "-n", "3"});
+        assertSame(first, second);
+        assertEquals(3, second.getInt('n'));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.size());
+    }
+
+    public void testCallerCannotChangeCachedArguments() throws Exception {
+        ArgsCache cache = new ArgsCache(8);
+        String[] args = {"-s", "first"};
+        cache.parse(schema, args);
+        args[1] = "second";
+        assertEquals("second", cache.parse(schema, args).getString('s'));
+        assertEquals("first", cache.parse(schema, new String[] {"-s", "first"}).getString('s'));
+        assertEquals(1, cache.hitCount());
+    }
+
+    public void testSchemasAreCachedSeparately() throws Exception {
+        ArgsCache cache = new ArgsCache(8);
+        String[] args = {"-n", "x"};
+        ParsedArgs lenient = cache.parse(schema, args);
+        ParsedArgs strict = cache.parse(ArgsSchema.compileStrict("b,s*,n#"), args);
+        assertNotSame(lenient, strict);
+        assertEquals(2, cache.missCount());
+    }
+
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        ArgsCache cache = new ArgsCache(2);
+        String[] a = {"-n", "1"};
+        String[] b = {"-n", "2"};
+        String[] c = {"-n", "3"};
+        cache.parse(schema, a);
+        cache.parse(schema, b);
+        cache.parse(schema, a);
+        cache.parse(schema, c);
+        assertEquals(1, cache.evictionCount());
+        assertEquals(2, cache.size());
+        cache.parse(schema, a);
+        assertEquals(2, cache.hitCount());
+        cache.parse(schema, b);
+        assertEquals(4, cache.missCount());
+    }
+
+    public void testLazyValuesAreResolvedBeforeSharing() throws Exception {
+        ArgsCache cache = new ArgsCache(8);
+        ArgsSchema lazy = schema.withLazyValues(true);
+        ParsedArgs parsed = cache.parse(lazy, new String[] {"-n", "x", "-s", "y"});
+        assertEquals(ErrorCode.INVALID_INTEGER, parsed.errorCode());
+        assertEquals("y", parsed.getString('s'));
+    }
+
+    public void testArgumentFileIsReadOnEveryParse() throws Exception {
+        ArgsCache cache = new ArgsCache(8);
+        ArgsSchema expanding = schema.withArgumentFiles(true);
+        Path file = File.createTempFile("args", ".txt").toPath();
+        try {
+            String[] args = {"-b", "@" + file};
+            Files.write(file, "-n 1".getBytes(StandardCharsets.UTF_8));
+            assertEquals(1, cache.parse(expanding, args).getInt('n'));
+            Files.write(file, "-n 2".getBytes(StandardCharsets.UTF_8));
+            assertEquals(2, cache.parse(expanding, args).getInt('n'));
+            Files.delete(file);
+            assertEquals(ErrorCode.INVALID_ARGUMENT_FILE, cache.parse(expanding, args).errorCode());
+            Files.write(file, "-n 3".getBytes(StandardCharsets.UTF_8));
+            assertEquals(3, cache.parse(expanding, args).getInt('n'));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        assertEquals(4, cache.bypassCount());
+        assertEquals(0, cache.size());
+        cache.parse(expanding, new String[] {"-n", "4"});
+        assertEquals(1, cache.size());
+    }
+
+    public void testValidatedSchemaIsNotCached() throws Exception {
+        ArgsCache cache = new ArgsCache(8);
+        final boolean[] accept = {false};
+        ArgsSchema validating = schema.withValidation(
+                ArgsValidation.none().with('s', value -> accept[0] ? null : "not yet"));
+        String[] args = {"-s", "x"};
+        assertEquals(ErrorCode.VALIDATION_FAILED, cache.parse(validating, args).errorCode());
+        accept[0] = true;
+        assertEquals(true, cache.parse(validating, args).isValid());
+        assertEquals(2, cache.bypassCount());
+        assertEquals(0, cache.hitCount() + cache.missCount());
+    }
+
+    public void testSharedBetweenThreads() throws Exception {
+        final ArgsCache cache = new ArgsCache(16);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> mismatches = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < 8; t++) {
+                mismatches.add(executor.submit(() -> {
+                    int wrong = 0;
+                    for (int i = 0; i < 20000; i++) {
+                        int n = i % 40;
+                        ParsedArgs parsed = cache.parse(schema, new String[] {"-n", Integer.toString(n)});
+                        if (parsed.getInt('n') != n || !parsed.isValid()) {
+                            wrong++;
+                        }
+                    }
+                    return wrong;
+                }));
+            }
+            for (Future<Integer> wrong : mismatches) {
+                assertEquals(0, wrong.get().intValue());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(cache.size() <= 16);
+        assertEquals(8 * 20000, cache.hitCount() + cache.missCount());
+    }
+
+    public void testSizeMustBePositive() throws Exception {
+        try {
+            new ArgsCache(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Cache size must be positive: 0", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package wscheng.cleancode.example.args;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Writes a ParsedArgs into a ByteBuffer, so a process that parsed a command line can hand the
+// result to another one that compiled the same schema, instead of having it parse again.
+// read() turns the bytes back into a ParsedArgs; EncodedArgs reads them where they are.
+//
+// The layout starts with a fixed part, so that any value can be found without a scan:
+//     int magic, byte version, int length of the whole encoding, int hash of the schema,
+//     int slot count, long[] found bitmap, long[] primitive column, int[] record offsets,
+//     byte error code, char error argument, int error position,
+//     int offset of the error parameter, int offset of the unexpected arguments,
+//     int offset of the validation failures, int offset of the collected errors,
+// followed by the records. A string is an int length and that many bytes of UTF-8; a slot
+// record is a kind byte followed by its string or by a count and that many strings. Offsets
+// count from the magic, and -1 means there is none. The collected errors of a COLLECT_ALL
+// parse are an int count and, for each, its code, argument and position and its parameter
+// as a string of length -1 when there is none.
+//
+// Booleans and the primitive types travel in their columns. Strings and string arrays get a
+// record of their own. Any other object goes as the text its marshaler's encode() gives for
+// it and is restored through set(), which is how an enum round-trips. A parse holding an
+// object that encode() has no text for is refused with an IllegalArgumentException before
+// anything is written, rather than encoded into bytes that cannot be read back.
+public final class ArgsCodec {
+    static final int MAGIC = 0x41524753;
+    static final byte VERSION = 1;
+    static final int NONE = -1;
+
+    static final byte STRING = 1;
+    static final byte STRING_ARRAY = 2;
+    static final byte TEXT = 3;
+    static final byte NULL_TEXT = 4;
+
+    static final int LENGTH_OFFSET = 5;
+    static final int SCHEMA_HASH_OFFSET = 9;
+    static final int SIZE_OFFSET = 13;
+    static final int FOUND_OFFSET = 17;
+    static final int ERROR_SIZE = 1 + 2 + 4 + 4 + 4 + 4 + 4;
+
+    private static final ErrorCode[] ERROR_CODES = ErrorCode.values();
+
+    private ArgsCodec() {
+    }
+
+    public static ByteBuffer encode(ParsedArgs parsed) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(parsed));
+        write(parsed, buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    public static int encodedSize(ParsedArgs parsed) {
+        parsed.resolveAll();
+        checkEncodable(parsed);
+        ArgsSchema schema = parsed.schema();
+        int size = fixedSize(schema.size());
+        for (int slot = 0; slot < schema.size(); slot++) {
+            size += recordSize(parsed, slot);
+        }
+        if (parsed.errorParameter() != null) {
+            size += stringSize(parsed.errorParameter());
+        }
+        String unexpected = parsed.unexpectedArguments();
+        if (unexpected.length() > 0) {
+            size += stringSize(unexpected);
+        }
+        if (parsed.errorDetail() != null) {
+            size += stringSize(parsed.errorDetail());
+        }
+        CollectedErrors collected = parsed.collectedErrors();
+        if (collected != null && collected.size() > 0) {
+            size += collectedSize(collected);
+        }
+        return size;
+    }
+
+    private static int collectedSize(CollectedErrors collected) {
+        int size = 4;
+        for (int i = 0; i < collected.size(); i++) {
+            String parameter = collected.parameter(i);
+            size += 1 + 2 + 4 + (parameter == null ? 4 : stringSize(parameter));
+        }
+        return size;
+    }
+
+    static int fixedSize(int slots) {
+        return FOUND_OFFSET + 8 * foundWords(slots) + 8 * slots + 4 * slots + ERROR_SIZE;
+    }
+
+    static int foundWords(int slots) {
+        return (slots + 63) >>> 6;
+    }
+
+    static int primitivesOffset(int slots) {
+        return FOUND_OFFSET + 8 * foundWords(slots);
+    }
+
+    static int recordsOffset(int slots) {
+        return primitivesOffset(slots) + 8 * slots;
+    }
+
+    static int errorOffset(int slots) {
+        return recordsOffset(slots) + 4 * slots;
+    }
+
+    // Writes parsed at the position of buffer and moves the position past it. Throws
+    // BufferOverflowException when there is less room than encodedSize(parsed), and
+    // IllegalArgumentException, with the buffer untouched, when a value cannot be encoded.
+    public static void write(ParsedArgs parsed, ByteBuffer buffer) {
+        parsed.resolveAll();
+        checkEncodable(parsed);
+        ArgsSchema schema = parsed.schema();
+        int slots = schema.size();
+        int base = buffer.position();
+        buffer.putInt(MAGIC).put(VERSION).putInt(0).putInt(schema.schema().hashCode()).putInt(slots);
+        writeFound(parsed, buffer);
+        for (int slot = 0; slot < slots; slot++) {
+            buffer.putLong(parsed.primitive(slot));
+        }
+        int recordOffsets = buffer.position();
+        buffer.position(recordOffsets + 4 * slots + ERROR_SIZE);
+        for (int slot = 0; slot < slots; slot++) {
+            buffer.putInt(recordOffsets + 4 * slot, writeRecord(parsed, slot, buffer, base));
+        }
+        String parameter = parsed.errorParameter();
+        int errorParameter = parameter == null ? NONE : writeString(parameter, buffer, base);
+        String unexpected = parsed.unexpectedArguments();
+        int unexpectedArguments = unexpected.length() == 0 ? NONE : writeString(unexpected, buffer, base);
+        String detail = parsed.errorDetail();
+        int errorDetail = detail == null ? NONE : writeString(detail, buffer, base);
+        CollectedErrors collected = parsed.collectedErrors();
+        int collectedErrors = collected == null || collected.size() == 0
+                ? NONE : writeCollected(collected, buffer, base);
+        int error = recordOffsets + 4 * slots;
+        buffer.put(error, (byte) parsed.errorCode().ordinal())
+                .putChar(error + 1, parsed.errorArgument())
+                .putInt(error + 3, parsed.errorPosition())
+                .putInt(error + 7, errorParameter)
+                .putInt(error + 11, unexpectedArguments)
+                .putInt(error + 15, errorDetail)
+                .putInt(error + 19, collectedErrors);
+        buffer.putInt(base + LENGTH_OFFSET, buffer.position() - base);
+    }
+
+    private static int writeCollected(CollectedErrors collected, ByteBuffer buffer, int base) {
+        int offset = buffer.position() - base;
+        buffer.putInt(collected.size());
+        for (int i = 0; i < collected.size(); i++) {
+            buffer.put((byte) collected.code(i).ordinal())
+                    .putChar(collected.argument(i))
+                    .putInt(collected.position(i));
+            if (collected.parameter(i) == null) {
+                buffer.putInt(NONE);
+            } else {
+                writeString(collected.parameter(i), buffer, base);
+            }
+        }
+        return offset;
+    }
+
+    private static void writeFound(ParsedArgs parsed, ByteBuffer buffer) {
+        long[] words = new long[foundWords(parsed.schema().size())];
+        for (int slot = parsed.nextFoundSlot(0); slot >= 0; slot = parsed.nextFoundSlot(slot + 1)) {
+            words[slot >>> 6] |= 1L << slot;
+        }
+        for (long word : words) {
+            buffer.putLong(word);
+        }
+    }
+
+    private static int recordSize(ParsedArgs parsed, int slot) {
+        Object value = parsed.object(slot);
+        if (value instanceof StringList) {
+            StringList strings = (StringList) value;
+            int size = 1 + 4;
+            for (int i = 0; i < strings.size(); i++) {
+                size += stringSize(strings.get(i));
+            }
+            return size;
+        }
+        if (value instanceof String) {
+            return 1 + stringSize((String) value);
+        }
+        if (value != null) {
+            return 1 + stringSize(encodedText(parsed, slot));
+        }
+        return readsNullString(parsed, slot) ? 1 : 0;
+    }
+
+    private static String encodedText(ParsedArgs parsed, int slot) {
+        return parsed.schema().marshalerAt(slot).encode(parsed, slot);
+    }
+
+    private static boolean readsNullString(ParsedArgs parsed, int slot) {
+        return parsed.schema().marshalerAt(slot).getString(parsed, slot) == null;
+    }
+
+    private static void checkEncodable(ParsedArgs parsed) {
+        ArgsSchema schema = parsed.schema();
+        for (int slot = 0; slot < schema.size(); slot++) {
+            Object value = parsed.object(slot);
+            if (value != null && !(value instanceof String) && !(value instanceof StringList)
+                    && encodedText(parsed, slot) == null) {
+                throw new IllegalArgumentException("-" + schema.idOf(slot) + " holds a "
+                        + value.getClass().getName() + " that its marshaler cannot encode");
+            }
+        }
+    }
+
+    // Returns the offset of the record, or NONE when the slot does not need one: a slot without
+    // an object is restored by its primitive column alone. NULL_TEXT only tells EncodedArgs
+    // that getString() reads null there, as it does for a string that was not given.
+    private static int writeRecord(ParsedArgs parsed, int slot, ByteBuffer buffer, int base) {
+        Object value = parsed.object(slot);
+        int offset = buffer.position() - base;
+        if (value instanceof StringList) {
+            StringList strings = (StringList) value;
+            buffer.put(STRING_ARRAY).putInt(strings.size());
+            for (int i = 0; i < strings.size(); i++) {
+                writeString(strings.get(i), buffer, base);
+            }
+            return offset;
+        }
+        if (value instanceof String) {
+            buffer.put(STRING);
+            writeString((String) value, buffer, base);
+        } else if (value != null) {
+            buffer.put(TEXT);
+            writeString(encodedText(parsed, slot), buffer, base);
+        } else if (readsNullString(parsed, slot)) {
+            buffer.put(NULL_TEXT);
+        } else {
+            return NONE;
+        }
+        return offset;
+    }
+
+    private static int writeString(String string, ByteBuffer buffer, int base) {
+        int offset = buffer.position() - base;
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+        return offset;
+    }
+
+    private static int stringSize(String string) {
+        return 4 + utf8Length(string);
+    }
+
+    // As string.getBytes(UTF_8).length, without the copy; a lone surrogate becomes a one-byte '?'.
+    static int utf8Length(String string) {
+        int length = 0;
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < string.length()
+                    && Character.isLowSurrogate(string.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    // Reads the encoding at the position of buffer, which must have been written for a schema
+    // with the same schema string, and moves the position past it.
+    public static ParsedArgs read(ArgsSchema schema, ByteBuffer buffer) {
+        int base = buffer.position();
+        int length = checkHeader(schema, buffer, base);
+        int slots = schema.size();
+        ParsedArgs parsed = new ParsedArgs(schema);
+        for (int word = 0; word < foundWords(slots); word++) {
+            long bits = buffer.getLong(base + FOUND_OFFSET + 8 * word);
+            for (; bits != 0; bits &= bits - 1) {
+                parsed.markFound((word << 6) + Long.numberOfTrailingZeros(bits));
+            }
+        }
+        for (int slot = 0; slot < slots; slot++) {
+            parsed.setPrimitive(slot, buffer.getLong(base + primitivesOffset(slots) + 8 * slot));
+            int record = buffer.getInt(base + recordsOffset(slots) + 4 * slot);
+            if (record != NONE) {
+                readRecord(parsed, slot, buffer, base + record);
+            }
+        }
+        readError(parsed, buffer, base, slots);
+        buffer.position(base + length);
+        return parsed;
+    }
+
+    // Returns the length of the encoding at base.
+    static int checkHeader(ArgsSchema schema, ByteBuffer buffer, int base) {
+        if (buffer.getInt(base) != MAGIC || buffer.get(base + 4) != VERSION) {
+            throw new IllegalArgumentException("Not an encoded ParsedArgs at " + base);
+        }
+        if (buffer.getInt(base + SCHEMA_HASH_OFFSET) != schema.schema().hashCode()
+                || buffer.getInt(base + SIZE_OFFSET) != schema.size()) {
+            throw new IllegalArgumentException("Encoded for another schema than " + schema.schema());
+        }
+        int length = buffer.getInt(base + LENGTH_OFFSET);
+        if (length < fixedSize(schema.size()) || length > buffer.limit() - base) {
+            throw new IllegalArgumentException("Truncated encoding of " + length + " bytes at " + base);
+        }
+        return length;
+    }
+
+    private static void readRecord(ParsedArgs parsed, int slot, ByteBuffer buffer, int record) {
+        switch (buffer.get(record)) {
+            case STRING:
+                parsed.setObject(slot, readString(buffer, record + 1));
+                break;
+            case STRING_ARRAY:
+                parsed.setObject(slot, StringList.of(readStrings(buffer, record + 1)));
+                break;
+            case TEXT:
+                restore(parsed, slot, readString(buffer, record + 1));
+                break;
+            case NULL_TEXT:
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown record kind at " + record);
+        }
+    }
+
+    private static void restore(ParsedArgs parsed, int slot, String text) {
+        ArgumentMarshaler m = parsed.schema().marshalerAt(slot);
+        if (m.set(parsed, slot, text) != ErrorCode.OK) {
+            throw new IllegalArgumentException("-" + parsed.schema().idOf(slot) + " cannot take " + text);
+        }
+    }
+
+    private static void readError(ParsedArgs parsed, ByteBuffer buffer, int base, int slots) {
+        int error = base + errorOffset(slots);
+        int errorParameter = buffer.getInt(error + 7);
+        parsed.setLastError(ERROR_CODES[buffer.get(error)], buffer.getChar(error + 1),
+                errorParameter == NONE ? null : readString(buffer, base + errorParameter),
+                buffer.getInt(error + 3));
+        int errorDetail = buffer.getInt(error + 15);
+        if (errorDetail != NONE) {
+            parsed.setErrorDetail(readString(buffer, base + errorDetail));
+        }
+        int collectedErrors = buffer.getInt(error + 19);
+        if (collectedErrors != NONE && parsed.collectedErrors() != null) {
+            readCollected(parsed.collectedErrors(), buffer, base + collectedErrors);
+        }
+        int unexpected = buffer.getInt(error + 11);
+        if (unexpected != NONE) {
+            String chars = readString(buffer, base + unexpected);
+            for (int i = 0; i < chars.length(); i++) {
+                parsed.addUnexpectedArgument(chars.charAt(i));
+            }
+        }
+    }
+
+    private static void readCollected(CollectedErrors collected, ByteBuffer buffer, int index) {
+        int count = buffer.getInt(index);
+        int next = index + 4;
+        for (int i = 0; i < count; i++) {
+            int parameter = next + 1 + 2 + 4;
+            collected.add(ERROR_CODES[buffer.get(next)], buffer.getChar(next + 1),
+                    buffer.getInt(parameter) == NONE ? null : readString(buffer, parameter),
+                    buffer.getInt(next + 3));
+            next = parameter + 4 + Math.max(0, buffer.getInt(parameter));
+        }
+    }
+
+    // The string whose length is at index; a heap buffer is decoded in place.
+    static String readString(ByteBuffer buffer, int index) {
+        int length = buffer.getInt(index);
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + index + 4, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(index + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static String[] readStrings(ByteBuffer buffer, int index) {
+        String[] strings = new String[buffer.getInt(index)];
+        int next = index + 4;
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(buffer, next);
+            next += 4 + buffer.getInt(next);
+        }
+        return strings;
+    }
+
+    static ErrorCode errorCodeOf(byte ordinal) {
+        return ERROR_CODES[ordinal];
+    }
+}
@@ -0,0 +1,244 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+import wscheng.cleancode.example.args.MarshalerRegistryTest.Color;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+
+public class ArgsCodecTest extends TestCase {
+    // One option of every built-in type, an enum and a custom primitive type.
+    private static final String SCHEMA = "b,s*,n#,l##,d##.,f[*],t~,c{color},h#x";
+
+    // A custom object type that leaves getString() at its default "", so only encode() can
+    // tell the codec what to write for it.
+    static class PathArgumentMarshaler extends ArgumentMarshaler {
+        private final boolean encodes;
+
+        PathArgumentMarshaler(boolean encodes) {
+            this.encodes = encodes;
+        }
+
+        @Override
+        public boolean hasParameter() {
+            return true;
+        }
+
+        @Override
+        public ErrorCode missingParameterCode() {
+            return ErrorCode.MISSING_VALUE;
+        }
+
+        @Override
+        public ErrorCode set(ParsedArgs values, int slot, CharSequence parameter) {
+            try {
+                setObject(values, slot, Paths.get(parameter.toString()));
+                return ErrorCode.OK;
+            } catch (InvalidPathException e) {
+                return ErrorCode.INVALID_VALUE;
+            }
+        }
+
+        @Override
+        public String encode(ParsedArgs values, int slot) {
+            return encodes ? object(values, slot).toString() : super.encode(values, slot);
+        }
+    }
+
+    private ArgsSchema schema;
+
+    @Override
+    protected void setUp() throws Exception {
+        MarshalerRegistry registry = MarshalerRegistry.builtIn()
+                .with("{color}", new EnumArgumentMarshaler<Color>(Color.class))
+                .with("#x", new MarshalerRegistryTest.HexArgumentMarshaler());
+        schema = ArgsSchema.compile(SCHEMA, registry);
+    }
+
+    private static String[] args(String... args) {
+        return args;
+    }
+
+    private void assertRoundTrips(String[] args) {
+        ParsedArgs parsed = schema.parse(args);
+        ByteBuffer buffer = ArgsCodec.encode(parsed);
+        assertEquals(ArgsCodec.encodedSize(parsed), buffer.remaining());
+        assertSameValues(parsed, ArgsCodec.read(schema, buffer));
+        assertEquals(0, buffer.remaining());
+        buffer.rewind();
+        assertSameView(parsed, new EncodedArgs(schema, buffer));
+    }
+
+    private static void assertSameValues(ParsedArgs expected, ParsedArgs actual) {
+        assertEquals(expected.isValid(), actual.isValid());
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertEquals(expected.errorCode(), actual.errorCode());
+        assertEquals(expected.errorArgument(), actual.errorArgument());
+        assertEquals(expected.errorParameter(), actual.errorParameter());
+        assertEquals(expected.errorPosition(), actual.errorPosition());
+        assertEquals(expected.unexpectedArguments(), actual.unexpectedArguments());
+        for (char c : "bsnldftchz".toCharArray()) {
+            assertEquals(expected.has(c), actual.has(c));
+            assertEquals(expected.getBoolean(c), actual.getBoolean(c));
+            assertEquals(expected.getString(c), actual.getString(c));
+            assertEquals(expected.getInt(c), actual.getInt(c));
+            assertEquals(expected.getLong(c), actual.getLong(c));
+            assertEquals(expected.getDouble(c), actual.getDouble(c));
+            assertEquals(Arrays.asList(expected.getStringArray(c)), Arrays.asList(actual.getStringArray(c)));
+            assertEquals(expected.getDuration(c), actual.getDuration(c));
+            assertEquals(expected.getValue(c) instanceof String[], actual.getValue(c) instanceof String[]);
+            if (!(expected.getValue(c) instanceof String[])) {
+                assertEquals(expected.getValue(c), actual.getValue(c));
+            }
+        }
+    }
+
+    private static void assertSameView(ParsedArgs expected, EncodedArgs actual) {
+        assertEquals(expected.isValid(), actual.isValid());
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertEquals(expected.errorCode(), actual.errorCode());
+        assertEquals(expected.errorArgument(), actual.errorArgument());
+        assertEquals(expected.errorParameter(), actual.errorParameter());
+        assertEquals(expected.errorPosition(), actual.errorPosition());
+        assertEquals(expected.unexpectedArguments(), actual.unexpectedArguments());
+        for (char c : "bsnldftcz".toCharArray()) {
+            assertEquals(expected.has(c), actual.has(c));
+            assertEquals(expected.getBoolean(c), actual.getBoolean(c));
+            assertEquals(String.valueOf(c), expected.getString(c), actual.getString(c));
+            assertEquals(expected.getInt(c), actual.getInt(c));
+            assertEquals(expected.getLong(c), actual.getLong(c));
+            assertEquals(expected.getDouble(c), actual.getDouble(c));
+            assertEquals(Arrays.asList(expected.getStringArray(c)), Arrays.asList(actual.getStringArray(c)));
+        }
+        assertEquals(expected.getInt('h'), actual.getInt('h'));
+    }
+
+    public void testEveryTypeRoundTrips() throws Exception {
+        assertRoundTrips(args("-b", "-s", "text", "-n", "-42", "-l", "9000000000", "-d", "2.5",
+                "-f", "x", "-f", "", "-t", "90s", "-c", "blue", "-h", "ff"));
+        assertRoundTrips(args());
+        assertRoundTrips(args("-s", ""));
+    }
+
+    public void testErrorsRoundTrip() throws Exception {
+        assertRoundTrips(args("-n", "x"));
+        assertRoundTrips(args("-bqz", "-c", "purple"));
+        assertRoundTrips(args("-s"));
+        assertRoundTrips(args("-n", "99999999999"));
+    }
+
+    public void testNonAsciiStrings() throws Exception {
+        assertRoundTrips(args("-s", "été 中文 😀", "-f", "ü"));
+        assertEquals(4, ArgsCodec.utf8Length("😀"));
+        // A lone surrogate is not valid UTF-16, so it travels as the '?' that UTF-8 makes of it.
+        ParsedArgs parsed = schema.parse(args("-s", "\ud800x"));
+        assertEquals("?x", new EncodedArgs(schema, ArgsCodec.encode(parsed)).getString('s'));
+        assertEquals("\ud800x".getBytes("UTF-8").length, ArgsCodec.utf8Length("\ud800x"));
+    }
+
+    public void testLazyValuesAreResolvedBeforeEncoding() throws Exception {
+        ParsedArgs parsed = schema.withLazyValues(true).parse(args("-n", "7", "-s", "text"));
+        EncodedArgs encoded = new EncodedArgs(schema, ArgsCodec.encode(parsed));
+        assertEquals(7, encoded.getInt('n'));
+        assertEquals("text", encoded.getString('s'));
+    }
+
+    public void testEncodingsCanFollowEachOther() throws Exception {
+        ParsedArgs first = schema.parse(args("-n", "1"));
+        ParsedArgs second = schema.parse(args("-s", "two"));
+        ByteBuffer buffer = ByteBuffer.allocate(3 + ArgsCodec.encodedSize(first) + ArgsCodec.encodedSize(second));
+        buffer.position(3);
+        ArgsCodec.write(first, buffer);
+        ArgsCodec.write(second, buffer);
+        buffer.flip().position(3);
+        EncodedArgs view = new EncodedArgs(schema, buffer);
+        assertEquals(1, view.getInt('n'));
+        assertEquals(3, buffer.position());
+        assertEquals(1, ArgsCodec.read(schema, buffer).getInt('n'));
+        assertEquals("two", ArgsCodec.read(schema, buffer).getString('s'));
+        assertEquals(false, buffer.hasRemaining());
+    }
+
+    public void testMappedBuffer() throws Exception {
+        ParsedArgs parsed = schema.parse(args("-s", "mapped", "-n", "3", "-b"));
+        File file = File.createTempFile("args", ".bin");
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            channel.write(ArgsCodec.encode(parsed));
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            EncodedArgs view = new EncodedArgs(schema, mapped);
+            assertSameView(parsed, view);
+            assertEquals(channel.size(), view.length());
+            assertEquals(Duration.ZERO, view.toParsedArgs().getDuration('t'));
+            assertEquals("mapped", view.toParsedArgs().getString('s'));
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testCustomObjectRoundTripsThroughEncode() throws Exception {
+        ArgsSchema paths = ArgsSchema.compile("p{path},s*",
+                MarshalerRegistry.builtIn().with("{path}", new PathArgumentMarshaler(true)));
+        ParsedArgs parsed = paths.parse(args("-p", "dir/file.txt", "-s", "x"));
+        ParsedArgs read = ArgsCodec.read(paths, ArgsCodec.encode(parsed));
+        assertEquals(Paths.get("dir/file.txt"), read.getValue('p'));
+        assertEquals("", read.getString('p'));
+        assertEquals("x", read.getString('s'));
+        assertEquals(true, read.has('p'));
+        assertEquals(parsed.cardinality(), read.cardinality());
+        assertEquals(ArgsCodec.encodedSize(parsed), ArgsCodec.encode(read).remaining());
+    }
+
+    public void testObjectWithoutEncodeIsRefusedBeforeWriting() throws Exception {
+        ArgsSchema paths = ArgsSchema.compile("p{path},s*",
+                MarshalerRegistry.builtIn().with("{path}", new PathArgumentMarshaler(false)));
+        ParsedArgs parsed = paths.parse(args("-s", "x", "-p", "dir"));
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        try {
+            ArgsCodec.write(parsed, buffer);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("-p holds a " + parsed.getValue('p').getClass().getName()
+                    + " that its marshaler cannot encode", e.getMessage());
+        }
+        assertEquals(0, buffer.position());
+        try {
+            ArgsCodec.encodedSize(parsed);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("-p holds"));
+        }
+        // Without a value in the slot there is nothing to encode.
+        assertEquals("x", ArgsCodec.read(paths, ArgsCodec.encode(paths.parse(args("-s", "x")))).getString('s'));
+    }
+
+    public void testOtherSchemaIsRejected() throws Exception {
+        ByteBuffer buffer = ArgsCodec.encode(schema.parse(args("-b")));
+        try {
+            ArgsCodec.read(ArgsSchema.compile("b,s*"), buffer);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Encoded for another schema than b,s*", e.getMessage());
+        }
+        try {
+            new EncodedArgs(schema, ByteBuffer.allocate(64));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Not an encoded ParsedArgs at 0", e.getMessage());
+        }
+        buffer.limit(buffer.limit() - 1);
+        try {
+            ArgsCodec.read(schema, buffer);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("Truncated encoding"));
+        }
+    }
+}
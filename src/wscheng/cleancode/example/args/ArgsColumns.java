@@ -0,0 +1,194 @@
+package wscheng.cleancode.example.args;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// The results of a batch parse, stored per option rather than per command line:
+// an int[], long[] or double[] for every number option, a BitSet for every boolean, a
+// String[] for every string and an Object[] for every other type, holding getValue().
+public final class ArgsColumns implements ArgsBatchParser.RowSink {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final ArgsSchema schema;
+    private final BitSet[] present;
+    private final int[][] ints;
+    private final long[][] longs;
+    private final double[][] doubles;
+    private final String[][] strings;
+    private final Object[][] objects;
+    private final BitSet invalidRows = new BitSet();
+    private ErrorCode[] errorCodes = new ErrorCode[INITIAL_CAPACITY];
+    private int rows;
+
+    ArgsColumns(ArgsSchema schema) {
+        this.schema = schema;
+        int size = schema.size();
+        present = new BitSet[size];
+        ints = new int[size][];
+        longs = new long[size][];
+        doubles = new double[size][];
+        strings = new String[size][];
+        objects = new Object[size][];
+        for (int slot = 0; slot < size; slot++) {
+            present[slot] = new BitSet();
+            switch (schema.marshalerAt(slot).valueType()) {
+                case INTEGER:
+                    ints[slot] = new int[INITIAL_CAPACITY];
+                    break;
+                case LONG:
+                    longs[slot] = new long[INITIAL_CAPACITY];
+                    break;
+                case DOUBLE:
+                    doubles[slot] = new double[INITIAL_CAPACITY];
+                    break;
+                case STRING:
+                    strings[slot] = new String[INITIAL_CAPACITY];
+                    break;
+                case OBJECT:
+                    objects[slot] = new Object[INITIAL_CAPACITY];
+                    break;
+                default:
+                    // A boolean is its present column.
+            }
+        }
+    }
+
+    @Override
+    public void accept(int row, ParsedArgs parsed) {
+        ensureCapacity(row + 1);
+        for (int slot = parsed.nextFoundSlot(0); slot >= 0; slot = parsed.nextFoundSlot(slot + 1)) {
+            present[slot].set(row);
+            ArgumentMarshaler m = schema.marshalerAt(slot);
+            if (ints[slot] != null) {
+                ints[slot][row] = m.getInt(parsed, slot);
+            } else if (longs[slot] != null) {
+                longs[slot][row] = m.getLong(parsed, slot);
+            } else if (doubles[slot] != null) {
+                doubles[slot][row] = m.getDouble(parsed, slot);
+            } else if (strings[slot] != null) {
+                strings[slot][row] = m.getString(parsed, slot);
+            } else if (objects[slot] != null) {
+                objects[slot][row] = m.getValue(parsed, slot);
+            }
+        }
+        if (!parsed.isValid()) {
+            invalidRows.set(row);
+        }
+        errorCodes[row] = parsed.errorCode();
+        rows = Math.max(rows, row + 1);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= errorCodes.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, errorCodes.length * 2);
+        resize(newCapacity);
+    }
+
+    private void resize(int capacity) {
+        errorCodes = Arrays.copyOf(errorCodes, capacity);
+        for (int slot = 0; slot < ints.length; slot++) {
+            if (ints[slot] != null) {
+                ints[slot] = Arrays.copyOf(ints[slot], capacity);
+            } else if (longs[slot] != null) {
+                longs[slot] = Arrays.copyOf(longs[slot], capacity);
+            } else if (doubles[slot] != null) {
+                doubles[slot] = Arrays.copyOf(doubles[slot], capacity);
+            } else if (strings[slot] != null) {
+                strings[slot] = Arrays.copyOf(strings[slot], capacity);
+            } else if (objects[slot] != null) {
+                objects[slot] = Arrays.copyOf(objects[slot], capacity);
+            }
+        }
+    }
+
+    ArgsColumns trim() {
+        if (rows != errorCodes.length) {
+            resize(rows);
+        }
+        return this;
+    }
+
+    public ArgsSchema schema() {
+        return schema;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public boolean isValid(int row) {
+        return !invalidRows.get(row);
+    }
+
+    public BitSet invalidRows() {
+        return (BitSet) invalidRows.clone();
+    }
+
+    public ErrorCode errorCode(int row) {
+        return errorCodes[row];
+    }
+
+    // The rows on which arg was given. For a boolean option this is its value column.
+    public BitSet presentColumn(char arg) {
+        return present[slotOf(arg)];
+    }
+
+    public BitSet booleanColumn(char arg) {
+        int slot = slotOf(arg);
+        if (schema.marshalerAt(slot).valueType() != ValueType.BOOLEAN) {
+            throw new IllegalArgumentException("Not a boolean argument: " + arg);
+        }
+        return present[slot];
+    }
+
+    public int[] intColumn(char arg) {
+        int[] column = ints[slotOf(arg)];
+        if (column == null) {
+            throw new IllegalArgumentException("Not an integer argument: " + arg);
+        }
+        return column;
+    }
+
+    public long[] longColumn(char arg) {
+        long[] column = longs[slotOf(arg)];
+        if (column == null) {
+            throw new IllegalArgumentException("Not a long argument: " + arg);
+        }
+        return column;
+    }
+
+    public double[] doubleColumn(char arg) {
+        double[] column = doubles[slotOf(arg)];
+        if (column == null) {
+            throw new IllegalArgumentException("Not a double argument: " + arg);
+        }
+        return column;
+    }
+
+    public String[] stringColumn(char arg) {
+        String[] column = strings[slotOf(arg)];
+        if (column == null) {
+            throw new IllegalArgumentException("Not a string argument: " + arg);
+        }
+        return column;
+    }
+
+    // getValue() of every row, for arguments of a type other than the primitives and strings.
+    public Object[] objectColumn(char arg) {
+        Object[] column = objects[slotOf(arg)];
+        if (column == null) {
+            throw new IllegalArgumentException("Not an object argument: " + arg);
+        }
+        return column;
+    }
+
+    private int slotOf(char arg) {
+        int slot = schema.slotOf(arg);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Unknown argument: " + arg);
+        }
+        return slot;
+    }
+}
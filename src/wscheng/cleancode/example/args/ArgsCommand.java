@@ -0,0 +1,146 @@
+package wscheng.cleancode.example.args;
+
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+// A command and its subcommands, each with its own schema, as in
+//     tool -v remote add -f origin
+// where tool takes -v, its subcommand remote nothing, and remote's subcommand add takes -f.
+// Build the tree once,
+//     ArgsCommand.of("v").withSubcommand("remote", ArgsCommand.of("").withSubcommand("add", ArgsCommand.of("f")))
+// and parse() walks it: each command parses the arguments up to the first one that names one
+// of its subcommands where an option could start, and hands the rest to that subcommand. An
+// argument that names no subcommand is left alone, as Args always did.
+//
+// A schema string is only compiled the first time a parse reaches its command, and then kept,
+// so a tool with hundreds of subcommands compiles just the ones it runs. Every command parses
+// its part of the argument array in place; error positions count from the start of the whole
+// array. Commands are immutable and withSubcommand() returns a new one; the copies share the
+// compiled schema.
+public final class ArgsCommand {
+    private static final String[] NO_NAMES = new String[0];
+    private static final ArgsCommand[] NO_COMMANDS = new ArgsCommand[0];
+
+    private final LazySchema schema;
+    // Sorted, for a binary search of every argument.
+    private final String[] names;
+    private final ArgsCommand[] subcommands;
+
+    private ArgsCommand(LazySchema schema, String[] names, ArgsCommand[] subcommands) {
+        this.schema = schema;
+        this.names = names;
+        this.subcommands = subcommands;
+    }
+
+    public static ArgsCommand of(String schema) {
+        return of(schema, MarshalerRegistry.builtIn());
+    }
+
+    public static ArgsCommand of(String schema, MarshalerRegistry registry) {
+        return new ArgsCommand(new LazySchema(schema, registry), NO_NAMES, NO_COMMANDS);
+    }
+
+    // A name that is already taken gets the new subcommand.
+    public ArgsCommand withSubcommand(String name, ArgsCommand subcommand) {
+        if (name.isEmpty() || name.startsWith("-") || name.startsWith("@")) {
+            throw new IllegalArgumentException("Bad subcommand name: '" + name + "'");
+        }
+        int index = Arrays.binarySearch(names, name);
+        if (index >= 0) {
+            ArgsCommand[] replaced = subcommands.clone();
+            replaced[index] = subcommand;
+            return new ArgsCommand(schema, names, replaced);
+        }
+        int insertion = -index - 1;
+        String[] moreNames = new String[names.length + 1];
+        ArgsCommand[] moreCommands = new ArgsCommand[subcommands.length + 1];
+        System.arraycopy(names, 0, moreNames, 0, insertion);
+        System.arraycopy(subcommands, 0, moreCommands, 0, insertion);
+        moreNames[insertion] = name;
+        moreCommands[insertion] = subcommand;
+        System.arraycopy(names, insertion, moreNames, insertion + 1, names.length - insertion);
+        System.arraycopy(subcommands, insertion, moreCommands, insertion + 1, subcommands.length - insertion);
+        return new ArgsCommand(schema, moreNames, moreCommands);
+    }
+
+    // Compiles the schema on the first call.
+    public ArgsSchema schema() throws ParseException {
+        return schema.get();
+    }
+
+    public boolean isCompiled() {
+        return schema.isCompiled();
+    }
+
+    public List<String> subcommandNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    // null when there is no subcommand of that name.
+    public ArgsCommand subcommand(String name) {
+        int index = Arrays.binarySearch(names, name);
+        return index < 0 ? null : subcommands[index];
+    }
+
+    private boolean hasSubcommand(String name) {
+        return names.length > 0 && Arrays.binarySearch(names, name) >= 0;
+    }
+
+    // Throws ParseException when the schema of a command the arguments reach does not compile.
+    public ParsedCommand parse(String[] args) throws ParseException {
+        return parse(args, 0, args.length);
+    }
+
+    public ParsedCommand parse(String[] args, int offset, int length) throws ParseException {
+        Objects.checkFromIndexSize(offset, length, args.length);
+        ParsedCommand parsed = new ParsedCommand();
+        ArgsCommand command = this;
+        int from = offset;
+        int to = offset + length;
+        while (true) {
+            ArgsSchema compiled = command.schema();
+            ParsedArgs result = new ParsedArgs(compiled);
+            ArgumentParser parser = new ArgumentParser(compiled, result);
+            int end = parser.parse(args, from, to, command.names.length == 0 ? null : command::hasSubcommand);
+            parsed.add(command, result);
+            if (end == to) {
+                return parsed;
+            }
+            command = command.subcommand(args[end]);
+            parsed.addName(args[end]);
+            from = end + 1;
+        }
+    }
+
+    private static final class LazySchema {
+        private final String schema;
+        private final MarshalerRegistry registry;
+        private volatile ArgsSchema compiled;
+
+        LazySchema(String schema, MarshalerRegistry registry) {
+            this.schema = schema;
+            this.registry = registry;
+        }
+
+        ArgsSchema get() throws ParseException {
+            ArgsSchema result = compiled;
+            if (result == null) {
+                synchronized (this) {
+                    result = compiled;
+                    if (result == null) {
+                        result = ArgsSchema.compile(schema, registry);
+                        compiled = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        boolean isCompiled() {
+            return compiled != null;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.text.ParseException;
+import java.util.Arrays;
+
+public class ArgsCommandTest extends TestCase {
+    private static ArgsCommand git() {
+        ArgsCommand remote = ArgsCommand.of("v")
+                .withSubcommand("add", ArgsCommand.of("f,t*"))
+                .withSubcommand("remove", ArgsCommand.of(""));
+        return ArgsCommand.of("v,C*").withSubcommand("remote", remote).withSubcommand("status", ArgsCommand.of("s"));
+    }
+
+    public void testDispatchesToTheSubcommandNamed() throws Exception {
+        ArgsCommand git = git();
+        ParsedCommand parsed = git.parse(new String[] {"-v", "-C", "dir", "remote", "add", "-f", "-t", "main"});
+        assertEquals(true, parsed.isValid());
+        assertEquals(2, parsed.depth());
+        assertEquals(Arrays.asList("remote", "add"), parsed.commandPath());
+        assertEquals(true, parsed.argsAt(0).getBoolean('v'));
+        assertEquals("dir", parsed.argsAt(0).getString('C'));
+        assertEquals(false, parsed.argsAt(1).getBoolean('v'));
+        assertEquals(true, parsed.args().getBoolean('f'));
+        assertEquals("main", parsed.args().getString('t'));
+        assertSame(git.subcommand("remote").subcommand("add"), parsed.command());
+    }
+
+    public void testNamesInParameterPlacesAreValues() throws Exception {
+        ParsedCommand parsed = git().parse(new String[] {"-C", "status", "status", "-s"});
+        assertEquals(Arrays.asList("status"), parsed.commandPath());
+        assertEquals("status", parsed.argsAt(0).getString('C'));
+        assertEquals(true, parsed.args().getBoolean('s'));
+        ArgsCommand separated = ArgsCommand.of("v|verbose").withSubcommand("run", ArgsCommand.of("x"));
+        assertEquals(0, separated.parse(new String[] {"--", "run", "-x"}).depth());
+    }
+
+    public void testErrorPositionsCountOverTheWholeLine() throws Exception {
+        ArgsCommand command = ArgsCommand.of("v").withSubcommand("set", ArgsCommand.of("n#"));
+        ParsedCommand parsed = command.parse(new String[] {"-v", "set", "-n", "x"});
+        assertEquals(false, parsed.isValid());
+        assertEquals(true, parsed.argsAt(0).isValid());
+        assertEquals(ErrorCode.INVALID_INTEGER, parsed.args().errorCode());
+        assertEquals(3, parsed.args().errorPosition());
+        ParsedArgs view = ArgsSchema.compile("n#").parse(new String[] {"set", "-n", "x", "ignored"}, 1, 2);
+        assertEquals(2, view.errorPosition());
+    }
+
+    public void testOnlyTheSchemasReachedAreCompiled() throws Exception {
+        ArgsCommand root = ArgsCommand.of("v");
+        for (int i = 0; i < 300; i++) {
+            root = root.withSubcommand("command" + i, ArgsCommand.of("a,b*,c#"));
+        }
+        ParsedCommand parsed = root.parse(new String[] {"-v", "command42", "-c", "7"});
+        assertEquals(7, parsed.args().getInt('c'));
+        assertEquals(true, root.isCompiled());
+        assertEquals(true, root.subcommand("command42").isCompiled());
+        int compiled = 0;
+        for (String name : root.subcommandNames()) {
+            compiled += root.subcommand(name).isCompiled() ? 1 : 0;
+        }
+        assertEquals(1, compiled);
+        assertSame(parsed.args().schema(), root.subcommand("command42").schema());
+        assertSame(root.schema(), root.withSubcommand("extra", ArgsCommand.of("")).schema());
+    }
+
+    public void testBadSchemaFailsWhenReached() throws Exception {
+        ArgsCommand command = ArgsCommand.of("v").withSubcommand("bad", ArgsCommand.of("1"));
+        assertEquals(true, command.parse(new String[] {"-v"}).isValid());
+        try {
+            command.parse(new String[] {"bad"});
+            fail();
+        } catch (ParseException expected) {
+        }
+        try {
+            command.withSubcommand("-x", ArgsCommand.of(""));
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package wscheng.cleancode.example.args;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Tab completion for a schema. complete() is given a command line, without the command name,
+// and the cursor position in it, and tells what the word under the cursor can become: one of
+// the options its prefix matches, or a value of the option the words before it leave waiting,
+// such as the parameter of -o in "-o rep". The words before the cursor are read the way the
+// parser reads them, clusters and --name=value included.
+//
+// Every -x and --name is put in one sorted array when the completer is built, so the options a
+// prefix matches are a range of it, found with two binary searches. complete() reads the line
+// in place and fills a Completion that the caller may reuse, so a completion on every keystroke
+// allocates nothing. Build a completer once per schema; it is immutable and can be shared.
+//
+// bashScript() and zshScript() write completion functions for a command, for shells that
+// cannot call back into the program.
+public final class ArgsCompleter {
+    private final ArgsSchema schema;
+    private final String[] candidates;
+    private final int[] candidateSlots;
+    // Indexed by slot, null for an option that takes no parameter.
+    private final String[] valueHints;
+
+    public ArgsCompleter(ArgsSchema schema) {
+        this.schema = schema;
+        List<String> names = new ArrayList<String>();
+        for (int slot = 0; slot < schema.size(); slot++) {
+            names.add("-" + schema.idOf(slot));
+            if (schema.longNameAt(slot) != null) {
+                names.add("--" + schema.longNameAt(slot));
+            }
+        }
+        candidates = names.toArray(new String[names.size()]);
+        Arrays.sort(candidates);
+        candidateSlots = new int[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            candidateSlots[i] = slotOfCandidate(candidates[i]);
+        }
+        valueHints = new String[schema.size()];
+        for (int slot = 0; slot < schema.size(); slot++) {
+            String typeName = schema.helpText().typeNameOf(slot);
+            valueHints[slot] = takesParameter(slot) ? "<" + typeName + ">" : null;
+        }
+    }
+
+    private int slotOfCandidate(String candidate) {
+        return candidate.startsWith("--")
+                ? schema.slotOfLongOption(candidate, 2, candidate.length()) : schema.slotOf(candidate.charAt(1));
+    }
+
+    private boolean takesParameter(int slot) {
+        return schema.marshalerAt(slot).hasParameter();
+    }
+
+    public Completion complete(CharSequence line, int cursor) {
+        return complete(line, cursor, newCompletion());
+    }
+
+    // For complete(line, cursor, completion).
+    public Completion newCompletion() {
+        return new Completion();
+    }
+
+    // Fills completion, which has to come from newCompletion() of this completer, and returns it.
+    public Completion complete(CharSequence line, int cursor, Completion completion) {
+        if (completion.completer() != this) {
+            throw new IllegalArgumentException("Completion of another completer");
+        }
+        if (cursor < 0 || cursor > line.length()) {
+            throw new IndexOutOfBoundsException("Cursor " + cursor + " outside a line of " + line.length());
+        }
+        int awaitedSlot = -1;
+        // Where the cluster that left awaitedSlot waiting goes on, for its next option with a parameter.
+        int clusterNext = -1;
+        int clusterEnd = -1;
+        boolean optionsEnded = false;
+        int start = skipWhitespace(line, 0, cursor);
+        int end = wordEnd(line, start, cursor);
+        while (end < cursor) {
+            if (awaitedSlot >= 0) {
+                awaitedSlot = -1;
+                int next = clusterNext < 0 ? -1 : nextAwaitingElement(line, clusterNext, clusterEnd);
+                if (next >= 0) {
+                    awaitedSlot = schema.slotOf(line.charAt(next));
+                    clusterNext = next + 1;
+                }
+            } else if (optionsEnded) {
+                // Only values from here on.
+            } else if (isLongOption(line, start, end)) {
+                if (end - start == 2) {
+                    optionsEnded = true;
+                } else {
+                    awaitedSlot = awaitedLongOption(line, start, end);
+                }
+            } else if (end - start > 1 && line.charAt(start) == '-') {
+                int next = nextAwaitingElement(line, start + 1, end);
+                if (next >= 0) {
+                    awaitedSlot = schema.slotOf(line.charAt(next));
+                    clusterNext = next + 1;
+                    clusterEnd = end;
+                }
+            }
+            start = skipWhitespace(line, end, cursor);
+            end = wordEnd(line, start, cursor);
+        }
+        completion.reset(start);
+        if (awaitedSlot >= 0) {
+            completion.setValue(awaitedSlot, start);
+        } else if (!optionsEnded) {
+            completeWord(line, start, cursor, completion);
+        }
+        return completion;
+    }
+
+    private void completeWord(CharSequence line, int start, int cursor, Completion completion) {
+        if (isLongOption(line, start, cursor)) {
+            int equals = indexOf(line, '=', start + 2, cursor);
+            if (equals < cursor) {
+                int slot = schema.slotOfLongOption(line, start + 2, equals);
+                if (slot >= 0 && takesParameter(slot)) {
+                    completion.setValue(slot, equals + 1);
+                }
+                return;
+            }
+        }
+        if (start == cursor || line.charAt(start) == '-') {
+            completion.setOptions(lowerBound(line, start, cursor, 0), lowerBound(line, start, cursor, 1));
+        }
+    }
+
+    private boolean isLongOption(CharSequence line, int start, int end) {
+        return schema.hasLongOptions() && end - start >= 2 && line.charAt(start) == '-'
+                && line.charAt(start + 1) == '-';
+    }
+
+    // The slot of --name when it waits for its parameter, otherwise -1.
+    private int awaitedLongOption(CharSequence line, int start, int end) {
+        int equals = indexOf(line, '=', start + 2, end);
+        if (equals < end) {
+            return -1;
+        }
+        int slot = schema.slotOfLongOption(line, start + 2, end);
+        return slot >= 0 && takesParameter(slot) ? slot : -1;
+    }
+
+    // The index of the next element of a cluster that takes a parameter, or -1.
+    private int nextAwaitingElement(CharSequence line, int from, int end) {
+        for (int i = from; i < end; i++) {
+            int slot = schema.slotOf(line.charAt(i));
+            if (slot >= 0 && takesParameter(slot)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // The first candidate that compares above the prefix line[start, end) by more than bias:
+    // with bias 0 the first one it matches, with bias 1 the first one past them.
+    private int lowerBound(CharSequence line, int start, int end, int bias) {
+        int low = 0;
+        int high = candidates.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comparePrefix(candidates[middle], line, start, end) < bias) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // 0 when candidate starts with line[start, end).
+    private static int comparePrefix(String candidate, CharSequence line, int start, int end) {
+        int length = Math.min(candidate.length(), end - start);
+        for (int i = 0; i < length; i++) {
+            int difference = candidate.charAt(i) - line.charAt(start + i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return candidate.length() < end - start ? -1 : 0;
+    }
+
+    private static int skipWhitespace(CharSequence line, int i, int end) {
+        while (i < end && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    // Quotes and backslashes are skipped as CommandLineTokenizer reads them; an open quote runs
+    // to the cursor.
+    private static int wordEnd(CharSequence line, int i, int end) {
+        char quote = 0;
+        while (i < end) {
+            char c = line.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else if (c == '\\' && quote == '"') {
+                    i++;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '\\') {
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                return i;
+            }
+            i++;
+        }
+        return end;
+    }
+
+    private static int indexOf(CharSequence line, char c, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (line.charAt(i) == c) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    // A bash function that completes the options of command and leaves the value of an option
+    // that takes one to the default completion, which completes file names.
+    public String bashScript(String command) {
+        String function = "_" + functionName(command) + "_args";
+        StringBuilder valued = new StringBuilder();
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < candidates.length; i++) {
+            StringBuilder names = takesParameter(candidateSlots[i]) ? valued : words;
+            names.append(names.length() == 0 ? "" : "|").append(candidates[i]);
+        }
+        StringBuilder script = new StringBuilder();
+        script.append(function).append("() {\n")
+                .append("    local cur=\"${COMP_WORDS[COMP_CWORD]}\" prev=\"${COMP_WORDS[COMP_CWORD-1]}\"\n");
+        if (valued.length() > 0) {
+            script.append("    case \"$prev\" in\n")
+                    .append("        ").append(valued).append(") return 0 ;;\n")
+                    .append("    esac\n");
+        }
+        script.append("    COMPREPLY=($(compgen -W \"").append(String.join(" ", candidates))
+                .append("\" -- \"$cur\"))\n")
+                .append("}\n")
+                .append("complete -o default -F ").append(function).append(' ').append(command).append('\n');
+        return script.toString();
+    }
+
+    // A zsh completion function for command, with the descriptions of the schema's help.
+    public String zshScript(String command) {
+        StringBuilder script = new StringBuilder();
+        script.append("#compdef ").append(command).append('\n')
+                .append("_arguments");
+        for (int i = 0; i < candidates.length; i++) {
+            int slot = candidateSlots[i];
+            String description = schema.helpText().descriptionOf(slot);
+            script.append(" \\\n    '").append(candidates[i]);
+            if (description != null) {
+                script.append('[').append(zshEscape(description)).append(']');
+            }
+            if (takesParameter(slot)) {
+                script.append(':').append(zshEscape(schema.helpText().typeNameOf(slot))).append(":_files");
+            }
+            script.append('\'');
+        }
+        return script.append('\n').toString();
+    }
+
+    private static String zshEscape(String text) {
+        StringBuilder escaped = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\'') {
+                escaped.append("'\\''");
+            } else {
+                if (c == '[' || c == ']' || c == ':' || c == '\\') {
+                    escaped.append('\\');
+                }
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String functionName(String command) {
+        if (command.isEmpty() || !command.matches("[A-Za-z0-9._+-]+")) {
+            throw new IllegalArgumentException("Not a command name: '" + command + "'");
+        }
+        return command.replaceAll("[^A-Za-z0-9_]", "_");
+    }
+
+    // What the word under the cursor can become. Filled by complete(); reuse one from
+    // newCompletion() for every keystroke to complete without allocating.
+    public final class Completion {
+        private int wordStart;
+        private int from;
+        private int to;
+        private int valueSlot;
+
+        private Completion() {
+            reset(0);
+        }
+
+        // Where the text that a candidate or value replaces starts in the line; after the = of
+        // --name=value.
+        public int wordStart() {
+            return wordStart;
+        }
+
+        public int count() {
+            return to - from;
+        }
+
+        public String candidate(int index) {
+            if (index < 0 || index >= count()) {
+                throw new IndexOutOfBoundsException("Candidate " + index + " of " + count());
+            }
+            return candidates[from + index];
+        }
+
+        public List<String> candidates() {
+            return Arrays.asList(candidates).subList(from, to);
+        }
+
+        // Whether the word is the value of an option, rather than an option.
+        public boolean isValue() {
+            return valueSlot >= 0;
+        }
+
+        // The option the value is for, or '\0'.
+        public char valueOption() {
+            return valueSlot < 0 ? '\0' : schema.idOf(valueSlot);
+        }
+
+        // Such as <int> or <string>, or null when the word is not a value.
+        public String valueHint() {
+            return valueSlot < 0 ? null : valueHints[valueSlot];
+        }
+
+        private ArgsCompleter completer() {
+            return ArgsCompleter.this;
+        }
+
+        void reset(int wordStart) {
+            this.wordStart = wordStart;
+            from = 0;
+            to = 0;
+            valueSlot = -1;
+        }
+
+        void setOptions(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        void setValue(int slot, int wordStart) {
+            this.wordStart = wordStart;
+            valueSlot = slot;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+
+public class ArgsCompleterTest extends TestCase {
+    private static final int CALLS = 100000;
+
+    private static ArgsCompleter completer() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("v|verbose,o|output*,n|number#,q,f[*]")
+                .withHelp(ArgsHelp.none().with('o', "Where to write: a file.").withTypeName('n', "count"));
+        return new ArgsCompleter(schema);
+    }
+
+    private static List<String> candidates(ArgsCompleter completer, String line) {
+        return completer.complete(line, line.length()).candidates();
+    }
+
+    public void testOptionsMatchingThePrefix() throws Exception {
+        ArgsCompleter completer = completer();
+        assertEquals(Arrays.asList("--number", "--output", "--verbose", "-f", "-n", "-o", "-q", "-v"),
+                candidates(completer, ""));
+        assertEquals(Arrays.asList("--number", "--output", "--verbose"), candidates(completer, "-v --"));
+        assertEquals(Arrays.asList("--output"), candidates(completer, "--o"));
+        assertEquals(Arrays.asList("-q"), candidates(completer, "-q"));
+        assertEquals(Arrays.asList(), candidates(completer, "--x"));
+        assertEquals(Arrays.asList(), candidates(completer, "-v word"));
+        ArgsCompleter.Completion completion = completer.complete("-q --ver", 8);
+        assertEquals(3, completion.wordStart());
+        assertEquals(false, completion.isValue());
+    }
+
+    public void testValueOfTheOptionWaitingForOne() throws Exception {
+        ArgsCompleter completer = completer();
+        assertValue(completer.complete("-o ", 3), 'o', "<string>", 3);
+        assertValue(completer.complete("-v -o rep", 9), 'o', "<string>", 6);
+        assertValue(completer.complete("--number ", 9), 'n', "<count>", 9);
+        assertValue(completer.complete("--output=re", 11), 'o', "<string>", 9);
+        assertValue(completer.complete("-qon out ", 9), 'n', "<count>", 9);
+        assertValue(completer.complete("-f 'a b' -o \"x y\" -n", 20), '\0', null, 18);
+        assertEquals(Arrays.asList("-n"), candidates(completer, "-f 'a b' -o \"x y\" -n"));
+        assertEquals(Arrays.asList(), candidates(completer, "-qon out 5 -- -"));
+        assertValue(completer.complete("-o -v -n ", 9), 'n', "<count>", 9);
+    }
+
+    public void testCompletesInTheMiddleOfTheLine() throws Exception {
+        ArgsCompleter completer = completer();
+        ArgsCompleter.Completion completion = completer.complete("--ou -v", 4);
+        assertEquals(Arrays.asList("--output"), completion.candidates());
+        assertEquals(0, completion.wordStart());
+    }
+
+    public void testBashAndZshScripts() throws Exception {
+        ArgsCompleter completer = completer();
+        assertEquals("_my_tool_args() {\n"
+                + "    local cur=\"${COMP_WORDS[COMP_CWORD]}\" prev=\"${COMP_WORDS[COMP_CWORD-1]}\"\n"
+                + "    case \"$prev\" in\n"
+                + "        --number|--output|-f|-n|-o) return 0 ;;\n"
+                + "    esac\n"
+                + "    COMPREPLY=($(compgen -W \"--number --output --verbose -f -n -o -q -v\" -- \"$cur\"))\n"
+                + "}\n"
+                + "complete -o default -F _my_tool_args my-tool\n", completer.bashScript("my-tool"));
+        String zsh = completer.zshScript("my-tool");
+        assertTrue(zsh, zsh.startsWith("#compdef my-tool\n_arguments \\\n    '--number:count:_files' \\\n"));
+        assertTrue(zsh, zsh.contains("    '-o[Where to write\\: a file.]:string:_files' \\\n"));
+        assertTrue(zsh, zsh.endsWith("    '-v'\n"));
+        try {
+            completer.bashScript("rm -rf");
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testLatencyAndAllocationPerKeystroke() throws Exception {
+        ArgsCompleter completer = completer();
+        ArgsCompleter.Completion completion = completer.newCompletion();
+        String line = "-v --output report.txt -qn 5 -f a -f b --ver";
+        int found = 0;
+        for (int i = 0; i < CALLS; i++) {
+            found += completer.complete(line, line.length() - i % 5, completion).count();
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long allocatedBefore = allocatedBytes(threads);
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            found += completer.complete(line, line.length() - i % 5, completion).count();
+        }
+        long nanosPerCall = (System.nanoTime() - start) / CALLS;
+        long allocated = allocatedBytes(threads) - allocatedBefore;
+        assertTrue(found > 0);
+        assertTrue(nanosPerCall + "ns", nanosPerCall < 100000);
+        if (allocatedBefore >= 0) {
+            assertTrue(allocated + " bytes", allocated < CALLS);
+        }
+    }
+
+    // -1 when the runtime cannot tell.
+    private static long allocatedBytes(ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static void assertValue(ArgsCompleter.Completion completion, char option, String hint, int wordStart) {
+        assertEquals(option != '\0', completion.isValue());
+        assertEquals(option, completion.valueOption());
+        assertEquals(hint, completion.valueHint());
+        assertEquals(wordStart, completion.wordStart());
+    }
+}
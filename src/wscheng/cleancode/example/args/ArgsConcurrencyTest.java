@@ -0,0 +1,88 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ArgsConcurrencyTest extends TestCase {
+    private static final int THREADS = 64;
+    private static final int PARSES_PER_THREAD = 20000;
+
+    private ArgsSchema schema;
+
+    @Override
+    protected void setUp() throws Exception {
+        schema = ArgsSchema.compile("b,c,s*,n#");
+    }
+
+    public void testSharedSchemaHasNoCrossTalk() throws Exception {
+        final AtomicLong mismatches = new AtomicLong();
+        runConcurrently(THREADS, new ParseTask() {
+            public void parse(int thread, int iteration) {
+                ParsedArgs parsed = schema.parse(argumentsFor(thread, iteration));
+                if (!matches(parsed, thread, iteration)) {
+                    mismatches.incrementAndGet();
+                }
+            }
+        });
+        assertEquals(0, mismatches.get());
+    }
+
+    private static String[] argumentsFor(int thread, int iteration) {
+        String string = "t" + thread;
+        if (iteration % 3 == 0) {
+            return new String[] {"-b", "-s", string, "-n", Integer.toString(thread)};
+        } else if (iteration % 3 == 1) {
+            return new String[] {"-cs", string, "-n", "x" + thread};
+        }
+        return new String[] {"-n", Integer.toString(-thread), "-z"};
+    }
+
+    private static boolean matches(ParsedArgs parsed, int thread, int iteration) {
+        String string = "t" + thread;
+        if (iteration % 3 == 0) {
+            return parsed.isValid() && parsed.getBoolean('b') && !parsed.getBoolean('c')
+                    && string.equals(parsed.getString('s')) && parsed.getInt('n') == thread
+                    && parsed.cardinality() == 3;
+        } else if (iteration % 3 == 1) {
+            return !parsed.isValid() && parsed.getBoolean('c') && string.equals(parsed.getString('s'))
+                    && parsed.errorCode() == ErrorCode.INVALID_INTEGER
+                    && ("x" + thread).equals(parsed.errorParameter()) && parsed.cardinality() == 2;
+        }
+        return !parsed.isValid() && parsed.getInt('n') == -thread && parsed.getString('s') == null
+                && "z".equals(parsed.unexpectedArguments()) && parsed.errorCode() == ErrorCode.OK;
+    }
+
+    private void runConcurrently(int threads, final ParseTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CyclicBarrier start = new CyclicBarrier(threads + 1);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        start.await();
+                        for (int i = 0; i < PARSES_PER_THREAD; i++) {
+                            task.parse(thread, i);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            start.await();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface ParseTask {
+        void parse(int thread, int iteration);
+    }
+}
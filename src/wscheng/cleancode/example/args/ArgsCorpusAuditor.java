@@ -0,0 +1,75 @@
+package wscheng.cleancode.example.args;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+// Parses a corpus of command lines, one per line, against one shared schema and counts
+// what it sees. The lines are split across a fork-join pool; every task keeps its own
+// parser and ArgsStatistics, which are merged at the end, so the tasks never contend.
+public final class ArgsCorpusAuditor {
+    private final ArgsSchema schema;
+
+    public ArgsCorpusAuditor(ArgsSchema schema) {
+        this.schema = schema;
+    }
+
+    public ArgsStatistics audit(Path corpus) throws IOException {
+        return audit(corpus, ForkJoinPool.commonPool());
+    }
+
+    public ArgsStatistics audit(Path corpus, ForkJoinPool pool) throws IOException {
+        final Stream<String> lines = Files.lines(corpus, StandardCharsets.UTF_8);
+        try {
+            return pool.submit(() -> audit(lines.parallel())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while auditing " + corpus, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException("Could not audit " + corpus, e.getCause());
+        } finally {
+            lines.close();
+        }
+    }
+
+    // Runs in parallel if lines is a parallel stream.
+    public ArgsStatistics audit(Stream<String> lines) {
+        return lines.collect(
+                () -> new Auditor(schema),
+                Auditor::add,
+                Auditor::merge).statistics;
+    }
+
+    private static class Auditor {
+        private final ArgumentParser parser;
+        private final ArgsStatistics statistics;
+
+        Auditor(ArgsSchema schema) {
+            parser = new ArgumentParser(schema, new ParsedArgs(schema));
+            statistics = new ArgsStatistics(schema);
+        }
+
+        void add(String line) {
+            String[] args;
+            try {
+                args = CommandLineTokenizer.tokenize(line);
+            } catch (IllegalArgumentException e) {
+                statistics.addMalformed();
+                return;
+            }
+            statistics.add(parser.parse(args));
+        }
+
+        void merge(Auditor other) {
+            statistics.merge(other.statistics);
+        }
+    }
+}
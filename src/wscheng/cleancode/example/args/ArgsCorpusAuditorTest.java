@@ -0,0 +1,93 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class ArgsCorpusAuditorTest extends TestCase {
+    private ArgsSchema schema;
+    private Path corpus;
+
+    @Override
+    protected void setUp() throws Exception {
+        schema = ArgsSchema.compile("b,s*,n#");
+        corpus = File.createTempFile("corpus", ".txt").toPath();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Files.deleteIfExists(corpus);
+    }
+
+    public void testTokenizerFollowsShellQuoting() throws Exception {
+        assertEquals(Arrays.asList("-s", "two words", "-n", "5"),
+                Arrays.asList(CommandLineTokenizer.tokenize("  -s 'two words'\t-n 5 ")));
+        assertEquals(Arrays.asList("a\"b", "c d", "e\\f", "it's", ""),
+                Arrays.asList(CommandLineTokenizer.tokenize("\"a\\\"b\" c\\ d 'e\\f' it\\'s ''")));
+        assertEquals(0, CommandLineTokenizer.tokenize("").length);
+    }
+
+    public void testTokenizerRejectsUnterminatedQuote() throws Exception {
+        try {
+            CommandLineTokenizer.tokenize("-s 'open");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unterminated ' in command line: -s 'open", e.getMessage());
+        }
+    }
+
+    public void testCountsOptionsErrorsAndUnexpectedArguments() throws Exception {
+        write("-b -s 'a b' -n 1",
+                "-b -n x",
+                "-n",
+                "-bq -z",
+                "-s \"unterminated",
+                "");
+        ArgsStatistics statistics = new ArgsCorpusAuditor(schema).audit(corpus);
+        assertEquals(6, statistics.lines());
+        assertEquals(2, statistics.validLines());
+        assertEquals(1, statistics.malformedLines());
+        assertEquals(3, statistics.occurrences('b'));
+        assertEquals(1, statistics.occurrences('s'));
+        assertEquals(1, statistics.occurrences('n'));
+        assertEquals(1, statistics.errors('n', ErrorCode.INVALID_INTEGER));
+        assertEquals(1, statistics.errors('n', ErrorCode.MISSING_INTEGER));
+        assertEquals(1, statistics.unexpected('q'));
+        assertEquals(1, statistics.unexpected('z'));
+        assertEquals(0, statistics.unexpected('x'));
+    }
+
+    public void testParallelAuditMatchesSequentialCounts() throws Exception {
+        List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < 20000; i++) {
+            switch (i % 4) {
+                case 0: lines.add("-b -n " + i); break;
+                case 1: lines.add("-s 'value " + i + "' -x"); break;
+                case 2: lines.add("-n not" + i); break;
+                default: lines.add("-bn"); break;
+            }
+        }
+        write(lines.toArray(new String[lines.size()]));
+        ArgsCorpusAuditor auditor = new ArgsCorpusAuditor(schema);
+        ArgsStatistics parallel = auditor.audit(corpus, new ForkJoinPool(4));
+        ArgsStatistics sequential = auditor.audit(lines.stream());
+        assertEquals(sequential.toString(), parallel.toString());
+        assertEquals(20000, parallel.lines());
+        assertEquals(10000, parallel.occurrences('b'));
+        assertEquals(5000, parallel.errors('n', ErrorCode.INVALID_INTEGER));
+        assertEquals(5000, parallel.errors('n', ErrorCode.MISSING_INTEGER));
+        assertEquals(5000, parallel.unexpected('x'));
+    }
+
+    private void write(String... lines) throws IOException {
+        Files.write(corpus, Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+}
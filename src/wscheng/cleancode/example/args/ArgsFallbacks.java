@@ -0,0 +1,96 @@
+package wscheng.cleancode.example.args;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+// Where an option that is not on the command line gets its value from instead: an environment
+// variable, a key of a properties file, or both, the environment winning. Declare them once,
+//     ArgsFallbacks.none().withEnvironmentVariable('p', "APP_PORT").withProperty('p', "app.port")
+// take a snapshot, which reads the environment and the file that one time, and attach it with
+// ArgsSchema.withFallbacks(snapshot). Like MarshalerRegistry, fallbacks are immutable and
+// with*() returns a new instance.
+public final class ArgsFallbacks {
+    private static final ArgsFallbacks NONE = new ArgsFallbacks(
+            new HashMap<Character, String>(), new HashMap<Character, String>());
+
+    private final Map<Character, String> environmentVariables;
+    private final Map<Character, String> properties;
+
+    private ArgsFallbacks(Map<Character, String> environmentVariables, Map<Character, String> properties) {
+        this.environmentVariables = environmentVariables;
+        this.properties = properties;
+    }
+
+    public static ArgsFallbacks none() {
+        return NONE;
+    }
+
+    public ArgsFallbacks withEnvironmentVariable(char option, String name) {
+        Map<Character, String> variables = new HashMap<Character, String>(environmentVariables);
+        variables.put(option, name);
+        return new ArgsFallbacks(variables, properties);
+    }
+
+    public ArgsFallbacks withProperty(char option, String key) {
+        Map<Character, String> keys = new HashMap<Character, String>(properties);
+        keys.put(option, key);
+        return new ArgsFallbacks(environmentVariables, keys);
+    }
+
+    // Reads the environment of this process.
+    public Snapshot snapshot() {
+        return snapshot(System.getenv(), new Properties());
+    }
+
+    // Reads the environment of this process and propertiesFile, as UTF-8.
+    public Snapshot snapshot(Path propertiesFile) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(propertiesFile, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return snapshot(System.getenv(), properties);
+    }
+
+    public Snapshot snapshot(Map<String, String> environment, Properties properties) {
+        Map<Character, String> values = new HashMap<Character, String>();
+        for (Map.Entry<Character, String> entry : this.properties.entrySet()) {
+            String value = properties.getProperty(entry.getValue());
+            if (value != null) {
+                values.put(entry.getKey(), value);
+            }
+        }
+        for (Map.Entry<Character, String> entry : environmentVariables.entrySet()) {
+            String value = environment.get(entry.getValue());
+            if (value != null) {
+                values.put(entry.getKey(), value);
+            }
+        }
+        return new Snapshot(values);
+    }
+
+    // The text each option falls back to, as read when the snapshot was taken. A boolean
+    // option is set by true and left unset by false; any other text is INVALID_VALUE.
+    public static final class Snapshot {
+        private final Map<Character, String> values;
+
+        private Snapshot(Map<Character, String> values) {
+            this.values = Collections.unmodifiableMap(values);
+        }
+
+        // null when option has no fallback, or neither of its sources was set.
+        public String valueOf(char option) {
+            return values.get(option);
+        }
+
+        public Map<Character, String> values() {
+            return values;
+        }
+    }
+}
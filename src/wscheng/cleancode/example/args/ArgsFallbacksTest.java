@@ -0,0 +1,141 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+public class ArgsFallbacksTest extends TestCase {
+    private ArgsFallbacks fallbacks;
+    private Map<String, String> environment;
+    private Properties properties;
+    private ArgsSchema schema;
+
+    @Override
+    protected void setUp() throws Exception {
+        fallbacks = ArgsFallbacks.none()
+                .withEnvironmentVariable('p', "APP_PORT").withProperty('p', "app.port")
+                .withProperty('h', "app.host")
+                .withEnvironmentVariable('v', "APP_VERBOSE")
+                .withProperty('t', "app.timeout");
+        environment = new HashMap<String, String>();
+        properties = new Properties();
+        schema = ArgsSchema.compile("p#,h*,v,t~,x*");
+    }
+
+    private ArgsSchema withSnapshot() {
+        return schema.withFallbacks(fallbacks.snapshot(environment, properties));
+    }
+
+    public void testCommandLineWinsOverEnvironmentOverProperties() throws Exception {
+        properties.setProperty("app.port", "80");
+        properties.setProperty("app.host", "localhost");
+        assertEquals(80, withSnapshot().parse(new String[0]).getInt('p'));
+        environment.put("APP_PORT", "8080");
+        ArgsSchema fallingBack = withSnapshot();
+        ParsedArgs parsed = fallingBack.parse(new String[] {"-h", "example.com"});
+        assertEquals(8080, parsed.getInt('p'));
+        assertEquals("example.com", parsed.getString('h'));
+        assertEquals(true, parsed.has('p'));
+        assertEquals(2, parsed.cardinality());
+        assertEquals(true, parsed.isValid());
+        assertEquals(9, fallingBack.parse(new String[] {"-p", "9"}).getInt('p'));
+        assertEquals("localhost", fallingBack.parse(new String[0]).getString('h'));
+        assertEquals(null, fallingBack.parse(new String[0]).getString('x'));
+    }
+
+    public void testSnapshotIsNotAffectedByLaterChanges() throws Exception {
+        environment.put("APP_PORT", "1");
+        ArgsFallbacks.Snapshot snapshot = fallbacks.snapshot(environment, properties);
+        environment.put("APP_PORT", "2");
+        assertEquals("1", snapshot.valueOf('p'));
+        assertEquals(1, schema.withFallbacks(snapshot).parse(new String[0]).getInt('p'));
+    }
+
+    public void testBooleans() throws Exception {
+        environment.put("APP_VERBOSE", "TRUE");
+        assertEquals(true, withSnapshot().parse(new String[0]).getBoolean('v'));
+        environment.put("APP_VERBOSE", "false");
+        ParsedArgs parsed = withSnapshot().parse(new String[0]);
+        assertEquals(false, parsed.getBoolean('v'));
+        assertEquals(true, parsed.isValid());
+        environment.put("APP_VERBOSE", "yes");
+        assertEquals(ErrorCode.INVALID_VALUE, withSnapshot().parse(new String[0]).errorCode());
+    }
+
+    public void testInvalidFallbackIsReportedWithoutPosition() throws Exception {
+        environment.put("APP_PORT", "eighty");
+        ArgsSchema fallingBack = withSnapshot();
+        ParsedArgs parsed = fallingBack.parse(new String[0]);
+        assertEquals(false, parsed.isValid());
+        assertEquals(ErrorCode.INVALID_INTEGER, parsed.errorCode());
+        assertEquals('p', parsed.errorArgument());
+        assertEquals("eighty", parsed.errorParameter());
+        assertEquals(-1, parsed.errorPosition());
+        assertEquals(true, fallingBack.parse(new String[] {"-p", "1"}).isValid());
+        // A command line value wins even when it does not convert.
+        parsed = fallingBack.parse(new String[] {"-p", "x"});
+        assertEquals("x", parsed.errorParameter());
+        assertEquals(1, parsed.errorPosition());
+        parsed = fallingBack.parse(new String[] {"-p"});
+        assertEquals(ErrorCode.MISSING_INTEGER, parsed.errorCode());
+    }
+
+    public void testCollectAllKeepsFallbackErrorNextToCommandLineError() throws Exception {
+        environment.put("APP_PORT", "eighty");
+        ArgsSchema collecting = schema.withErrorPolicy(ErrorPolicy.COLLECT_ALL)
+                .withFallbacks(fallbacks.snapshot(environment, properties));
+        ParsedArgs parsed = collecting.parse(new String[] {"-t", "soon"});
+        assertEquals(2, parsed.errorCount());
+        assertEquals(ErrorCode.INVALID_DURATION, parsed.errorCode(0));
+        assertEquals(1, parsed.errorPosition(0));
+        assertEquals(ErrorCode.INVALID_INTEGER, parsed.errorCode(1));
+        assertEquals('p', parsed.errorArgument(1));
+        assertEquals("eighty", parsed.errorParameter(1));
+        assertEquals(-1, parsed.errorPosition(1));
+        // The command line error still wins as the last error.
+        assertEquals(ErrorCode.INVALID_DURATION, parsed.errorCode());
+        assertEquals("Argument -t expects a duration but was 'soon'.\n"
+                + "Argument -p expects an integer but was 'eighty'.", parsed.errorMessage());
+    }
+
+    public void testFallbackListIsNotSharedWithParses() throws Exception {
+        fallbacks = fallbacks.withProperty('f', "app.files");
+        properties.setProperty("app.files", "a");
+        ArgsSchema fallingBack = ArgsSchema.compile("f[*]").withFallbacks(fallbacks.snapshot(environment, properties));
+        ParsedArgs first = fallingBack.parse(new String[0]);
+        assertEquals(ErrorCode.OK, StringArrayArgumentMarshaler.INSTANCE.set(first, 0, "b"));
+        assertEquals(Arrays.asList("a", "b"), Arrays.asList(first.getStringArray('f')));
+        assertEquals(Arrays.asList("a"), Arrays.asList(fallingBack.parse(new String[0]).getStringArray('f')));
+    }
+
+    public void testLazyAndBatchParses() throws Exception {
+        properties.setProperty("app.timeout", "5s");
+        ArgsSchema fallingBack = withSnapshot();
+        ParsedArgs lazy = fallingBack.withLazyValues(true).parse(new String[] {"-p", "3"});
+        assertEquals(3, lazy.getInt('p'));
+        assertEquals(5, lazy.getDuration('t').getSeconds());
+        ArgsColumns columns = new ArgsBatchParser(fallingBack).parse(Arrays.asList(
+                new String[] {"-t", "1s"}, new String[0]));
+        assertEquals(Arrays.asList(Duration.ofSeconds(1), Duration.ofSeconds(5)),
+                Arrays.asList(columns.objectColumn('t')));
+    }
+
+    public void testPropertiesFile() throws Exception {
+        File file = File.createTempFile("args", ".properties");
+        try {
+            Files.write(file.toPath(), "app.host = héte\napp.port=7\n".getBytes(StandardCharsets.UTF_8));
+            ArgsFallbacks.Snapshot snapshot = fallbacks.snapshot(file.toPath());
+            assertEquals("héte", snapshot.valueOf('h'));
+            assertEquals("héte", schema.withFallbacks(snapshot).parse(new String[0]).getString('h'));
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package wscheng.cleancode.example.args;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// What the help of a schema says about its options: a description, the default value to
+// mention, and the name of the parameter's type where the one derived from the marshaler, such
+// as <int>, does not say enough. Declare them once,
+//     ArgsHelp.none().with('p', "Port to listen on").withDefault('p', "8080").withTypeName('p', "port")
+// and attach them with ArgsSchema.withHelp(help). Like ArgsFallbacks, help is immutable and
+// with*() returns a new instance.
+public final class ArgsHelp {
+    private static final ArgsHelp NONE = new ArgsHelp(new HashMap<Character, String>(),
+            new HashMap<Character, String>(), new HashMap<Character, String>());
+
+    private final Map<Character, String> descriptions;
+    private final Map<Character, String> defaults;
+    private final Map<Character, String> typeNames;
+
+    private ArgsHelp(Map<Character, String> descriptions, Map<Character, String> defaults,
+                     Map<Character, String> typeNames) {
+        this.descriptions = descriptions;
+        this.defaults = defaults;
+        this.typeNames = typeNames;
+    }
+
+    public static ArgsHelp none() {
+        return NONE;
+    }
+
+    public ArgsHelp with(char option, String description) {
+        return new ArgsHelp(put(descriptions, option, description), defaults, typeNames);
+    }
+
+    public ArgsHelp withDefault(char option, String defaultValue) {
+        return new ArgsHelp(descriptions, put(defaults, option, defaultValue), typeNames);
+    }
+
+    public ArgsHelp withTypeName(char option, String typeName) {
+        return new ArgsHelp(descriptions, defaults, put(typeNames, option, typeName));
+    }
+
+    private static Map<Character, String> put(Map<Character, String> texts, char option, String text) {
+        Map<Character, String> copy = new HashMap<Character, String>(texts);
+        copy.put(option, text);
+        return copy;
+    }
+
+    // null when none was given.
+    String descriptionOf(char option) {
+        return descriptions.get(option);
+    }
+
+    String defaultOf(char option) {
+        return defaults.get(option);
+    }
+
+    String typeNameOf(char option) {
+        return typeNames.get(option);
+    }
+}
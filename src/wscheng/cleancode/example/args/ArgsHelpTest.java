@@ -0,0 +1,59 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.io.StringWriter;
+
+public class ArgsHelpTest extends TestCase {
+    private static final ArgsHelp HELP = ArgsHelp.none()
+            .with('v', "Print every step.")
+            .with('o', "Where to write the report.")
+            .withDefault('o', "report.txt")
+            .withDefault('p', "8080")
+            .withTypeName('p', "port");
+
+    public void testOptionsAreAlignedInColumns() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("v|verbose,o|output*,p#,n##,f[*]").withHelp(HELP);
+        assertEquals("Usage: -[v|verbose,o|output*,p#,n##,f[*]]\n"
+                + "  -v, --verbose          Print every step.\n"
+                + "  -o, --output <string>  Where to write the report. (default: report.txt)\n"
+                + "  -p <port>              (default: 8080)\n"
+                + "  -n <long>\n"
+                + "  -f <string>\n", schema.help());
+    }
+
+    public void testDescriptionsWrapAtWidth() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("v|verbose,o|output*").withHelp(HELP);
+        assertEquals("Usage: -[v|verbose,o|output*]\n"
+                + "  -v, --verbose          Print every step.\n"
+                + "  -o, --output <string>  Where to write the\n"
+                + "                         report. (default:\n"
+                + "                         report.txt)\n", schema.help(45));
+        assertEquals(-1, schema.help(0).indexOf("the\n"));
+    }
+
+    public void testWideOptionPutsDescriptionOnNextLine() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("x|an-option-name-that-goes-on-and-on*,v")
+                .withHelp(ArgsHelp.none().with('x', "Long.").with('v', "Short."));
+        String[] lines = schema.help().split("\n");
+        assertEquals("  -x, --an-option-name-that-goes-on-and-on <string>", lines[1]);
+        assertEquals(2 + 32 + 2, lines[2].indexOf("Long."));
+        assertEquals(2 + 32 + 2, lines[3].indexOf("Short."));
+    }
+
+    public void testRenderedOncePerWidth() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("v|verbose,o|output*").withHelp(HELP);
+        assertSame(schema.help(), schema.help());
+        assertSame(schema.help(60), schema.withErrorPolicy(ErrorPolicy.FAIL_FAST).help(60));
+        assertSame(schema.help(0), schema.help(-1));
+        StringWriter out = new StringWriter();
+        schema.writeHelp(out, 60);
+        assertEquals(schema.help(60), out.toString());
+    }
+
+    public void testWithoutHelpListsTheOptions() throws Exception {
+        assertEquals("Usage: -[b,c*]\n  -b\n  -c <string>\n", ArgsSchema.compile("b,c*").help());
+        assertEquals("", ArgsSchema.compile("").help());
+        assertEquals("-[b,c*]", ArgsSchema.compile("b,c*").withHelp(HELP).usage());
+    }
+}
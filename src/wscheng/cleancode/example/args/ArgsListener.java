@@ -0,0 +1,16 @@
+package wscheng.cleancode.example.args;
+
+// Told about every compile and parse of a schema it is attached to, with how long it took.
+// Callbacks run on the parsing thread, inside the parse, so they must be quick and must not
+// throw. A schema without a listener has NONE and skips the clock altogether.
+public interface ArgsListener {
+    ArgsListener NONE = new ArgsListener() {
+    };
+
+    default void schemaCompiled(ArgsSchema schema, long nanos) {
+    }
+
+    // parsed is the result just produced; a batch parser reuses it for the next row.
+    default void argumentsParsed(ParsedArgs parsed, long nanos) {
+    }
+}
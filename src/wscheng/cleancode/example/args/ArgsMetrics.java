@@ -0,0 +1,203 @@
+package wscheng.cleancode.example.args;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// An ArgsListener that counts what it is told with lock-free counters, so one instance can
+// be attached to a schema shared by every thread. snapshot() copies the counts out for
+// reporting, as text or as JSON.
+//
+// Reading the error of a parse resolves any lazy values, so attaching this to a schema with
+// lazy values gives up the laziness.
+public final class ArgsMetrics implements ArgsListener {
+    private static final int ASCII = 128;
+    private static final ErrorCode[] ERROR_CODES = ErrorCode.values();
+    private static final double[] REPORTED_PERCENTILES = {50, 90, 99, 99.9};
+
+    private final LatencyHistogram compileNanos = new LatencyHistogram();
+    private final LatencyHistogram parseNanos = new LatencyHistogram();
+    private final LongAdder invalidParses = new LongAdder();
+    private final AtomicLongArray errors = new AtomicLongArray(ERROR_CODES.length);
+    private final AtomicLongArray asciiUnexpected = new AtomicLongArray(ASCII);
+    private final Map<Character, LongAdder> otherUnexpected = new ConcurrentHashMap<Character, LongAdder>();
+
+    @Override
+    public void schemaCompiled(ArgsSchema schema, long nanos) {
+        compileNanos.record(nanos);
+    }
+
+    @Override
+    public void argumentsParsed(ParsedArgs parsed, long nanos) {
+        parseNanos.record(nanos);
+        if (!parsed.isValid()) {
+            invalidParses.increment();
+        }
+        errors.incrementAndGet(parsed.errorCode().ordinal());
+        for (int c = parsed.nextUnexpectedArgument(0); c >= 0; c = parsed.nextUnexpectedArgument(c + 1)) {
+            addUnexpected((char) c);
+        }
+    }
+
+    private void addUnexpected(char c) {
+        if (c < ASCII) {
+            asciiUnexpected.incrementAndGet(c);
+        } else {
+            otherUnexpected.computeIfAbsent(c, key -> new LongAdder()).increment();
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] errorCounts = new long[ERROR_CODES.length];
+        for (int code = 0; code < errorCounts.length; code++) {
+            errorCounts[code] = errors.get(code);
+        }
+        Map<Character, Long> unexpected = new TreeMap<Character, Long>();
+        for (int c = 0; c < ASCII; c++) {
+            if (asciiUnexpected.get(c) > 0) {
+                unexpected.put((char) c, asciiUnexpected.get(c));
+            }
+        }
+        for (Map.Entry<Character, LongAdder> entry : otherUnexpected.entrySet()) {
+            unexpected.put(entry.getKey(), entry.getValue().sum());
+        }
+        return new Snapshot(compileNanos.snapshot(), parseNanos.snapshot(), invalidParses.sum(),
+                errorCounts, unexpected);
+    }
+
+    public static final class Snapshot {
+        private final LatencyHistogram.Snapshot compileNanos;
+        private final LatencyHistogram.Snapshot parseNanos;
+        private final long invalidParses;
+        private final long[] errors;
+        private final Map<Character, Long> unexpected;
+
+        private Snapshot(LatencyHistogram.Snapshot compileNanos, LatencyHistogram.Snapshot parseNanos,
+                         long invalidParses, long[] errors, Map<Character, Long> unexpected) {
+            this.compileNanos = compileNanos;
+            this.parseNanos = parseNanos;
+            this.invalidParses = invalidParses;
+            this.errors = errors;
+            this.unexpected = unexpected;
+        }
+
+        public long compiles() {
+            return compileNanos.count();
+        }
+
+        public long parses() {
+            return parseNanos.count();
+        }
+
+        public long invalidParses() {
+            return invalidParses;
+        }
+
+        // Number of parses that ended with errorCode; OK counts the ones without an error.
+        public long errors(ErrorCode errorCode) {
+            return errors[errorCode.ordinal()];
+        }
+
+        // Number of parses on which c showed up as an unexpected argument.
+        public long unexpected(char c) {
+            Long count = unexpected.get(c);
+            return count == null ? 0 : count;
+        }
+
+        public long compileNanos(double percentile) {
+            return compileNanos.percentile(percentile);
+        }
+
+        public long parseNanos(double percentile) {
+            return parseNanos.percentile(percentile);
+        }
+
+        public long maxParseNanos() {
+            return parseNanos.max();
+        }
+
+        public double meanParseNanos() {
+            return parseNanos.mean();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append("compiles=").append(compiles())
+                    .append(" parses=").append(parses())
+                    .append(" invalid=").append(invalidParses).append('\n');
+            appendTextLatencies(text.append("compile ns:"), compileNanos);
+            appendTextLatencies(text.append("parse ns:"), parseNanos);
+            for (int code = 0; code < ERROR_CODES.length; code++) {
+                if (errors[code] > 0 && ERROR_CODES[code] != ErrorCode.OK) {
+                    text.append(ERROR_CODES[code]).append(": ").append(errors[code]).append('\n');
+                }
+            }
+            for (Map.Entry<Character, Long> entry : unexpected.entrySet()) {
+                text.append("unexpected -").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+            }
+            return text.toString();
+        }
+
+        private static void appendTextLatencies(StringBuilder text, LatencyHistogram.Snapshot latencies) {
+            for (double percentile : REPORTED_PERCENTILES) {
+                text.append(" p").append(label(percentile)).append('=').append(latencies.percentile(percentile));
+            }
+            text.append(" max=").append(latencies.max()).append('\n');
+        }
+
+        public String toJson() {
+            StringBuilder json = new StringBuilder();
+            json.append("{\"compiles\":").append(compiles())
+                    .append(",\"parses\":").append(parses())
+                    .append(",\"invalidParses\":").append(invalidParses);
+            appendJsonLatencies(json.append(",\"compileNanos\":"), compileNanos);
+            appendJsonLatencies(json.append(",\"parseNanos\":"), parseNanos);
+            json.append(",\"errors\":{");
+            String separator = "";
+            for (int code = 0; code < ERROR_CODES.length; code++) {
+                if (errors[code] > 0) {
+                    json.append(separator).append('"').append(ERROR_CODES[code]).append("\":").append(errors[code]);
+                    separator = ",";
+                }
+            }
+            json.append("},\"unexpected\":{");
+            separator = "";
+            for (Map.Entry<Character, Long> entry : unexpected.entrySet()) {
+                json.append(separator).append('"');
+                appendJsonChar(json, entry.getKey());
+                json.append("\":").append(entry.getValue());
+                separator = ",";
+            }
+            return json.append("}}").toString();
+        }
+
+        private static void appendJsonLatencies(StringBuilder json, LatencyHistogram.Snapshot latencies) {
+            json.append('{');
+            for (double percentile : REPORTED_PERCENTILES) {
+                json.append("\"p").append(label(percentile)).append("\":").append(latencies.percentile(percentile)).append(',');
+            }
+            json.append("\"max\":").append(latencies.max())
+                    .append(",\"mean\":").append(latencies.mean()).append('}');
+        }
+
+        private static void appendJsonChar(StringBuilder json, char c) {
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+
+        // 50 -> "50", 99.9 -> "999", as in p999.
+        private static String label(double percentile) {
+            return percentile == Math.rint(percentile)
+                    ? Long.toString((long) percentile)
+                    : Double.toString(percentile).replace(".", "");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class ArgsMetricsTest extends TestCase {
+    private ArgsMetrics metrics;
+    private ArgsSchema schema;
+
+    @Override
+    protected void setUp() throws Exception {
+        metrics = new ArgsMetrics();
+        schema = ArgsSchema.compile("b,s*,n#", metrics);
+    }
+
+    public void testCountsParsesAndErrors() throws Exception {
+        schema.parse(new String[] {"-b", "-n", "1"});
+        schema.parse(new String[] {"-n", "x"});
+        schema.parse(new String[] {"-xyx", "-s"});
+        ArgsMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.compiles());
+        assertEquals(3, snapshot.parses());
+        assertEquals(2, snapshot.invalidParses());
+        assertEquals(1, snapshot.errors(ErrorCode.OK));
+        assertEquals(1, snapshot.errors(ErrorCode.INVALID_INTEGER));
+        assertEquals(1, snapshot.errors(ErrorCode.MISSING_STRING));
+        assertEquals(1, snapshot.unexpected('x'));
+        assertEquals(1, snapshot.unexpected('y'));
+        assertEquals(0, snapshot.unexpected('b'));
+    }
+
+    public void testListenerFollowsDerivedSchemasAndBatches() throws Exception {
+        ArgsSchema failFast = schema.withErrorPolicy(ErrorPolicy.FAIL_FAST);
+        assertSame(metrics, failFast.listener());
+        new ArgsBatchParser(failFast).parse(Arrays.asList(new String[] {"-b"}, new String[] {"-n"}));
+        assertEquals(2, metrics.snapshot().parses());
+        assertEquals(1, metrics.snapshot().errors(ErrorCode.MISSING_INTEGER));
+    }
+
+    public void testNoListenerByDefault() throws Exception {
+        assertSame(ArgsListener.NONE, ArgsSchema.compile("b").listener());
+        assertSame(ArgsListener.NONE, schema.withListener(ArgsListener.NONE).listener());
+    }
+
+    public void testSnapshotRendersTextAndJson() throws Exception {
+        schema.parse(new String[] {"-n", "x", "-\""});
+        ArgsMetrics.Snapshot snapshot = metrics.snapshot();
+        String text = snapshot.toString();
+        assertTrue(text, text.startsWith("compiles=1 parses=1 invalid=1\n"));
+        assertTrue(text, text.contains("INVALID_INTEGER: 1\n"));
+        assertTrue(text, text.contains("unexpected -\": 1\n"));
+        String json = snapshot.toJson();
+        assertTrue(json, json.startsWith("{\"compiles\":1,\"parses\":1,\"invalidParses\":1,"));
+        assertTrue(json, json.contains("\"parseNanos\":{\"p50\":"));
+        assertTrue(json, json.contains("\"p999\":"));
+        assertTrue(json, json.endsWith("\"errors\":{\"INVALID_INTEGER\":1},\"unexpected\":{\"\\\"\":1}}"));
+    }
+
+    public void testHistogramBucketsStayWithinPrecision() throws Exception {
+        Random random = new Random(12);
+        for (int i = 0; i < 100000; i++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(63));
+            long highest = LatencyHistogram.highestValueIn(LatencyHistogram.bucketOf(value));
+            assertTrue(value + " -> " + highest, highest >= value);
+            assertTrue(value + " -> " + highest, highest - value <= value / 32);
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueIn(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    public void testHistogramPercentiles() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.count());
+        assertEquals(1000, snapshot.max());
+        assertEquals(500.5, snapshot.mean());
+        assertEquals(1, snapshot.percentile(0));
+        assertEquals(1000, snapshot.percentile(100));
+        assertEquals(500, snapshot.percentile(50), 500 / 32);
+        assertEquals(990, snapshot.percentile(99), 990 / 32);
+    }
+}
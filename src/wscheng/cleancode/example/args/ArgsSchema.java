@@ -0,0 +1,425 @@
+package wscheng.cleancode.example.args;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.*;
+
+// A schema string such as "b*,c*,d,e#" compiled once. An element is a letter followed by a
+// tail that a MarshalerRegistry maps to its type: nothing (boolean), * (string), # (int),
+// ## (long), ##. (double) and so on. The letter may be followed by |name to also accept the
+// option as --name, as in "v|verbose,o|output*". It is immutable, so one instance can be
+// kept around and shared between threads; every parse() gets its own ParsedArgs.
+public final class ArgsSchema {
+    private static final int ASCII = 128;
+
+    private final String schema;
+    private final boolean strict;
+    // Every element gets a slot; ParsedArgs keeps its values in arrays indexed by that slot.
+    private final char[] ids;
+    private final ArgumentMarshaler[] marshalers;
+    private final int[] asciiSlots;
+    // Indexed by slot, null for an element without a long name.
+    private final String[] longNames;
+    private final LongOptionTable longOptions;
+    private final ErrorPolicy errorPolicy;
+    private final boolean argumentFiles;
+    private final boolean lazyValues;
+    private final ArgsListener listener;
+    private final FallbackValues fallbacks;
+    private final ArgsValidation validation;
+    // The parser generated by withSpecializedParsing(true), or null.
+    private final SlotDispatcher dispatcher;
+    private final HelpText help;
+
+    private ArgsSchema(String schema, boolean strict, char[] ids, ArgumentMarshaler[] marshalers, int[] asciiSlots,
+                       String[] longNames, LongOptionTable longOptions) {
+        this.schema = schema;
+        this.strict = strict;
+        this.ids = ids;
+        this.marshalers = marshalers;
+        this.asciiSlots = asciiSlots;
+        this.longNames = longNames;
+        this.longOptions = longOptions;
+        this.errorPolicy = ErrorPolicy.LENIENT;
+        this.argumentFiles = false;
+        this.lazyValues = false;
+        this.listener = ArgsListener.NONE;
+        this.fallbacks = FallbackValues.NONE;
+        this.validation = ArgsValidation.none();
+        this.dispatcher = null;
+        this.help = new HelpText(this, ArgsHelp.none());
+    }
+
+    // The with* methods share the compiled tables and only change how parse() behaves.
+    private ArgsSchema(ArgsSchema compiled, ErrorPolicy errorPolicy, boolean argumentFiles, boolean lazyValues,
+                       ArgsListener listener, FallbackValues fallbacks, ArgsValidation validation,
+                       SlotDispatcher dispatcher, HelpText help) {
+        this.schema = compiled.schema;
+        this.strict = compiled.strict;
+        this.ids = compiled.ids;
+        this.marshalers = compiled.marshalers;
+        this.asciiSlots = compiled.asciiSlots;
+        this.longNames = compiled.longNames;
+        this.longOptions = compiled.longOptions;
+        this.errorPolicy = errorPolicy;
+        this.argumentFiles = argumentFiles;
+        this.lazyValues = lazyValues;
+        this.listener = listener;
+        this.fallbacks = fallbacks;
+        this.validation = validation;
+        this.dispatcher = dispatcher;
+        this.help = help;
+    }
+
+    // Elements with an unknown tail are ignored, as Args always did.
+    public static ArgsSchema compile(String schema) throws ParseException {
+        return compile(schema, MarshalerRegistry.builtIn());
+    }
+
+    // Elements with an unknown tail are rejected, as draftv1.Args does.
+    public static ArgsSchema compileStrict(String schema) throws ParseException {
+        return compileStrict(schema, MarshalerRegistry.builtIn());
+    }
+
+    // Elements are looked up in registry instead of the built-in types.
+    public static ArgsSchema compile(String schema, MarshalerRegistry registry) throws ParseException {
+        return new SchemaCompiler(schema, false, registry).compile();
+    }
+
+    public static ArgsSchema compileStrict(String schema, MarshalerRegistry registry) throws ParseException {
+        return new SchemaCompiler(schema, true, registry).compile();
+    }
+
+    // As compile(schema), with listener attached and told how long compiling took.
+    public static ArgsSchema compile(String schema, ArgsListener listener) throws ParseException {
+        return compile(schema, false, listener);
+    }
+
+    public static ArgsSchema compileStrict(String schema, ArgsListener listener) throws ParseException {
+        return compile(schema, true, listener);
+    }
+
+    private static ArgsSchema compile(String schema, boolean strict, ArgsListener listener) throws ParseException {
+        long start = System.nanoTime();
+        ArgsSchema compiled = new SchemaCompiler(schema, strict, MarshalerRegistry.builtIn()).compile()
+                .withListener(listener);
+        listener.schemaCompiled(compiled, System.nanoTime() - start);
+        return compiled;
+    }
+
+    public ArgsSchema withErrorPolicy(ErrorPolicy errorPolicy) {
+        return new ArgsSchema(this, errorPolicy, argumentFiles, lazyValues, listener, fallbacks, validation,
+                dispatcher, help);
+    }
+
+    // With argument files on, an argument @path is replaced by the arguments read from path.
+    // The file is memory-mapped and read lazily, so it may be far larger than the heap.
+    public ArgsSchema withArgumentFiles(boolean argumentFiles) {
+        return new ArgsSchema(this, errorPolicy, argumentFiles, lazyValues, listener, fallbacks, validation,
+                dispatcher, help);
+    }
+
+    // With lazy values on, parse() only remembers where each value is; a value is converted
+    // the first time its getter asks for it, and everything is checked once isValid(),
+    // errorMessage() or cardinality() needs the full picture. Only the LENIENT policy can
+    // defer its errors like that, so the other policies keep parsing eagerly.
+    public ArgsSchema withLazyValues(boolean lazyValues) {
+        return new ArgsSchema(this, errorPolicy, argumentFiles, lazyValues, listener, fallbacks, validation,
+                dispatcher, help);
+    }
+
+    // The listener is told about every parse of the returned schema, including batch and
+    // cached ones; ArgsListener.NONE turns that off again.
+    public ArgsSchema withListener(ArgsListener listener) {
+        return new ArgsSchema(this, errorPolicy, argumentFiles, lazyValues, listener, fallbacks, validation,
+                dispatcher, help);
+    }
+
+    // Options the command line does not give take their value from snapshot, if it has one for
+    // them; a value on the command line always wins, even one that does not convert. The
+    // snapshot is converted for this schema once, by the first parse that needs it.
+    public ArgsSchema withFallbacks(ArgsFallbacks.Snapshot snapshot) {
+        return new ArgsSchema(this, errorPolicy, argumentFiles, lazyValues, listener,
+                FallbackValues.of(this, snapshot), validation, dispatcher, help);
+    }
+
+    // parse() returns once the validators of the options it set have passed, failed or run
+    // past the deadline; see ArgsValidation. A lazy parse is resolved for them.
+    public ArgsSchema withValidation(ArgsValidation validation) {
+        return new ArgsSchema(this, errorPolicy, argumentFiles, lazyValues, listener, fallbacks, validation,
+                dispatcher, help);
+    }
+
+    // With specialized parsing on, the schema generates a parser of its own, which switches on
+    // the slot and stores each built-in option's value directly rather than asking its marshaler;
+    // see SlotDispatcher. It is generated once and kept by the schemas derived from this one. The
+    // results are the same either way.
+    public ArgsSchema withSpecializedParsing(boolean specialized) {
+        SlotDispatcher generated = !specialized ? null
+                : dispatcher != null ? dispatcher : SlotDispatcher.of(marshalers);
+        return new ArgsSchema(this, errorPolicy, argumentFiles, lazyValues, listener, fallbacks, validation,
+                generated, help);
+    }
+
+    // Rendered lazily and cached per width, by the returned schema and the ones derived from it
+    // with the other with*() methods; see HelpText.
+    public ArgsSchema withHelp(ArgsHelp help) {
+        return new ArgsSchema(this, errorPolicy, argumentFiles, lazyValues, listener, fallbacks, validation,
+                dispatcher, new HelpText(this, help));
+    }
+
+    public ParsedArgs parse(String[] args) {
+        return new ArgumentParser(this, new ParsedArgs(this)).parse(args);
+    }
+
+    // Parses the length arguments from offset on, without copying them out of args. Error
+    // positions count from the start of args.
+    public ParsedArgs parse(String[] args, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, args.length);
+        ParsedArgs parsed = new ParsedArgs(this);
+        new ArgumentParser(this, parsed).parse(args, offset, offset + length, null);
+        return parsed;
+    }
+
+    public String schema() {
+        return schema;
+    }
+
+    public ErrorPolicy errorPolicy() {
+        return errorPolicy;
+    }
+
+    public boolean expandsArgumentFiles() {
+        return argumentFiles;
+    }
+
+    public boolean hasLazyValues() {
+        return lazyValues;
+    }
+
+    public ArgsListener listener() {
+        return listener;
+    }
+
+    boolean hasFallbacks() {
+        return fallbacks != FallbackValues.NONE;
+    }
+
+    FallbackValues fallbacks() {
+        return fallbacks;
+    }
+
+    public boolean hasSpecializedParsing() {
+        return dispatcher != null;
+    }
+
+    // null unless parsing is specialized.
+    SlotDispatcher dispatcher() {
+        return dispatcher;
+    }
+
+    boolean hasValidation() {
+        return !validation.isEmpty();
+    }
+
+    ArgsValidation validation() {
+        return validation;
+    }
+
+    boolean defersValues() {
+        return lazyValues && errorPolicy == ErrorPolicy.LENIENT;
+    }
+
+    public boolean isStrict() {
+        return strict;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public String usage() {
+        if (schema.length() > 0) {
+            return "-[" + schema + "]";
+        } else {
+            return "";
+        }
+    }
+
+    // The usage line and a line for every option, with the descriptions wrapped to fit width
+    // columns; help() fits HelpText.DEFAULT_WIDTH and a width of 0 does not wrap.
+    public String help() {
+        return help.text(HelpText.DEFAULT_WIDTH);
+    }
+
+    public String help(int width) {
+        return help.text(width);
+    }
+
+    public void writeHelp(Appendable out, int width) throws IOException {
+        help.write(out, width);
+    }
+
+    HelpText helpText() {
+        return help;
+    }
+
+    // Returns -1 when argChar is not part of the schema.
+    int slotOf(char argChar) {
+        if (argChar < ASCII) {
+            return asciiSlots[argChar] - 1;
+        }
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (ids[slot] == argChar) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // --name and -- are only recognised by schemas that declare a long name; without one, an
+    // argument like --x is a cluster of - and x, as it always was.
+    boolean hasLongOptions() {
+        return longOptions != LongOptionTable.EMPTY;
+    }
+
+    // The slot whose long name is arg[start, end), or -1.
+    int slotOfLongOption(CharSequence arg, int start, int end) {
+        return longOptions.slotOf(arg, start, end);
+    }
+
+    // null when slot has no long name.
+    String longNameAt(int slot) {
+        return longNames[slot];
+    }
+
+    char idOf(int slot) {
+        return ids[slot];
+    }
+
+    ArgumentMarshaler marshalerAt(int slot) {
+        return marshalers[slot];
+    }
+
+    private static class SchemaCompiler {
+        private final String schema;
+        private final boolean strict;
+        private final MarshalerRegistry registry;
+        private final StringBuilder ids = new StringBuilder();
+        private final List<ArgumentMarshaler> marshalers = new ArrayList<ArgumentMarshaler>();
+        private final List<String> longNames = new ArrayList<String>();
+
+        SchemaCompiler(String schema, boolean strict, MarshalerRegistry registry) {
+            this.schema = schema;
+            this.strict = strict;
+            this.registry = registry;
+        }
+
+        ArgsSchema compile() throws ParseException {
+            for (String element : schema.split(",")) {
+                if (element.length() > 0) {
+                    String trimmedElement = element.trim();
+                    parseSchemaElement(trimmedElement);
+                }
+            }
+            String[] names = longNames.toArray(new String[longNames.size()]);
+            return new ArgsSchema(schema, strict, ids.toString().toCharArray(),
+                    marshalers.toArray(new ArgumentMarshaler[marshalers.size()]), asciiSlots(),
+                    names, longOptionTable(names));
+        }
+
+        private LongOptionTable longOptionTable(String[] names) throws ParseException {
+            if (!hasLongName(names)) {
+                return LongOptionTable.EMPTY;
+            }
+            LongOptionTable table = LongOptionTable.build(names);
+            if (table == null) {
+                throw new ParseException("Could not hash the long names of Args format: " + schema, 0);
+            }
+            return table;
+        }
+
+        private static boolean hasLongName(String[] names) {
+            for (String name : names) {
+                if (name != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Slot + 1 for every ASCII id, so that the zero default means "not in the schema".
+        private int[] asciiSlots() {
+            int[] slots = new int[ASCII];
+            for (int slot = 0; slot < ids.length(); slot++) {
+                if (ids.charAt(slot) < ASCII) {
+                    slots[ids.charAt(slot)] = slot + 1;
+                }
+            }
+            return slots;
+        }
+
+        private void parseSchemaElement(String element) throws ParseException {
+            char elementId = element.charAt(0);
+            validateSchemaElementId(elementId);
+            String longName = null;
+            int tailStart = 1;
+            if (element.startsWith("|", 1)) {
+                tailStart = longNameEnd(element, 2);
+                longName = element.substring(2, tailStart);
+                validateLongName(elementId, longName);
+            }
+            String elementTail = element.substring(tailStart);
+
+            ArgumentMarshaler m = registry.marshalerFor(elementTail);
+            if (m != null) {
+                put(elementId, m, longName);
+            } else if (strict) {
+                throw new ParseException(
+                        String.format("Argument: %c has invalid format: %s.", elementId, elementTail), 0);
+            }
+        }
+
+        // A long name runs up to the first character that is not a letter, digit, - or _.
+        private static int longNameEnd(String element, int start) {
+            int end = start;
+            while (end < element.length() && isLongNameChar(element.charAt(end))) {
+                end++;
+            }
+            return end;
+        }
+
+        private static boolean isLongNameChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '-' || c == '_';
+        }
+
+        private void validateLongName(char elementId, String longName) throws ParseException {
+            if (longName.length() == 0 || longName.charAt(0) == '-') {
+                throw new ParseException("Bad long name for " + elementId + " in Args format: " + schema, 0);
+            }
+        }
+
+        // A repeated id replaces the earlier declaration, as the old map did.
+        private void put(char elementId, ArgumentMarshaler m, String longName) throws ParseException {
+            int slot = ids.indexOf(String.valueOf(elementId));
+            int namedSlot = longName == null ? -1 : longNames.indexOf(longName);
+            if (namedSlot >= 0 && namedSlot != slot) {
+                throw new ParseException("Long name " + longName + " used twice in Args format: " + schema, 0);
+            }
+            if (slot < 0) {
+                ids.append(elementId);
+                marshalers.add(m);
+                longNames.add(longName);
+            } else {
+                marshalers.set(slot, m);
+                longNames.set(slot, longName);
+            }
+        }
+
+        private void validateSchemaElementId(char elementId) throws ParseException {
+            if (!Character.isLetter(elementId)) {
+                throw new ParseException("Bad character:" + elementId + "in Args format: " + schema, 0);
+            }
+        }
+    }
+}
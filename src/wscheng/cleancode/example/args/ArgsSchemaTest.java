@@ -0,0 +1,125 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.text.ParseException;
+
+public class ArgsSchemaTest extends TestCase {
+    public void testCompiledSchemaIsReusable() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("b,s*,n#");
+        ParsedArgs first = schema.parse(new String[] {"-b", "-s", "one", "-n", "1"});
+        ParsedArgs second = schema.parse(new String[] {"-s", "two"});
+        assertEquals(true, first.getBoolean('b'));
+        assertEquals("one", first.getString('s'));
+        assertEquals(1, first.getInt('n'));
+        assertEquals(3, first.cardinality());
+        assertEquals(false, second.getBoolean('b'));
+        assertEquals("two", second.getString('s'));
+        assertEquals(0, second.getInt('n'));
+        assertEquals(1, second.cardinality());
+    }
+
+    public void testArgsWrapsCompiledSchema() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("b,c*");
+        Args args = new Args(schema, new String[] {"-b", "-c", "value"});
+        assertEquals(true, args.isValid());
+        assertEquals("value", args.getString('c'));
+        assertEquals("-[b,c*]", args.usage());
+    }
+
+    public void testUnexpectedArgumentsAreSortedAndInvalid() throws Exception {
+        ParsedArgs parsed = ArgsSchema.compile("b").parse(new String[] {"-zbay"});
+        assertEquals(false, parsed.isValid());
+        assertEquals("ayz", parsed.unexpectedArguments());
+        assertEquals("Argument(s) =ayz unexpected.", parsed.errorMessage());
+    }
+
+    public void testMissingStringParameter() throws Exception {
+        ParsedArgs parsed = ArgsSchema.compile("s*").parse(new String[] {"-s"});
+        assertEquals(false, parsed.isValid());
+        assertEquals(ErrorCode.MISSING_STRING, parsed.errorCode());
+        assertEquals("Could not find string parameter for -s.", parsed.errorMessage());
+    }
+
+    public void testInvalidInteger() throws Exception {
+        ParsedArgs parsed = ArgsSchema.compile("n#").parse(new String[] {"-n", "ten"});
+        assertEquals(false, parsed.isValid());
+        assertEquals(ErrorCode.INVALID_INTEGER, parsed.errorCode());
+        assertEquals('n', parsed.errorArgument());
+        assertEquals("ten", parsed.errorParameter());
+        assertEquals(0, parsed.cardinality());
+    }
+
+    public void testLenientSchemaIgnoresUnknownTail() throws Exception {
+        assertEquals(1, ArgsSchema.compile("b,x?").size());
+    }
+
+    public void testStrictSchemaRejectsUnknownTail() throws Exception {
+        try {
+            ArgsSchema.compileStrict("b,x?");
+            fail();
+        } catch (ParseException e) {
+            assertEquals("Argument: x has invalid format: ?.", e.getMessage());
+        }
+    }
+
+    public void testFailFastStopsAtFirstError() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("n#,b").withErrorPolicy(ErrorPolicy.FAIL_FAST);
+        ParsedArgs parsed = schema.parse(new String[] {"-n", "x", "-b"});
+        assertEquals(false, parsed.getBoolean('b'));
+        assertEquals(ErrorCode.INVALID_INTEGER, parsed.errorCode());
+    }
+
+    public void testWideSchemaWithNonAsciiIds() throws Exception {
+        StringBuilder schema = new StringBuilder("\u00e9#,\u00f1*");
+        for (char c = 'a'; c <= 'z'; c++) {
+            schema.append(',').append(c).append(',').append(Character.toUpperCase(c)).append('#');
+        }
+        ParsedArgs parsed = ArgsSchema.compile(schema.toString()).parse(
+                new String[] {"-abzZ", "26", "-\u00e9", "7", "-\u00f1", "tilde"});
+        assertEquals(54, parsed.schema().size());
+        assertEquals(true, parsed.getBoolean('a'));
+        assertEquals(true, parsed.getBoolean('z'));
+        assertEquals(false, parsed.getBoolean('y'));
+        assertEquals(26, parsed.getInt('Z'));
+        assertEquals(7, parsed.getInt('\u00e9'));
+        assertEquals("tilde", parsed.getString('\u00f1'));
+        assertEquals(6, parsed.cardinality());
+        assertEquals(true, parsed.isValid());
+    }
+
+    public void testIntegerParsingMatchesIntegerParseInt() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("n#");
+        String[] inputs = {"0", "-0", "+7", "-", "+", "", "12a", "2147483647", "2147483648",
+                "-2147483648", "-2147483649", "99999999999", "\u0663\u0664", " 1", "--1"};
+        for (String input : inputs) {
+            ParsedArgs parsed = schema.parse(new String[] {"-n", input});
+            try {
+                int expected = Integer.parseInt(input);
+                assertEquals(input, true, parsed.isValid());
+                assertEquals(input, expected, parsed.getInt('n'));
+            } catch (NumberFormatException e) {
+                ErrorCode expected = isOverflow(input) ? ErrorCode.INTEGER_OVERFLOW : ErrorCode.INVALID_INTEGER;
+                assertEquals(input, expected, parsed.errorCode());
+                assertEquals(input, input, parsed.errorParameter());
+            }
+        }
+    }
+
+    private static boolean isOverflow(String input) {
+        return input.matches("[-+]?[0-9]+");
+    }
+
+    public void testErrorRecordsPosition() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("b,n#");
+        ParsedArgs invalid = schema.parse(new String[] {"-b", "-n", "x"});
+        assertEquals(2, invalid.errorPosition());
+        assertEquals("Argument -n expects an integer but was 'x'.", invalid.errorMessage());
+        ParsedArgs missing = schema.parse(new String[] {"-b", "-n"});
+        assertEquals(ErrorCode.MISSING_INTEGER, missing.errorCode());
+        assertEquals('n', missing.errorArgument());
+        assertEquals(2, missing.errorPosition());
+        assertEquals("Could not find integer parameter for -n.", missing.errorMessage());
+        assertEquals(-1, schema.parse(new String[] {"-b"}).errorPosition());
+    }
+}
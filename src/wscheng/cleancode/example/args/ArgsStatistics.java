@@ -0,0 +1,138 @@
+package wscheng.cleancode.example.args;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Per-option counts over a corpus of command lines. Instances are filled by one thread and
+// then merged, which is how ArgsCorpusAuditor combines the work of its fork-join tasks.
+public final class ArgsStatistics {
+    private static final int ASCII = 128;
+    private static final ErrorCode[] ERROR_CODES = ErrorCode.values();
+
+    private final ArgsSchema schema;
+    private long lines;
+    private long validLines;
+    private long malformedLines;
+    private final long[] occurrences;
+    // [slot][ErrorCode.ordinal()] of the error each invalid line ended with.
+    private final long[][] errors;
+    private final long[] asciiUnexpected = new long[ASCII];
+    private final Map<Character, Long> otherUnexpected = new HashMap<Character, Long>();
+
+    ArgsStatistics(ArgsSchema schema) {
+        this.schema = schema;
+        occurrences = new long[schema.size()];
+        errors = new long[schema.size()][ERROR_CODES.length];
+    }
+
+    void add(ParsedArgs parsed) {
+        lines++;
+        if (parsed.isValid()) {
+            validLines++;
+        }
+        for (int slot = parsed.nextFoundSlot(0); slot >= 0; slot = parsed.nextFoundSlot(slot + 1)) {
+            occurrences[slot]++;
+        }
+        // An unreadable @file is reported against '@', which is not an option.
+        int errorSlot = schema.slotOf(parsed.errorArgument());
+        if (parsed.errorCode() != ErrorCode.OK && errorSlot >= 0) {
+            errors[errorSlot][parsed.errorCode().ordinal()]++;
+        }
+        for (int c = parsed.nextUnexpectedArgument(0); c >= 0; c = parsed.nextUnexpectedArgument(c + 1)) {
+            addUnexpected((char) c, 1);
+        }
+    }
+
+    void addMalformed() {
+        lines++;
+        malformedLines++;
+    }
+
+    ArgsStatistics merge(ArgsStatistics other) {
+        lines += other.lines;
+        validLines += other.validLines;
+        malformedLines += other.malformedLines;
+        for (int slot = 0; slot < occurrences.length; slot++) {
+            occurrences[slot] += other.occurrences[slot];
+            for (int code = 0; code < ERROR_CODES.length; code++) {
+                errors[slot][code] += other.errors[slot][code];
+            }
+        }
+        for (int c = 0; c < ASCII; c++) {
+            asciiUnexpected[c] += other.asciiUnexpected[c];
+        }
+        for (Map.Entry<Character, Long> entry : other.otherUnexpected.entrySet()) {
+            addUnexpected(entry.getKey(), entry.getValue());
+        }
+        return this;
+    }
+
+    private void addUnexpected(char c, long count) {
+        if (c < ASCII) {
+            asciiUnexpected[c] += count;
+        } else {
+            Long previous = otherUnexpected.get(c);
+            otherUnexpected.put(c, previous == null ? count : previous + count);
+        }
+    }
+
+    public long lines() {
+        return lines;
+    }
+
+    public long validLines() {
+        return validLines;
+    }
+
+    // Lines the tokenizer could not split, e.g. because of an unterminated quote.
+    public long malformedLines() {
+        return malformedLines;
+    }
+
+    // Number of lines on which option was given successfully.
+    public long occurrences(char option) {
+        int slot = schema.slotOf(option);
+        return slot < 0 ? 0 : occurrences[slot];
+    }
+
+    // Number of lines whose error was errorCode on option.
+    public long errors(char option, ErrorCode errorCode) {
+        int slot = schema.slotOf(option);
+        return slot < 0 ? 0 : errors[slot][errorCode.ordinal()];
+    }
+
+    // Number of lines on which c showed up as an unexpected argument.
+    public long unexpected(char c) {
+        if (c < ASCII) {
+            return asciiUnexpected[c];
+        }
+        Long count = otherUnexpected.get(c);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append("lines=").append(lines)
+                .append(" valid=").append(validLines)
+                .append(" malformed=").append(malformedLines).append('\n');
+        for (int slot = 0; slot < occurrences.length; slot++) {
+            text.append('-').append(schema.idOf(slot)).append(": ").append(occurrences[slot]);
+            for (int code = 0; code < ERROR_CODES.length; code++) {
+                if (errors[slot][code] > 0) {
+                    text.append(' ').append(ERROR_CODES[code]).append('=').append(errors[slot][code]);
+                }
+            }
+            text.append('\n');
+        }
+        for (int c = 0; c < ASCII; c++) {
+            if (asciiUnexpected[c] > 0) {
+                text.append("unexpected -").append((char) c).append(": ").append(asciiUnexpected[c]).append('\n');
+            }
+        }
+        for (Map.Entry<Character, Long> entry : otherUnexpected.entrySet()) {
+            text.append("unexpected -").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        return text.toString();
+    }
+}
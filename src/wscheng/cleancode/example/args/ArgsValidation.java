@@ -0,0 +1,185 @@
+package wscheng.cleancode.example.args;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// The validators of a schema's options, attached with ArgsSchema.withValidation(). Once a
+// command line has parsed cleanly, the validators of every option it set are started at
+// once and awaited until the deadline, so a parse waits for the slowest check rather than
+// for the sum of them. A command line that did not parse is not validated at all.
+//
+// Checks run on virtual threads when the runtime has them, on a pool of daemon threads
+// otherwise, or on the executor given to withExecutor(). Failures are reported through the
+// ParsedArgs: the error code is VALIDATION_FAILED, or VALIDATION_TIMED_OUT when every failed
+// check ran out of time, the error argument is the first option that failed, and
+// errorMessage() lists every failure. Immutable, like the schema.
+public final class ArgsValidation {
+    private static final Duration DEFAULT_DEADLINE = Duration.ofSeconds(10);
+    private static final ArgsValidation NONE = new ArgsValidation(new char[0], new ArgsValidator[0], null,
+            DEFAULT_DEADLINE);
+
+    private final char[] options;
+    private final ArgsValidator[] validators;
+    // null for the default executor.
+    private final Executor executor;
+    private final Duration deadline;
+
+    private ArgsValidation(char[] options, ArgsValidator[] validators, Executor executor, Duration deadline) {
+        this.options = options;
+        this.validators = validators;
+        this.executor = executor;
+        this.deadline = deadline;
+    }
+
+    public static ArgsValidation none() {
+        return NONE;
+    }
+
+    // An option may have several validators; each one is a check of its own.
+    public ArgsValidation with(char option, ArgsValidator validator) {
+        char[] moreOptions = Arrays.copyOf(options, options.length + 1);
+        ArgsValidator[] moreValidators = Arrays.copyOf(validators, validators.length + 1);
+        moreOptions[options.length] = option;
+        moreValidators[validators.length] = validator;
+        return new ArgsValidation(moreOptions, moreValidators, executor, deadline);
+    }
+
+    public ArgsValidation withExecutor(Executor executor) {
+        return new ArgsValidation(options, validators, executor, deadline);
+    }
+
+    // How long a parse waits for its checks, counted from the moment they are started.
+    public ArgsValidation withDeadline(Duration deadline) {
+        if (deadline.isNegative()) {
+            throw new IllegalArgumentException("Negative deadline: " + deadline);
+        }
+        return new ArgsValidation(options, validators, executor, deadline);
+    }
+
+    boolean isEmpty() {
+        return options.length == 0;
+    }
+
+    void validate(ParsedArgs parsed) {
+        List<Check> checks = new ArrayList<Check>();
+        for (int i = 0; i < options.length; i++) {
+            if (parsed.has(options[i])) {
+                checks.add(new Check(options[i], validators[i], parsed.getValue(options[i])));
+            }
+        }
+        if (checks.isEmpty()) {
+            return;
+        }
+        Executor runner = executor == null ? DefaultExecutor.INSTANCE : executor;
+        long end = System.nanoTime() + deadline.toNanos();
+        for (Check check : checks) {
+            check.start(runner);
+        }
+        Failures failures = new Failures();
+        for (Check check : checks) {
+            check.await(end, failures);
+        }
+        failures.report(parsed);
+    }
+
+    private static final class Check {
+        private final char option;
+        private final Object value;
+        private final FutureTask<String> task;
+        // Set when the executor would not take the check, which then fails without running.
+        private boolean rejected;
+
+        Check(char option, ArgsValidator validator, Object value) {
+            this.option = option;
+            this.value = value;
+            this.task = new FutureTask<String>(() -> validator.check(value));
+        }
+
+        void start(Executor runner) {
+            try {
+                runner.execute(task);
+            } catch (RejectedExecutionException e) {
+                rejected = true;
+            }
+        }
+
+        void await(long end, Failures failures) {
+            if (rejected) {
+                failures.add(ErrorCode.VALIDATION_FAILED, this, "rejected by the executor");
+                return;
+            }
+            try {
+                String failure = task.get(Math.max(0L, end - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (failure != null) {
+                    failures.add(ErrorCode.VALIDATION_FAILED, this, failure);
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                failures.add(ErrorCode.VALIDATION_FAILED, this,
+                        cause.getMessage() == null ? cause.toString() : cause.getMessage());
+            } catch (TimeoutException | CancellationException e) {
+                task.cancel(true);
+                failures.add(ErrorCode.VALIDATION_TIMED_OUT, this, "timed out");
+            } catch (InterruptedException e) {
+                task.cancel(true);
+                Thread.currentThread().interrupt();
+                failures.add(ErrorCode.VALIDATION_TIMED_OUT, this, "interrupted");
+            }
+        }
+    }
+
+    private static final class Failures {
+        private final StringBuilder details = new StringBuilder();
+        private Check first;
+        private boolean checkFailed;
+
+        void add(ErrorCode errorCode, Check check, String failure) {
+            if (first == null) {
+                first = check;
+            } else {
+                details.append("; ");
+            }
+            checkFailed |= errorCode == ErrorCode.VALIDATION_FAILED;
+            details.append('-').append(check.option).append(": ").append(failure);
+        }
+
+        void report(ParsedArgs parsed) {
+            if (first != null) {
+                parsed.setValidationError(checkFailed ? ErrorCode.VALIDATION_FAILED : ErrorCode.VALIDATION_TIMED_OUT,
+                        first.option, textOf(first.value), details.toString());
+            }
+        }
+    }
+
+    private static String textOf(Object value) {
+        return value instanceof String[] ? String.join(" ", (String[]) value) : String.valueOf(value);
+    }
+
+    // Created on first use. Virtual threads are looked up reflectively, as the build targets a
+    // runtime that may not have them.
+    private static final class DefaultExecutor {
+        static final Executor INSTANCE = create();
+
+        private static Executor create() {
+            try {
+                return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                return Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, "args-validator");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+    }
+}
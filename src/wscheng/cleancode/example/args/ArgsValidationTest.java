@@ -0,0 +1,128 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ArgsValidationTest extends TestCase {
+    private static final int CHECKS = 20;
+    private static final long CHECK_MILLIS = 200;
+
+    private static ArgsValidator sleeping(long millis) {
+        return value -> {
+            Thread.sleep(millis);
+            return null;
+        };
+    }
+
+    public void testChecksRunConcurrently() throws Exception {
+        StringBuilder schema = new StringBuilder();
+        ArgsValidation validation = ArgsValidation.none();
+        String[] args = new String[2 * CHECKS];
+        for (int i = 0; i < CHECKS; i++) {
+            char option = (char) ('a' + i);
+            schema.append(option).append("*,");
+            validation = validation.with(option, sleeping(CHECK_MILLIS));
+            args[2 * i] = "-" + option;
+            args[2 * i + 1] = "value";
+        }
+        ArgsSchema validating = ArgsSchema.compile(schema.toString()).withValidation(validation);
+        long start = System.nanoTime();
+        ParsedArgs parsed = validating.parse(args);
+        long millis = (System.nanoTime() - start) / 1000000;
+        assertEquals(true, parsed.isValid());
+        assertTrue(millis + "ms", millis < CHECKS * CHECK_MILLIS / 4);
+    }
+
+    public void testFailuresAreAggregated() throws Exception {
+        ArgsValidation validation = ArgsValidation.none()
+                .with('i', ArgsValidator.existingPath())
+                .with('o', value -> "never accepted")
+                .with('n', value -> {
+                    throw new IllegalStateException("broken check");
+                })
+                .with('s', value -> null);
+        ArgsSchema schema = ArgsSchema.compile("i*,o*,n#,s*").withValidation(validation);
+        ParsedArgs parsed = schema.parse(new String[] {"-i", "/no/such/path", "-o", "x", "-n", "1", "-s", "y"});
+        assertEquals(false, parsed.isValid());
+        assertEquals(ErrorCode.VALIDATION_FAILED, parsed.errorCode());
+        assertEquals('i', parsed.errorArgument());
+        assertEquals("/no/such/path", parsed.errorParameter());
+        assertEquals(-1, parsed.errorPosition());
+        assertEquals("Validation failed: -i: no such file or directory: /no/such/path; -o: never accepted; "
+                + "-n: broken check.", parsed.errorMessage());
+        assertEquals(true, schema.parse(new String[] {"-s", "y"}).isValid());
+    }
+
+    public void testDeadline() throws Exception {
+        ArgsValidation validation = ArgsValidation.none()
+                .with('s', sleeping(60000))
+                .withDeadline(Duration.ofMillis(50));
+        ArgsSchema schema = ArgsSchema.compile("s*").withValidation(validation);
+        long start = System.nanoTime();
+        ParsedArgs parsed = schema.parse(new String[] {"-s", "slow"});
+        assertTrue((System.nanoTime() - start) / 1000000 < 10000);
+        assertEquals(ErrorCode.VALIDATION_TIMED_OUT, parsed.errorCode());
+        assertEquals("Validation failed: -s: timed out.", parsed.errorMessage());
+    }
+
+    public void testRejectedCheckFails() throws Exception {
+        ExecutorService stopped = Executors.newSingleThreadExecutor();
+        stopped.shutdown();
+        ArgsValidation validation = ArgsValidation.none()
+                .with('o', value -> "never accepted")
+                .with('s', value -> null)
+                .withExecutor(stopped);
+        ArgsSchema schema = ArgsSchema.compile("o*,s*").withValidation(validation);
+        ParsedArgs parsed = schema.parse(new String[] {"-s", "y", "-o", "x"});
+        assertEquals(ErrorCode.VALIDATION_FAILED, parsed.errorCode());
+        assertEquals('o', parsed.errorArgument());
+        assertEquals("Validation failed: -o: rejected by the executor; -s: rejected by the executor.",
+                parsed.errorMessage());
+    }
+
+    public void testInvalidCommandLineIsNotValidated() throws Exception {
+        AtomicInteger checks = new AtomicInteger();
+        Executor counting = command -> {
+            checks.incrementAndGet();
+            command.run();
+        };
+        ArgsValidation validation = ArgsValidation.none().with('n', value -> null).withExecutor(counting);
+        ArgsSchema schema = ArgsSchema.compile("n#,b").withValidation(validation);
+        assertEquals(ErrorCode.INVALID_INTEGER, schema.parse(new String[] {"-n", "x"}).errorCode());
+        assertEquals(0, checks.get());
+        assertEquals(true, schema.parse(new String[] {"-b"}).isValid());
+        assertEquals(0, checks.get());
+        assertEquals(true, schema.parse(new String[] {"-n", "5"}).isValid());
+        assertEquals(1, checks.get());
+    }
+
+    public void testBuiltInValidators() throws Exception {
+        File file = File.createTempFile("args", ".txt");
+        try (ServerSocket taken = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            assertEquals(null, ArgsValidator.existingPath().check(file.getPath()));
+            assertEquals(null, ArgsValidator.readableFile().check(new String[] {file.getPath()}));
+            assertEquals("not a readable file: " + file.getParent(),
+                    ArgsValidator.readableFile().check(file.getParent()));
+            assertEquals("port " + taken.getLocalPort() + " is not free",
+                    ArgsValidator.freeLocalPort().check(taken.getLocalPort()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testValidationErrorsSurviveEncoding() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("s*")
+                .withValidation(ArgsValidation.none().with('s', value -> "rejected"));
+        ParsedArgs decoded = ArgsCodec.read(schema, ArgsCodec.encode(schema.parse(new String[] {"-s", "v"})));
+        assertEquals(ErrorCode.VALIDATION_FAILED, decoded.errorCode());
+        assertEquals("Validation failed: -s: rejected.", decoded.errorMessage());
+    }
+}
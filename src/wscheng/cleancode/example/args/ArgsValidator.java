@@ -0,0 +1,54 @@
+package wscheng.cleancode.example.args;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Function;
+
+// A check of an option value that is too slow to make while parsing, typically because it
+// asks the file system or the network. ArgsValidation runs the checks of a parse concurrently.
+// check() may block and may throw; a thrown exception counts as a failure, reported with its
+// message. A check that outlives the deadline is interrupted.
+public interface ArgsValidator {
+    // Returns null when value passes, otherwise why it does not. value is what getValue()
+    // returns for the option, so a String for a string option and a String[] for a string array.
+    String check(Object value) throws Exception;
+
+    static ArgsValidator existingPath() {
+        return value -> firstFailure(value, path -> Files.exists(path) ? null : "no such file or directory: " + path);
+    }
+
+    static ArgsValidator readableFile() {
+        return value -> firstFailure(value, path -> Files.isRegularFile(path) && Files.isReadable(path)
+                ? null : "not a readable file: " + path);
+    }
+
+    // For an int option: the port can be bound on the loopback address right now.
+    static ArgsValidator freeLocalPort() {
+        return value -> {
+            int port = (Integer) value;
+            try {
+                new ServerSocket(port, 1, InetAddress.getLoopbackAddress()).close();
+                return null;
+            } catch (IOException e) {
+                return "port " + port + " is not free";
+            }
+        };
+    }
+
+    private static String firstFailure(Object value, Function<Path, String> check) {
+        if (value instanceof String[]) {
+            for (String path : (String[]) value) {
+                String failure = check.apply(Paths.get(path));
+                if (failure != null) {
+                    return failure;
+                }
+            }
+            return null;
+        }
+        return check.apply(Paths.get(value.toString()));
+    }
+}
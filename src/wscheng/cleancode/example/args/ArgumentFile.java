@@ -0,0 +1,216 @@
+package wscheng.cleancode.example.args;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Reads the arguments of an @file one at a time from a memory-mapped window that slides over
+// the file, so heap usage does not depend on the size of the file. Arguments are separated by
+// whitespace and quoted the way CommandLineTokenizer quotes them; the file is read as UTF-8.
+//
+// next() hands out a CharSequence that is only valid until the following call. A plain ASCII
+// argument is a view straight onto the mapped bytes; one with quotes, escapes or non-ASCII
+// characters is decoded into a reused buffer. Either way no String exists until toString().
+final class ArgumentFile implements Closeable {
+    static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int windowSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private final ByteView view = new ByteView();
+    private final StringBuilder decoded = new StringBuilder();
+
+    ArgumentFile(Path path) throws IOException {
+        this(path, DEFAULT_WINDOW_SIZE);
+    }
+
+    ArgumentFile(Path path, int windowSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowSize = windowSize;
+    }
+
+    // Returns null once the file is exhausted.
+    CharSequence next() throws IOException {
+        skipWhitespace();
+        if (position >= size) {
+            return null;
+        }
+        long start = position;
+        while (position < size) {
+            int b = byteAt(position);
+            if (isWhitespace(b)) {
+                break;
+            }
+            if (b == '\'' || b == '"' || b == '\\' || b >= 0x80) {
+                position = start;
+                return decode();
+            }
+            position++;
+        }
+        return viewOf(start, (int) (position - start));
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (position < size && isWhitespace(byteAt(position))) {
+            position++;
+        }
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f' || b == 0x0B;
+    }
+
+    private CharSequence viewOf(long start, int length) throws IOException {
+        if (length > windowSize) {
+            position = start;
+            return decode();
+        }
+        if (start < windowStart || start + length > windowStart + window.limit()) {
+            map(start);
+        }
+        view.reset(window, (int) (start - windowStart), length);
+        return view;
+    }
+
+    // The slow path: quotes, escapes and multi-byte characters.
+    private CharSequence decode() throws IOException {
+        decoded.setLength(0);
+        while (position < size) {
+            int b = byteAt(position);
+            if (isWhitespace(b)) {
+                break;
+            }
+            position++;
+            if (b == '\'') {
+                decodeQuoted('\'');
+            } else if (b == '"') {
+                decodeQuoted('"');
+            } else if (b == '\\') {
+                if (position < size) {
+                    decodeChar(byteAt(position++));
+                }
+            } else {
+                decodeChar(b);
+            }
+        }
+        return decoded;
+    }
+
+    private void decodeQuoted(char quote) throws IOException {
+        while (position < size) {
+            int b = byteAt(position++);
+            if (b == quote) {
+                return;
+            }
+            if (quote == '"' && b == '\\' && position < size && isEscapableInDoubleQuotes(byteAt(position))) {
+                b = byteAt(position++);
+            }
+            decodeChar(b);
+        }
+        throw new IOException("Unterminated " + quote + " in argument file");
+    }
+
+    private static boolean isEscapableInDoubleQuotes(int b) {
+        return b == '"' || b == '\\' || b == '$' || b == '`';
+    }
+
+    // Decodes the UTF-8 sequence that starts with lead; malformed input becomes U+FFFD.
+    private void decodeChar(int lead) throws IOException {
+        if (lead < 0x80) {
+            decoded.append((char) lead);
+            return;
+        }
+        int continuations;
+        int codePoint;
+        if ((lead & 0xE0) == 0xC0) {
+            continuations = 1;
+            codePoint = lead & 0x1F;
+        } else if ((lead & 0xF0) == 0xE0) {
+            continuations = 2;
+            codePoint = lead & 0x0F;
+        } else if ((lead & 0xF8) == 0xF0) {
+            continuations = 3;
+            codePoint = lead & 0x07;
+        } else {
+            decoded.append('\uFFFD');
+            return;
+        }
+        for (int i = 0; i < continuations; i++) {
+            if (position >= size || (byteAt(position) & 0xC0) != 0x80) {
+                decoded.append('\uFFFD');
+                return;
+            }
+            codePoint = (codePoint << 6) | (byteAt(position++) & 0x3F);
+        }
+        if (Character.isValidCodePoint(codePoint)) {
+            decoded.appendCodePoint(codePoint);
+        } else {
+            decoded.append('\uFFFD');
+        }
+    }
+
+    private int byteAt(long at) throws IOException {
+        if (window == null || at < windowStart || at >= windowStart + window.limit()) {
+            map(at);
+        }
+        return window.get((int) (at - windowStart)) & 0xFF;
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+    }
+
+    // An ASCII-only CharSequence over part of the mapped window.
+    private static final class ByteView implements CharSequence {
+        private MappedByteBuffer bytes;
+        private int offset;
+        private int length;
+
+        void reset(MappedByteBuffer bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+            }
+            return (char) bytes.get(offset + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) bytes.get(offset + i);
+            }
+            return new String(chars);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class ArgumentFileTest extends TestCase {
+    private ArgsSchema schema;
+    private Path file;
+
+    @Override
+    protected void setUp() throws Exception {
+        schema = ArgsSchema.compile("b,c,s*,n#").withArgumentFiles(true);
+        file = File.createTempFile("args", ".txt").toPath();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    public void testArgumentFileIsExpandedInPlace() throws Exception {
+        write("-b\n-s 'two words'\n  -n 42\n");
+        ParsedArgs parsed = schema.parse(new String[] {"@" + file, "-c"});
+        assertEquals(true, parsed.isValid());
+        assertEquals(true, parsed.getBoolean('b'));
+        assertEquals(true, parsed.getBoolean('c'));
+        assertEquals("two words", parsed.getString('s'));
+        assertEquals(42, parsed.getInt('n'));
+        assertEquals(4, parsed.cardinality());
+    }
+
+    public void testParameterMayFollowTheFile() throws Exception {
+        write("-b -s");
+        ParsedArgs parsed = schema.parse(new String[] {"@" + file, "after"});
+        assertEquals("after", parsed.getString('s'));
+    }
+
+    public void testParametersAreNotExpanded() throws Exception {
+        ParsedArgs parsed = schema.parse(new String[] {"-s", "@" + file});
+        assertEquals("@" + file, parsed.getString('s'));
+    }
+
+    public void testArgumentFilesAreOffByDefault() throws Exception {
+        write("-b");
+        ParsedArgs parsed = ArgsSchema.compile("b").parse(new String[] {"@" + file});
+        assertEquals(false, parsed.getBoolean('b'));
+        assertEquals(true, parsed.isValid());
+    }
+
+    public void testMissingArgumentFile() throws Exception {
+        Files.delete(file);
+        ParsedArgs parsed = schema.parse(new String[] {"-b", "@" + file, "-c"});
+        assertEquals(false, parsed.isValid());
+        assertEquals(true, parsed.getBoolean('c'));
+        assertEquals(ErrorCode.INVALID_ARGUMENT_FILE, parsed.errorCode());
+        assertEquals("Could not read argument file " + file + ".", parsed.errorMessage());
+    }
+
+    public void testErrorPositionCountsExpandedArguments() throws Exception {
+        write("-b -c");
+        ParsedArgs parsed = schema.parse(new String[] {"@" + file, "-n", "x"});
+        assertEquals(ErrorCode.INVALID_INTEGER, parsed.errorCode());
+        assertEquals(3, parsed.errorPosition());
+    }
+
+    public void testSlidingWindowMatchesTokenizer() throws Exception {
+        Random random = new Random(42);
+        String[] words = {"-b", "plain", "'single quoted'", "\"double \\\"quoted\\\"\"", "back\\ slash",
+                "café", "€100", "😀smile", "-n", "123456"};
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            content.append(words[random.nextInt(words.length)]).append(random.nextBoolean() ? " " : "\n\t");
+        }
+        write(content.toString());
+        List<String> expected = Arrays.asList(CommandLineTokenizer.tokenize(content));
+        for (int windowSize : new int[] {64, 1000, 4096, ArgumentFile.DEFAULT_WINDOW_SIZE}) {
+            assertEquals("window " + windowSize, expected, readAll(windowSize));
+        }
+    }
+
+    public void testArgumentLongerThanWindow() throws Exception {
+        char[] chars = new char[10000];
+        Arrays.fill(chars, 'x');
+        String longArgument = new String(chars);
+        write("-s " + longArgument + " -b");
+        assertEquals(Arrays.asList("-s", longArgument, "-b"), readAll(256));
+    }
+
+    public void testLargeGeneratedFile() throws Exception {
+        long lines = 400000;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (long i = 0; i < lines; i++) {
+                writer.write("-b -n ");
+                writer.write(Long.toString(i % 1000));
+                writer.write(" -s value-");
+                writer.write(Long.toString(i));
+                writer.write('\n');
+            }
+        }
+        ParsedArgs parsed = schema.parse(new String[] {"@" + file});
+        assertEquals(true, parsed.isValid());
+        assertEquals((lines - 1) % 1000, parsed.getInt('n'));
+        assertEquals("value-" + (lines - 1), parsed.getString('s'));
+        assertEquals(3, parsed.cardinality());
+    }
+
+    private List<String> readAll(int windowSize) throws IOException {
+        List<String> args = new ArrayList<String>();
+        try (ArgumentFile argumentFile = new ArgumentFile(file, windowSize)) {
+            CharSequence arg;
+            while ((arg = argumentFile.next()) != null) {
+                args.add(arg.toString());
+            }
+        }
+        return args;
+    }
+
+    private void write(String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
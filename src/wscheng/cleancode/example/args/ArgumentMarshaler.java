@@ -0,0 +1,85 @@
+package wscheng.cleancode.example.args;
+
+import java.time.Duration;
+
+// Marshalers hold no values, so a compiled schema can share them between parses and threads.
+// Each one writes into, and reads back from, the slot columns of a ParsedArgs.
+// Errors are returned as an ErrorCode instead of thrown, so that malformed input stays cheap.
+//
+// New types extend this class and are registered with a MarshalerRegistry under the schema
+// tail that declares them. They store their value with the protected helpers below, in their
+// own slot only, and should report MISSING_VALUE and INVALID_VALUE unless a code fits better.
+public abstract class ArgumentMarshaler {
+    public abstract boolean hasParameter();
+
+    // Only asked when hasParameter() is true and the argument list ran out.
+    public abstract ErrorCode missingParameterCode();
+
+    // parameter may be a reused buffer; copy it with toString() if it has to be kept.
+    public abstract ErrorCode set(ParsedArgs values, int slot, CharSequence parameter);
+
+    public ValueType valueType() {
+        return ValueType.OBJECT;
+    }
+
+    public boolean getBoolean(ParsedArgs values, int slot) {
+        return false;
+    }
+
+    public String getString(ParsedArgs values, int slot) {
+        return "";
+    }
+
+    public int getInt(ParsedArgs values, int slot) {
+        return 0;
+    }
+
+    public long getLong(ParsedArgs values, int slot) {
+        return 0L;
+    }
+
+    public double getDouble(ParsedArgs values, int slot) {
+        return 0.0;
+    }
+
+    public String[] getStringArray(ParsedArgs values, int slot) {
+        return new String[0];
+    }
+
+    public Duration getDuration(ParsedArgs values, int slot) {
+        return Duration.ZERO;
+    }
+
+    // The value as an object, boxed if need be; null when there is none.
+    public Object getValue(ParsedArgs values, int slot) {
+        return object(values, slot);
+    }
+
+    // The text ArgsCodec writes for a value this marshaler stored with setObject(); set() has to
+    // take it back and store an equal value. null, the default, means the value cannot travel,
+    // and ArgsCodec refuses to encode a parse that holds one.
+    public String encode(ParsedArgs values, int slot) {
+        return null;
+    }
+
+    protected static void setObject(ParsedArgs values, int slot, Object value) {
+        values.setObject(slot, value);
+    }
+
+    protected static Object object(ParsedArgs values, int slot) {
+        return values.object(slot);
+    }
+
+    protected static void setPrimitive(ParsedArgs values, int slot, long value) {
+        values.setPrimitive(slot, value);
+    }
+
+    protected static long primitive(ParsedArgs values, int slot) {
+        return values.primitive(slot);
+    }
+
+    // A slot counts as found once set() has returned OK for it.
+    protected static boolean isFound(ParsedArgs values, int slot) {
+        return values.isFound(slot);
+    }
+}
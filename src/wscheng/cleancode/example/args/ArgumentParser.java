@@ -0,0 +1,346 @@
+package wscheng.cleancode.example.args;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+// Holds the state of a parse, so the compiled schema itself never changes.
+// Errors are found with bounds checks and recorded in the result; nothing is thrown.
+// A parser writes every parse into the same ParsedArgs, which the batch API relies on.
+//
+// Arguments are pushed in one at a time, so the parser is a small state machine: an option
+// that takes a parameter leaves it waiting for the next argument, together with whatever is
+// left of its cluster, as in -sn for -s text -n 5. parse() pushes a whole array;
+// IncrementalArgsParser pushes arguments as they arrive. Both end up in the same states.
+class ArgumentParser {
+    private final ArgsSchema schema;
+    private final ParsedArgs result;
+    // The schema's own parser when parsing is specialized, otherwise null.
+    private final SlotDispatcher dispatcher;
+    // Position of the last argument taken, counted over the argument list with @files expanded.
+    private int currentArgument;
+    // Set by --: whatever follows is left alone, even if it starts with - or @.
+    private boolean optionsEnded;
+    // Set once a FAIL_FAST parse has failed; the arguments after that are ignored.
+    private boolean stopped;
+    // The clustered argument being worked through, and the index of its next element.
+    private CharSequence cluster;
+    private int clusterIndex;
+    // The slot waiting for its parameter in the next argument, or -1.
+    private int awaitedSlot = -1;
+    private boolean deferAwaitedValue;
+    // The slots the command line named, which keep their fallbacks out; null without fallbacks.
+    private final long[] givenSlots;
+    private ArgumentFile argumentFile;
+    private String argumentFilePath;
+    // Arguments read from an @file are copied here, as the file reuses its buffer for the next one.
+    private final StringBuilder fileArgument = new StringBuilder();
+
+    ArgumentParser(ArgsSchema schema, ParsedArgs result) {
+        this.schema = schema;
+        this.result = result;
+        this.dispatcher = schema.dispatcher();
+        this.givenSlots = schema.hasFallbacks() ? new long[(schema.size() + 63) >>> 6] : null;
+    }
+
+    ParsedArgs parse(String[] args) {
+        parse(args, 0, args.length, null);
+        return result;
+    }
+
+    // Parses args[from, to) where they are. When isCommand is given, the parse ends early at the
+    // first argument it accepts in a place where an option could start, and returns its index;
+    // otherwise it returns to. Positions count from the start of args.
+    int parse(String[] args, int from, int to, Predicate<String> isCommand) {
+        ArgsListener listener = schema.listener();
+        if (listener == ArgsListener.NONE) {
+            return parseUntimed(args, from, to, isCommand);
+        }
+        long start = System.nanoTime();
+        int end = parseUntimed(args, from, to, isCommand);
+        listener.argumentsParsed(result, System.nanoTime() - start);
+        return end;
+    }
+
+    private int parseUntimed(String[] args, int from, int to, Predicate<String> isCommand) {
+        start(from);
+        try {
+            int i = from;
+            for (; i < to && !stopped; i++) {
+                if (isCommand != null && awaitedSlot < 0 && !optionsEnded && isCommand.test(args[i])) {
+                    break;
+                }
+                feed(args[i]);
+            }
+            finish();
+            return stopped ? to : i;
+        } finally {
+            closeArgumentFile();
+        }
+    }
+
+    void start() {
+        start(0);
+    }
+
+    private void start(int firstPosition) {
+        currentArgument = firstPosition - 1;
+        optionsEnded = false;
+        stopped = false;
+        cluster = null;
+        awaitedSlot = -1;
+        if (givenSlots != null) {
+            Arrays.fill(givenSlots, 0L);
+        }
+        result.clear();
+    }
+
+    void feed(String arg) {
+        if (stopped) {
+            return;
+        }
+        if (awaitedSlot < 0 && isArgumentFile(arg)) {
+            expandArgumentFile(arg.substring(1));
+            return;
+        }
+        currentArgument++;
+        accept(arg);
+    }
+
+    // An option still waiting for its parameter now knows it will not get one.
+    ParsedArgs finish() {
+        if (awaitedSlot >= 0 && !stopped) {
+            ArgumentMarshaler m = schema.marshalerAt(awaitedSlot);
+            result.setError(m.missingParameterCode(), schema.idOf(awaitedSlot), null, currentArgument + 1);
+        }
+        awaitedSlot = -1;
+        cluster = null;
+        if (givenSlots != null) {
+            schema.fallbacks().fill(result, givenSlots);
+        }
+        if (schema.hasValidation() && result.isValid()) {
+            schema.validation().validate(result);
+        }
+        return result;
+    }
+
+    // -1 when no option is waiting for a parameter.
+    int awaitedSlot() {
+        return awaitedSlot;
+    }
+
+    private void accept(CharSequence arg) {
+        boolean succeeded = awaitedSlot >= 0 ? parseParameter(arg) : parseArgument(arg);
+        if (!succeeded && schema.errorPolicy() == ErrorPolicy.FAIL_FAST) {
+            stopped = true;
+        }
+    }
+
+    // Parameters are never expanded: -s @name sets s to "@name".
+    private boolean parseParameter(CharSequence parameter) {
+        int slot = awaitedSlot;
+        awaitedSlot = -1;
+        if (!setValue(schema.idOf(slot), slot, schema.marshalerAt(slot), parameter, deferAwaitedValue)) {
+            cluster = null;
+            return false;
+        }
+        return cluster == null || parseElements();
+    }
+
+    private boolean isArgumentFile(String arg) {
+        return schema.expandsArgumentFiles() && !optionsEnded && arg.startsWith("@");
+    }
+
+    // The arguments of the file are taken as if they had been given in place of @path.
+    private void expandArgumentFile(String path) {
+        if (!openArgumentFile(path)) {
+            stopped = schema.errorPolicy() == ErrorPolicy.FAIL_FAST;
+            return;
+        }
+        try {
+            CharSequence arg;
+            while (!stopped && (arg = readArgumentFile()) != null) {
+                if (awaitedSlot >= 0) {
+                    accept(arg);
+                } else {
+                    fileArgument.setLength(0);
+                    fileArgument.append(arg);
+                    accept(fileArgument);
+                }
+            }
+        } finally {
+            closeArgumentFile();
+        }
+    }
+
+    private boolean openArgumentFile(String path) {
+        try {
+            argumentFile = new ArgumentFile(Paths.get(path));
+            argumentFilePath = path;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            result.setError(ErrorCode.INVALID_ARGUMENT_FILE, '@', path, currentArgument + 1);
+            return false;
+        }
+    }
+
+    private CharSequence readArgumentFile() {
+        try {
+            CharSequence arg = argumentFile.next();
+            if (arg != null) {
+                currentArgument++;
+                return arg;
+            }
+        } catch (IOException e) {
+            result.setError(ErrorCode.INVALID_ARGUMENT_FILE, '@', argumentFilePath, currentArgument + 1);
+        }
+        return null;
+    }
+
+    private void closeArgumentFile() {
+        if (argumentFile != null) {
+            try {
+                argumentFile.close();
+            } catch (IOException e) {
+                // Nothing was written, there is nothing to lose.
+            }
+            argumentFile = null;
+        }
+    }
+
+    private boolean parseArgument(CharSequence arg) {
+        if (optionsEnded) {
+            return true;
+        }
+        if (isLongOption(arg)) {
+            return parseLongOption(arg);
+        }
+        if (arg.length() > 0 && arg.charAt(0) == '-') {
+            cluster = arg;
+            clusterIndex = 1;
+            return parseElements();
+        }
+        return true;
+    }
+
+    private boolean isLongOption(CharSequence arg) {
+        return schema.hasLongOptions() && arg.length() >= 2 && arg.charAt(0) == '-' && arg.charAt(1) == '-';
+    }
+
+    // --name, --name=value or --name value; a lone -- ends the options.
+    private boolean parseLongOption(CharSequence arg) {
+        if (arg.length() == 2) {
+            optionsEnded = true;
+            return true;
+        }
+        int nameEnd = indexOf(arg, '=', 2);
+        int slot = schema.slotOfLongOption(arg, 2, nameEnd);
+        if (slot < 0) {
+            result.setError(ErrorCode.UNEXPECTED_ARGUMENT, '\0', arg.subSequence(0, nameEnd).toString(),
+                    currentArgument);
+            return false;
+        }
+        char argChar = schema.idOf(slot);
+        ArgumentMarshaler m = schema.marshalerAt(slot);
+        if (nameEnd < arg.length()) {
+            CharSequence parameter = arg.subSequence(nameEnd + 1, arg.length());
+            if (!hasParameter(slot, m)) {
+                result.setError(ErrorCode.INVALID_VALUE, argChar, parameter.toString(), currentArgument);
+                return false;
+            }
+            return setValue(argChar, slot, m, parameter, schema.defersValues());
+        }
+        if (hasParameter(slot, m)) {
+            awaitParameter(slot, schema.defersValues());
+            return true;
+        }
+        return setValue(argChar, slot, m, null, false);
+    }
+
+    private static int indexOf(CharSequence s, char c, int from) {
+        for (int i = from; i < s.length(); i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return s.length();
+    }
+
+    // Parses the cluster from clusterIndex on, until it ends or an element waits for its parameter.
+    // The rest of a clustered argument such as -bcd is skipped once one of its elements fails.
+    // Only the last element of an argument may defer its value: a failure anywhere else has to
+    // be known right away, as it decides whether the rest of the argument is parsed.
+    private boolean parseElements() {
+        int last = cluster.length() - 1;
+        while (clusterIndex <= last) {
+            int i = clusterIndex++;
+            if (!parseElement(cluster.charAt(i), i == last && schema.defersValues())) {
+                cluster = null;
+                return false;
+            }
+            if (awaitedSlot >= 0) {
+                return true;
+            }
+        }
+        cluster = null;
+        return true;
+    }
+
+    private boolean parseElement(char argChar, boolean deferValue) {
+        int slot = schema.slotOf(argChar);
+        if (slot < 0) {
+            result.addUnexpectedArgument(argChar);
+            return true;
+        }
+        ArgumentMarshaler m = schema.marshalerAt(slot);
+        if (hasParameter(slot, m)) {
+            awaitParameter(slot, deferValue);
+            return true;
+        }
+        return setValue(argChar, slot, m, null, deferValue);
+    }
+
+    private boolean hasParameter(int slot, ArgumentMarshaler m) {
+        return dispatcher == null ? m.hasParameter() : dispatcher.hasParameter(slot);
+    }
+
+    private void awaitParameter(int slot, boolean deferValue) {
+        markGiven(slot);
+        awaitedSlot = slot;
+        deferAwaitedValue = deferValue;
+    }
+
+    private boolean setValue(char argChar, int slot, ArgumentMarshaler m, CharSequence parameter,
+                             boolean deferValue) {
+        markGiven(slot);
+        if (deferValue && parameter != null) {
+            result.deferValue(slot, parameter.toString(), currentArgument);
+            return true;
+        }
+        if (schema.defersValues()) {
+            result.resolve(slot);
+        }
+        if (setArgument(argChar, slot, m, parameter)) {
+            result.markFound(slot);
+            return true;
+        }
+        return false;
+    }
+
+    private void markGiven(int slot) {
+        if (givenSlots != null) {
+            givenSlots[slot >>> 6] |= 1L << slot;
+        }
+    }
+
+    private boolean setArgument(char argChar, int slot, ArgumentMarshaler m, CharSequence parameter) {
+        ErrorCode errorCode = dispatcher == null ? m.set(result, slot, parameter)
+                : dispatcher.set(result, slot, parameter);
+        if (errorCode != ErrorCode.OK) {
+            result.setError(errorCode, argChar, parameter == null ? null : parameter.toString(), currentArgument);
+            return false;
+        }
+        return true;
+    }
+}
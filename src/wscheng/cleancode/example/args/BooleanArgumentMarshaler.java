@@ -0,0 +1,36 @@
+package wscheng.cleancode.example.args;
+
+class BooleanArgumentMarshaler extends ArgumentMarshaler {
+    static final BooleanArgumentMarshaler INSTANCE = new BooleanArgumentMarshaler();
+
+    @Override
+    public boolean hasParameter() {
+        return false;
+    }
+
+    @Override
+    public ErrorCode missingParameterCode() {
+        return ErrorCode.OK;
+    }
+
+    @Override
+    public ErrorCode set(ParsedArgs values, int slot, CharSequence parameter) {
+        // Nothing to store, a boolean is true exactly when its slot was found.
+        return ErrorCode.OK;
+    }
+
+    @Override
+    public ValueType valueType() {
+        return ValueType.BOOLEAN;
+    }
+
+    @Override
+    public boolean getBoolean(ParsedArgs values, int slot) {
+        return values.isFound(slot);
+    }
+
+    @Override
+    public Object getValue(ParsedArgs values, int slot) {
+        return getBoolean(values, slot);
+    }
+}
@@ -0,0 +1,55 @@
+package wscheng.cleancode.example.args;
+
+import java.util.Arrays;
+
+// Every error of a COLLECT_ALL parse, in the order they were found, kept in parallel arrays
+// rather than as an object per error.
+final class CollectedErrors {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int count;
+    private ErrorCode[] codes = new ErrorCode[INITIAL_CAPACITY];
+    private char[] arguments = new char[INITIAL_CAPACITY];
+    private String[] parameters = new String[INITIAL_CAPACITY];
+    private int[] positions = new int[INITIAL_CAPACITY];
+
+    void clear() {
+        Arrays.fill(parameters, 0, count, null);
+        count = 0;
+    }
+
+    void add(ErrorCode errorCode, char argument, String parameter, int position) {
+        if (count == codes.length) {
+            int capacity = count * 2;
+            codes = Arrays.copyOf(codes, capacity);
+            arguments = Arrays.copyOf(arguments, capacity);
+            parameters = Arrays.copyOf(parameters, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+        }
+        codes[count] = errorCode;
+        arguments[count] = argument;
+        parameters[count] = parameter;
+        positions[count] = position;
+        count++;
+    }
+
+    int size() {
+        return count;
+    }
+
+    ErrorCode code(int i) {
+        return codes[i];
+    }
+
+    char argument(int i) {
+        return arguments[i];
+    }
+
+    String parameter(int i) {
+        return parameters[i];
+    }
+
+    int position(int i) {
+        return positions[i];
+    }
+}
@@ -0,0 +1,83 @@
+package wscheng.cleancode.example.args;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Splits a command line into arguments the way a POSIX shell would, without expansions:
+// whitespace separates arguments, '...' is literal, "..." honours \" \\ \$ and \`, and a
+// backslash outside quotes escapes the next character.
+public final class CommandLineTokenizer {
+    private CommandLineTokenizer() {
+    }
+
+    public static String[] tokenize(CharSequence line) {
+        List<String> args = new ArrayList<String>();
+        StringBuilder arg = new StringBuilder();
+        boolean inArg = false;
+        int i = 0;
+        int length = line.length();
+        while (i < length) {
+            char c = line.charAt(i++);
+            if (c == '\'') {
+                int end = indexOf(line, '\'', i);
+                arg.append(line, i, end);
+                i = end + 1;
+                inArg = true;
+            } else if (c == '"') {
+                i = appendDoubleQuoted(line, i, arg);
+                inArg = true;
+            } else if (c == '\\') {
+                if (i < length) {
+                    arg.append(line.charAt(i++));
+                }
+                inArg = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inArg) {
+                    args.add(arg.toString());
+                    arg.setLength(0);
+                    inArg = false;
+                }
+            } else {
+                arg.append(c);
+                inArg = true;
+            }
+        }
+        if (inArg) {
+            args.add(arg.toString());
+        }
+        return args.toArray(new String[args.size()]);
+    }
+
+    // Returns the index just past the closing quote.
+    private static int appendDoubleQuoted(CharSequence line, int i, StringBuilder arg) {
+        int length = line.length();
+        while (i < length) {
+            char c = line.charAt(i++);
+            if (c == '"') {
+                return i;
+            }
+            if (c == '\\' && i < length && isEscapableInDoubleQuotes(line.charAt(i))) {
+                c = line.charAt(i++);
+            }
+            arg.append(c);
+        }
+        throw unterminated('"', line);
+    }
+
+    private static boolean isEscapableInDoubleQuotes(char c) {
+        return c == '"' || c == '\\' || c == '$' || c == '`';
+    }
+
+    private static int indexOf(CharSequence line, char quote, int from) {
+        for (int i = from; i < line.length(); i++) {
+            if (line.charAt(i) == quote) {
+                return i;
+            }
+        }
+        throw unterminated(quote, line);
+    }
+
+    private static IllegalArgumentException unterminated(char quote, CharSequence line) {
+        return new IllegalArgumentException("Unterminated " + quote + " in command line: " + line);
+    }
+}
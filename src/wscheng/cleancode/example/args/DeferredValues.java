@@ -0,0 +1,91 @@
+package wscheng.cleancode.example.args;
+
+import java.util.Arrays;
+
+// The values a lazy parse has only located: for every one, its slot, its parameter and its
+// position in the argument list, in argument order. A slot is converted the first time a
+// getter asks for it; resolveAll() converts the rest and reports their errors the way an
+// eager parse would have, the last one by position winning.
+final class DeferredValues {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int count;
+    private int[] slots;
+    private String[] parameters;
+    private int[] positions;
+    // null until converted.
+    private ErrorCode[] results;
+    private final long[] pendingSlots;
+    private boolean resolved;
+
+    // Room for one value per slot up front, which covers any command line without repeats.
+    DeferredValues(int size) {
+        int capacity = Math.max(INITIAL_CAPACITY, size);
+        slots = new int[capacity];
+        parameters = new String[capacity];
+        positions = new int[capacity];
+        results = new ErrorCode[capacity];
+        pendingSlots = new long[(size + 63) >>> 6];
+    }
+
+    void clear() {
+        Arrays.fill(parameters, 0, count, null);
+        Arrays.fill(results, 0, count, null);
+        Arrays.fill(pendingSlots, 0L);
+        count = 0;
+        resolved = false;
+    }
+
+    void add(int slot, String parameter, int position) {
+        if (count == slots.length) {
+            int capacity = count * 2;
+            slots = Arrays.copyOf(slots, capacity);
+            parameters = Arrays.copyOf(parameters, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            results = Arrays.copyOf(results, capacity);
+        }
+        slots[count] = slot;
+        parameters[count] = parameter;
+        positions[count] = position;
+        count++;
+        pendingSlots[slot >>> 6] |= 1L << slot;
+        resolved = false;
+    }
+
+    void resolve(ParsedArgs values, int slot) {
+        if ((pendingSlots[slot >>> 6] & (1L << slot)) == 0) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            if (slots[i] == slot && results[i] == null) {
+                convert(values, i);
+            }
+        }
+        pendingSlots[slot >>> 6] &= ~(1L << slot);
+    }
+
+    void resolveAll(ParsedArgs values) {
+        if (resolved) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            if (results[i] == null) {
+                convert(values, i);
+            }
+            if (results[i] != ErrorCode.OK && positions[i] > values.recordedErrorPosition()) {
+                values.setError(results[i], values.schema().idOf(slots[i]), parameters[i], positions[i]);
+            }
+        }
+        Arrays.fill(pendingSlots, 0L);
+        resolved = true;
+    }
+
+    // Occurrences of a slot are converted in argument order, so the last valid one wins.
+    private void convert(ParsedArgs values, int i) {
+        int slot = slots[i];
+        results[i] = values.schema().marshalerAt(slot).set(values, slot, parameters[i]);
+        if (results[i] == ErrorCode.OK) {
+            values.markFound(slot);
+        }
+    }
+}
@@ -0,0 +1,494 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Runs every way of parsing a command line over random schemas and argument vectors and checks
+// them against a plain ArgsSchema.parse(). A new fast path joins by adding an Implementation;
+// it then has to agree on every case. ImplementationBenchmark times the main ones.
+//
+// Every implementation runs on the same ArgumentParser, so a change there moves them all at
+// once. The engine is therefore also checked against OriginalArgs, a frozen copy of the Args
+// this project started from, on the schemas it understood.
+public class DifferentialArgsTest extends TestCase {
+    private static final long SEED = 24;
+    private static final int CASES = 3000;
+    private static final String IDS = "abcdefghijklmnopqrstuvwxyzXYZ";
+    private static final String[] TAILS = {"", "", "*", "#", "##", "##.", "[*]", "~"};
+    // What draftv1.Args knows; half the schemas use nothing else, so it is not just rejecting.
+    private static final String[] DRAFT_TAILS = {"", "*", "#"};
+    private static final String UNKNOWN_TAIL = "?";
+    private static final String[] LONG_NAMES = {"alpha", "beta", "gamma", "delta", "zeta", "theta"};
+    private static final String[] VALUES = {
+            "x", "5", "-7", "1.5", "99999999999", "99999999999999999999", "1e400", "3s", "500ms", "", "-", "--"
+    };
+
+    // How much of the reference outcome an implementation has to reproduce.
+    private enum Agreement {
+        // Everything.
+        EXACT,
+        // Everything but the error message, which lists every error instead of the last one.
+        ALL_BUT_MESSAGE,
+        // Whether the line is valid, and when it is, everything it can be asked; an invalid line
+        // may stop at its first error. draftv1.Args also words its messages its own way.
+        WHEN_VALID
+    }
+
+    private interface Runner {
+        // null when the implementation rejects the schema.
+        Outcome run(String schema, String[] args) throws Exception;
+    }
+
+    private static final class Implementation {
+        final String name;
+        final Agreement agreement;
+        final Runner runner;
+        // Rejects every schema with a type or a long name draftv1.Args did not know.
+        final boolean draftSchemasOnly;
+
+        Implementation(String name, Agreement agreement, Runner runner) {
+            this(name, agreement, runner, false);
+        }
+
+        Implementation(String name, Agreement agreement, Runner runner, boolean draftSchemasOnly) {
+            this.name = name;
+            this.agreement = agreement;
+            this.runner = runner;
+            this.draftSchemasOnly = draftSchemasOnly;
+        }
+    }
+
+    private static final List<Implementation> IMPLEMENTATIONS = Arrays.asList(
+            new Implementation("ArgsSchema.parse", Agreement.EXACT,
+                    (schema, args) -> outcomeOf(ArgsSchema.compile(schema).parse(args))),
+            new Implementation("Args", Agreement.EXACT,
+                    (schema, args) -> outcomeOf(new Args(schema, args), schema)),
+            new Implementation("specialized", Agreement.EXACT,
+                    (schema, args) -> outcomeOf(ArgsSchema.compile(schema).withSpecializedParsing(true).parse(args))),
+            new Implementation("lazy", Agreement.EXACT,
+                    (schema, args) -> outcomeOf(ArgsSchema.compile(schema).withLazyValues(true).parse(args))),
+            new Implementation("incremental", Agreement.EXACT, DifferentialArgsTest::parseIncrementally),
+            new Implementation("batch", Agreement.EXACT, DifferentialArgsTest::parseInBatch),
+            new Implementation("view", Agreement.EXACT, DifferentialArgsTest::parseView),
+            new Implementation("command", Agreement.EXACT,
+                    (schema, args) -> outcomeOf(ArgsCommand.of(schema).parse(args).args())),
+            new Implementation("codec", Agreement.EXACT, (schema, args) -> {
+                ArgsSchema compiled = ArgsSchema.compile(schema);
+                return outcomeOf(ArgsCodec.read(compiled, ArgsCodec.encode(compiled.parse(args))));
+            }),
+            new Implementation("COLLECT_ALL", Agreement.ALL_BUT_MESSAGE, (schema, args) -> outcomeOf(
+                    ArgsSchema.compile(schema).withErrorPolicy(ErrorPolicy.COLLECT_ALL).parse(args))),
+            new Implementation("FAIL_FAST", Agreement.WHEN_VALID, (schema, args) -> outcomeOf(
+                    ArgsSchema.compile(schema).withErrorPolicy(ErrorPolicy.FAIL_FAST).parse(args))),
+            new Implementation("draftv1.Args", Agreement.WHEN_VALID, DifferentialArgsTest::parseWithDraft, true));
+
+    private static final class Case {
+        final String schema;
+        final String[] args;
+        // Elements with an unknown tail, which only a strict schema rejects.
+        final boolean strictFails;
+        // Elements outside DRAFT_TAILS or with a long name.
+        final boolean draftFails;
+
+        Case(String schema, String[] args, boolean strictFails, boolean draftFails) {
+            this.schema = schema;
+            this.args = args;
+            this.strictFails = strictFails;
+            this.draftFails = draftFails;
+        }
+
+        boolean mayBeRejectedBy(Implementation implementation) {
+            return strictFails || implementation.draftSchemasOnly && draftFails;
+        }
+
+        @Override
+        public String toString() {
+            return "schema \"" + schema + "\", args " + Arrays.toString(args);
+        }
+    }
+
+    // Everything a caller can ask a parse, rendered so that a disagreement shows as a string diff.
+    private static final class Outcome {
+        final boolean valid;
+        final int cardinality;
+        // null when the implementation cannot tell.
+        final ErrorCode errorCode;
+        final String message;
+        // getBoolean, getString and getInt of every option; what draftv1.Args can tell.
+        final String typed;
+        // getValue of every option, or null when the implementation cannot tell.
+        final String values;
+
+        Outcome(boolean valid, int cardinality, ErrorCode errorCode, String message, String typed, String values) {
+            this.valid = valid;
+            this.cardinality = cardinality;
+            this.errorCode = errorCode;
+            this.message = message;
+            this.typed = typed;
+            this.values = values;
+        }
+
+        // Only what both this and other can tell goes in.
+        String describe(Agreement agreement, boolean referenceValid, Outcome other) {
+            StringBuilder description = new StringBuilder("valid=").append(valid);
+            if (agreement == Agreement.WHEN_VALID && !referenceValid) {
+                return description.toString();
+            }
+            description.append(" cardinality=").append(cardinality).append(" typed=").append(typed);
+            if (values != null && other.values != null) {
+                description.append(" values=").append(values);
+            }
+            if (errorCode != null && other.errorCode != null) {
+                description.append(" errorCode=").append(errorCode);
+            }
+            if (agreement == Agreement.EXACT) {
+                description.append(" message=").append(message);
+            }
+            return description.toString();
+        }
+    }
+
+    public void testImplementationsAgree() throws Exception {
+        List<Case> cases = generate(new Random(SEED));
+        for (Case c : cases) {
+            Outcome reference = outcomeOf(ArgsSchema.compile(c.schema).parse(c.args));
+            for (Implementation implementation : IMPLEMENTATIONS) {
+                Outcome outcome = implementation.runner.run(c.schema, c.args);
+                String message = implementation.name + " on " + c;
+                if (outcome == null) {
+                    assertTrue(message + " rejected the schema", c.mayBeRejectedBy(implementation));
+                    continue;
+                }
+                assertFalse(message + " accepted the schema", implementation.draftSchemasOnly && c.draftFails);
+                assertEquals(message, reference.describe(implementation.agreement, reference.valid, outcome),
+                        outcome.describe(implementation.agreement, reference.valid, reference));
+            }
+        }
+    }
+
+    // The original only knew booleans, strings and integers, and no long names. Where the engine
+    // has since changed on purpose, the original's answer is translated: unexpected arguments
+    // now make a line invalid, and an int that does not fit reads as INTEGER_OVERFLOW.
+    public void testEngineAgreesWithTheOriginalArgs() throws Exception {
+        int compared = 0;
+        for (Case c : generate(new Random(SEED))) {
+            if (c.draftFails) {
+                continue;
+            }
+            ParsedArgs parsed = ArgsSchema.compile(c.schema).parse(c.args);
+            OriginalArgs original = new OriginalArgs(c.schema, c.args);
+            assertEquals(c.toString(), original.describe(), describeForOriginal(parsed));
+            compared++;
+        }
+        assertTrue(compared + " cases", compared > CASES / 3);
+    }
+
+    private static String describeForOriginal(ParsedArgs parsed) {
+        ErrorCode errorCode = parsed.errorCode() == ErrorCode.INTEGER_OVERFLOW
+                ? ErrorCode.INVALID_INTEGER : parsed.errorCode();
+        StringBuilder description = new StringBuilder("valid=").append(parsed.isValid())
+                .append(" cardinality=").append(parsed.cardinality())
+                .append(" unexpected=").append(parsed.unexpectedArguments())
+                .append(" errorCode=").append(errorCode)
+                .append(" errorArgument=").append(parsed.errorArgument());
+        if (errorCode == ErrorCode.INVALID_INTEGER) {
+            description.append(" errorParameter=").append(parsed.errorParameter());
+        }
+        for (char id : idsOf(parsed.schema().schema()).toCharArray()) {
+            description.append(' ').append(id).append('=').append(parsed.getBoolean(id)).append('|')
+                    .append(parsed.getString(id)).append('|').append(parsed.getInt(id));
+        }
+        return description.toString();
+    }
+
+    private static List<Case> generate(Random random) {
+        List<Case> cases = new ArrayList<Case>();
+        for (int i = 0; i < CASES; i++) {
+            StringBuilder schema = new StringBuilder();
+            StringBuilder ids = new StringBuilder();
+            List<String> longNames = new ArrayList<String>();
+            boolean strictFails = false;
+            boolean draftFails = false;
+            boolean draftOnly = random.nextBoolean();
+            int elements = random.nextInt(7);
+            for (int e = 0; e < elements; e++) {
+                char id = IDS.charAt(random.nextInt(IDS.length()));
+                if (ids.indexOf(String.valueOf(id)) >= 0) {
+                    continue;
+                }
+                ids.append(id);
+                schema.append(schema.length() == 0 ? "" : ",").append(id);
+                String longName = LONG_NAMES[random.nextInt(LONG_NAMES.length)];
+                if (!draftOnly && random.nextInt(3) == 0 && !longNames.contains(longName)) {
+                    longNames.add(longName);
+                    schema.append('|').append(longName);
+                    draftFails = true;
+                }
+                String tail;
+                if (random.nextInt(20) == 0) {
+                    tail = UNKNOWN_TAIL;
+                    strictFails = true;
+                } else if (draftOnly) {
+                    tail = DRAFT_TAILS[random.nextInt(DRAFT_TAILS.length)];
+                } else {
+                    tail = TAILS[random.nextInt(TAILS.length)];
+                }
+                schema.append(tail);
+                draftFails |= !Arrays.asList(DRAFT_TAILS).contains(tail);
+            }
+            cases.add(new Case(schema.toString(), arguments(random, ids.toString(), longNames), strictFails,
+                    draftFails));
+        }
+        return cases;
+    }
+
+    // Mostly options of the schema, some that are not, and values that fit some types and not others.
+    private static String[] arguments(Random random, String ids, List<String> longNames) {
+        String[] args = new String[random.nextInt(8)];
+        for (int i = 0; i < args.length; i++) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    args[i] = VALUES[random.nextInt(VALUES.length)];
+                    break;
+                case 1:
+                    String name = longNames.isEmpty() || random.nextInt(4) == 0
+                            ? "nope" : longNames.get(random.nextInt(longNames.size()));
+                    args[i] = "--" + name + (random.nextBoolean() ? "" : "=" + VALUES[random.nextInt(VALUES.length)]);
+                    break;
+                default:
+                    StringBuilder cluster = new StringBuilder("-");
+                    for (int j = 1 + random.nextInt(2); j > 0; j--) {
+                        cluster.append(ids.isEmpty() || random.nextInt(6) == 0
+                                ? 'q' : ids.charAt(random.nextInt(ids.length())));
+                    }
+                    args[i] = cluster.toString();
+            }
+        }
+        return args;
+    }
+
+    private static Outcome parseIncrementally(String schema, String[] args) throws ParseException {
+        IncrementalArgsParser parser = new IncrementalArgsParser(ArgsSchema.compile(schema));
+        for (String arg : args) {
+            parser.feed(arg);
+        }
+        return outcomeOf(parser.finish());
+    }
+
+    // The row is reused, so it is read inside the sink; the vector is parsed after another one.
+    private static Outcome parseInBatch(String schema, String[] args) throws ParseException {
+        Outcome[] outcome = new Outcome[1];
+        new ArgsBatchParser(ArgsSchema.compile(schema)).parse(
+                Arrays.asList(new String[] {"-q", "x"}, args).iterator(), (row, parsed) -> outcome[0] = outcomeOf(parsed));
+        return outcome[0];
+    }
+
+    private static Outcome parseView(String schema, String[] args) throws ParseException {
+        String[] padded = new String[args.length + 2];
+        padded[0] = "-x";
+        System.arraycopy(args, 0, padded, 1, args.length);
+        padded[args.length + 1] = "-y";
+        return outcomeOf(ArgsSchema.compile(schema).parse(padded, 1, args.length));
+    }
+
+    private static Outcome parseWithDraft(String schema, String[] args) throws Exception {
+        wscheng.cleancode.example.args.draftv1.Args draft;
+        try {
+            draft = new wscheng.cleancode.example.args.draftv1.Args(schema, args);
+        } catch (ParseException e) {
+            return null;
+        }
+        StringBuilder typed = new StringBuilder();
+        for (char id : idsOf(schema).toCharArray()) {
+            typed.append(id).append('=').append(draft.getBoolean(id)).append('|').append(draft.getString(id))
+                    .append('|').append(draft.getInt(id)).append(' ');
+        }
+        return new Outcome(draft.isValid(), draft.cardinality(), null, null, typed.toString(), null);
+    }
+
+    private static Outcome outcomeOf(ParsedArgs parsed) {
+        String ids = idsOf(parsed.schema().schema());
+        StringBuilder typed = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        for (char id : ids.toCharArray()) {
+            String string = parsed.getString(id);
+            typed.append(id).append('=').append(parsed.getBoolean(id)).append('|')
+                    .append(string == null ? "" : string).append('|').append(parsed.getInt(id)).append(' ');
+            values.append(id).append('=').append(render(parsed.getValue(id))).append(' ');
+        }
+        return new Outcome(parsed.isValid(), parsed.cardinality(), parsed.errorCode(), messageOf(parsed),
+                typed.toString(), values.toString());
+    }
+
+    private static Outcome outcomeOf(Args args, String schema) {
+        StringBuilder typed = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        for (char id : idsOf(schema).toCharArray()) {
+            String string = args.getString(id);
+            typed.append(id).append('=').append(args.getBoolean(id)).append('|')
+                    .append(string == null ? "" : string).append('|').append(args.getInt(id)).append(' ');
+            values.append(id).append('=').append(render(args.getValue(id, Object.class))).append(' ');
+        }
+        String message;
+        try {
+            message = args.errorMessage();
+        } catch (Exception e) {
+            message = e.getMessage();
+        }
+        // Args does not expose the error code; the message stands for it.
+        return new Outcome(args.isValid(), args.cardinality(), null, message, typed.toString(), values.toString());
+    }
+
+    private static String messageOf(ParsedArgs parsed) {
+        try {
+            return parsed.errorMessage();
+        } catch (Exception e) {
+            return e.getMessage();
+        }
+    }
+
+    private static String render(Object value) {
+        return value instanceof String[] ? Arrays.toString((String[]) value) : String.valueOf(value);
+    }
+
+    // The first character of every element; enough for the schemas generate() writes.
+    private static String idsOf(String schema) {
+        StringBuilder ids = new StringBuilder();
+        for (String element : schema.split(",")) {
+            if (!element.isEmpty()) {
+                ids.append(element.charAt(0));
+            }
+        }
+        return ids.toString();
+    }
+
+    // Args as it was before ArgsSchema, kept apart from the engine on purpose: it shares no
+    // code with it and must not be changed to follow it. Only what describe() compares is kept.
+    private static final class OriginalArgs {
+        private final String schema;
+        private final String[] args;
+        private boolean valid = true;
+        private final Set<Character> unexpectedArguments = new TreeSet<Character>();
+        private final Map<Character, Boolean> booleanArgs = new HashMap<Character, Boolean>();
+        private final Map<Character, String> stringArgs = new HashMap<Character, String>();
+        private final Map<Character, Integer> intArgs = new HashMap<Character, Integer>();
+        private final Set<Character> argsFound = new HashSet<Character>();
+        private int currentArgument;
+        private char errorArgument = '\0';
+        private String errorParameter;
+        private ErrorCode errorCode = ErrorCode.OK;
+
+        OriginalArgs(String schema, String[] args) {
+            this.schema = schema;
+            this.args = args;
+            if (schema.length() > 0 || args.length > 0) {
+                parseSchema();
+                parseArguments();
+            }
+        }
+
+        private void parseSchema() {
+            for (String element : schema.split(",")) {
+                if (element.length() > 0) {
+                    parseSchemaElement(element.trim());
+                }
+            }
+        }
+
+        private void parseSchemaElement(String element) {
+            char elementId = element.charAt(0);
+            String elementTail = element.substring(1);
+            if (elementTail.length() == 0) {
+                booleanArgs.put(elementId, false);
+            } else if (elementTail.equals("*")) {
+                stringArgs.put(elementId, null);
+            } else if (elementTail.equals("#")) {
+                intArgs.put(elementId, 0);
+            }
+        }
+
+        private void parseArguments() {
+            for (currentArgument = 0; currentArgument < args.length; currentArgument++) {
+                String arg = args[currentArgument];
+                if (arg.startsWith("-")) {
+                    parseElements(arg);
+                }
+            }
+        }
+
+        private void parseElements(String arg) {
+            for (int i = 1; i < arg.length(); i++) {
+                if (!parseElement(arg.charAt(i))) {
+                    return;
+                }
+            }
+        }
+
+        // false when the element failed, which ends its argument.
+        private boolean parseElement(char argChar) {
+            if (booleanArgs.containsKey(argChar)) {
+                booleanArgs.put(argChar, true);
+            } else if (stringArgs.containsKey(argChar)) {
+                currentArgument++;
+                if (currentArgument >= args.length) {
+                    return fail(argChar, ErrorCode.MISSING_STRING);
+                }
+                stringArgs.put(argChar, args[currentArgument]);
+            } else if (intArgs.containsKey(argChar)) {
+                currentArgument++;
+                if (currentArgument >= args.length) {
+                    return fail(argChar, ErrorCode.MISSING_INTEGER);
+                }
+                try {
+                    intArgs.put(argChar, Integer.parseInt(args[currentArgument]));
+                } catch (NumberFormatException e) {
+                    errorParameter = args[currentArgument];
+                    return fail(argChar, ErrorCode.INVALID_INTEGER);
+                }
+            } else {
+                unexpectedArguments.add(argChar);
+                return true;
+            }
+            argsFound.add(argChar);
+            return true;
+        }
+
+        private boolean fail(char argChar, ErrorCode errorCode) {
+            valid = false;
+            errorArgument = argChar;
+            this.errorCode = errorCode;
+            return false;
+        }
+
+        String describe() {
+            StringBuilder unexpected = new StringBuilder();
+            for (char c : unexpectedArguments) {
+                unexpected.append(c);
+            }
+            StringBuilder description = new StringBuilder("valid=").append(valid && unexpectedArguments.isEmpty())
+                    .append(" cardinality=").append(argsFound.size())
+                    .append(" unexpected=").append(unexpected)
+                    .append(" errorCode=").append(errorCode)
+                    .append(" errorArgument=").append(errorArgument);
+            if (errorCode == ErrorCode.INVALID_INTEGER) {
+                description.append(" errorParameter=").append(errorParameter);
+            }
+            for (char id : idsOf(schema).toCharArray()) {
+                description.append(' ').append(id).append('=').append(Boolean.TRUE.equals(booleanArgs.get(id)))
+                        .append('|').append(stringArgs.containsKey(id) ? stringArgs.get(id) : "")
+                        .append('|').append(intArgs.containsKey(id) ? intArgs.get(id) : 0);
+            }
+            return description.toString();
+        }
+    }
+}
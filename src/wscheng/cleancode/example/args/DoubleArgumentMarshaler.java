@@ -0,0 +1,47 @@
+package wscheng.cleancode.example.args;
+
+class DoubleArgumentMarshaler extends ArgumentMarshaler {
+    static final DoubleArgumentMarshaler INSTANCE = new DoubleArgumentMarshaler();
+
+    @Override
+    public boolean hasParameter() {
+        return true;
+    }
+
+    @Override
+    public ErrorCode missingParameterCode() {
+        return ErrorCode.MISSING_DOUBLE;
+    }
+
+    @Override
+    public ErrorCode set(ParsedArgs values, int slot, CharSequence parameter) {
+        return setDouble(values, slot, parameter);
+    }
+
+    static ErrorCode setDouble(ParsedArgs values, int slot, CharSequence parameter) {
+        switch (NumberParser.parseDouble(parameter, 0, parameter.length(), values.primitiveColumn(), slot)) {
+            case OK:
+                return ErrorCode.OK;
+            case OVERFLOW:
+                return ErrorCode.DOUBLE_OVERFLOW;
+            default:
+                return ErrorCode.INVALID_DOUBLE;
+        }
+    }
+
+    @Override
+    public ValueType valueType() {
+        return ValueType.DOUBLE;
+    }
+
+    @Override
+    public double getDouble(ParsedArgs values, int slot) {
+        return Double.longBitsToDouble(values.primitive(slot));
+    }
+
+    // null when the argument was not given.
+    @Override
+    public Object getValue(ParsedArgs values, int slot) {
+        return values.isFound(slot) ? getDouble(values, slot) : null;
+    }
+}
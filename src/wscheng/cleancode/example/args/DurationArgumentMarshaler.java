@@ -0,0 +1,95 @@
+package wscheng.cleancode.example.args;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+
+// Declared as ~: a whole number followed by one of the units ns, us, ms, s, m, h and d, such
+// as 250ms or 2h, or an ISO-8601 duration such as PT1M30S. Stored as nanoseconds, so a
+// duration has to stay within about 292 years.
+class DurationArgumentMarshaler extends ArgumentMarshaler {
+    static final DurationArgumentMarshaler INSTANCE = new DurationArgumentMarshaler();
+
+    private static final String[] UNITS = {"ns", "us", "ms", "s", "m", "h", "d"};
+    private static final long[] NANOS_PER_UNIT = {
+            1L, 1000L, 1000000L, 1000000000L, 60000000000L, 3600000000000L, 86400000000000L
+    };
+
+    @Override
+    public boolean hasParameter() {
+        return true;
+    }
+
+    @Override
+    public ErrorCode missingParameterCode() {
+        return ErrorCode.MISSING_DURATION;
+    }
+
+    @Override
+    public ErrorCode set(ParsedArgs values, int slot, CharSequence parameter) {
+        if (parameter.length() > 0 && (parameter.charAt(0) == 'P' || parameter.charAt(0) == 'p')) {
+            return setIsoDuration(values, slot, parameter);
+        }
+        int digitsEnd = digitsEnd(parameter);
+        int unit = unitOf(parameter, digitsEnd);
+        if (unit < 0) {
+            return ErrorCode.INVALID_DURATION;
+        }
+        long limit = Long.MAX_VALUE / NANOS_PER_UNIT[unit];
+        if (NumberParser.parseLong(parameter, 0, digitsEnd, -limit, limit, values.primitiveColumn(), slot)
+                != NumberParser.Result.OK) {
+            return ErrorCode.INVALID_DURATION;
+        }
+        setPrimitive(values, slot, primitive(values, slot) * NANOS_PER_UNIT[unit]);
+        return ErrorCode.OK;
+    }
+
+    // The rare ISO form is left to java.time, which reports errors by throwing.
+    private ErrorCode setIsoDuration(ParsedArgs values, int slot, CharSequence parameter) {
+        try {
+            setPrimitive(values, slot, Duration.parse(parameter).toNanos());
+            return ErrorCode.OK;
+        } catch (DateTimeParseException | ArithmeticException e) {
+            return ErrorCode.INVALID_DURATION;
+        }
+    }
+
+    private static int digitsEnd(CharSequence parameter) {
+        int end = parameter.length();
+        while (end > 0 && Character.isLetter(parameter.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static int unitOf(CharSequence parameter, int unitStart) {
+        for (int unit = 0; unit < UNITS.length; unit++) {
+            if (isUnit(parameter, unitStart, UNITS[unit])) {
+                return unit;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isUnit(CharSequence parameter, int unitStart, String unit) {
+        if (parameter.length() - unitStart != unit.length()) {
+            return false;
+        }
+        for (int i = 0; i < unit.length(); i++) {
+            if (parameter.charAt(unitStart + i) != unit.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Duration getDuration(ParsedArgs values, int slot) {
+        return Duration.ofNanos(primitive(values, slot));
+    }
+
+    // null when the argument was not given.
+    @Override
+    public Object getValue(ParsedArgs values, int slot) {
+        return isFound(values, slot) ? getDuration(values, slot) : null;
+    }
+}
@@ -0,0 +1,147 @@
+package wscheng.cleancode.example.args;
+
+import java.nio.ByteBuffer;
+
+// Reads the values of an ArgsCodec encoding straight out of its buffer, which may be a
+// MappedByteBuffer shared by several processes: nothing is copied up front, a number is one
+// absolute get and a string is decoded when it is asked for. The getters answer as those of
+// the ParsedArgs that was encoded, except that getString() of a type that keeps its value in
+// the primitive column reads "", and that of any other object the text encode() gave for it.
+// toParsedArgs() gives the full ParsedArgs when that is needed.
+//
+// The buffer is only read with absolute gets, so one instance can be shared between threads
+// as long as nobody writes to the buffer.
+public final class EncodedArgs {
+    private final ArgsSchema schema;
+    private final ByteBuffer buffer;
+    private final int base;
+    private final int primitives;
+    private final int records;
+    private final int error;
+
+    // Wraps the encoding at the position of buffer; the position itself is left alone.
+    public EncodedArgs(ArgsSchema schema, ByteBuffer buffer) {
+        this.schema = schema;
+        this.buffer = buffer;
+        base = buffer.position();
+        ArgsCodec.checkHeader(schema, buffer, base);
+        int slots = schema.size();
+        primitives = base + ArgsCodec.primitivesOffset(slots);
+        records = base + ArgsCodec.recordsOffset(slots);
+        error = base + ArgsCodec.errorOffset(slots);
+    }
+
+    public ArgsSchema schema() {
+        return schema;
+    }
+
+    // Number of bytes the encoding takes up in the buffer.
+    public int length() {
+        return buffer.getInt(base + ArgsCodec.LENGTH_OFFSET);
+    }
+
+    public ParsedArgs toParsedArgs() {
+        return ArgsCodec.read(schema, buffer.duplicate().position(base));
+    }
+
+    private boolean isFound(int slot) {
+        return (buffer.getLong(base + ArgsCodec.FOUND_OFFSET + 8 * (slot >>> 6)) & (1L << slot)) != 0;
+    }
+
+    private long primitive(int slot) {
+        return buffer.getLong(primitives + 8 * slot);
+    }
+
+    private int record(int slot) {
+        return buffer.getInt(records + 4 * slot);
+    }
+
+    private ValueType valueType(int slot) {
+        return schema.marshalerAt(slot).valueType();
+    }
+
+    public boolean isValid() {
+        return errorCode() == ErrorCode.OK && buffer.getInt(error + 11) == ArgsCodec.NONE;
+    }
+
+    public int cardinality() {
+        int cardinality = 0;
+        for (int word = 0; word < ArgsCodec.foundWords(schema.size()); word++) {
+            cardinality += Long.bitCount(buffer.getLong(base + ArgsCodec.FOUND_OFFSET + 8 * word));
+        }
+        return cardinality;
+    }
+
+    public boolean has(char arg) {
+        int slot = schema.slotOf(arg);
+        return slot >= 0 && isFound(slot);
+    }
+
+    public ErrorCode errorCode() {
+        return ArgsCodec.errorCodeOf(buffer.get(error));
+    }
+
+    public char errorArgument() {
+        return buffer.getChar(error + 1);
+    }
+
+    public int errorPosition() {
+        return buffer.getInt(error + 3);
+    }
+
+    public String errorParameter() {
+        int offset = buffer.getInt(error + 7);
+        return offset == ArgsCodec.NONE ? null : ArgsCodec.readString(buffer, base + offset);
+    }
+
+    public String unexpectedArguments() {
+        int offset = buffer.getInt(error + 11);
+        return offset == ArgsCodec.NONE ? "" : ArgsCodec.readString(buffer, base + offset);
+    }
+
+    public boolean getBoolean(char arg) {
+        int slot = schema.slotOf(arg);
+        return slot >= 0 && valueType(slot) == ValueType.BOOLEAN && isFound(slot);
+    }
+
+    public int getInt(char arg) {
+        int slot = schema.slotOf(arg);
+        return slot >= 0 && valueType(slot) == ValueType.INTEGER ? (int) primitive(slot) : 0;
+    }
+
+    public long getLong(char arg) {
+        int slot = schema.slotOf(arg);
+        return slot >= 0 && valueType(slot) == ValueType.LONG ? primitive(slot) : 0L;
+    }
+
+    public double getDouble(char arg) {
+        int slot = schema.slotOf(arg);
+        return slot >= 0 && valueType(slot) == ValueType.DOUBLE ? Double.longBitsToDouble(primitive(slot)) : 0.0;
+    }
+
+    public String getString(char arg) {
+        int slot = schema.slotOf(arg);
+        int record = slot < 0 ? ArgsCodec.NONE : record(slot);
+        if (record == ArgsCodec.NONE) {
+            return "";
+        }
+        switch (buffer.get(base + record)) {
+            case ArgsCodec.STRING:
+            case ArgsCodec.TEXT:
+                return ArgsCodec.readString(buffer, base + record + 1);
+            case ArgsCodec.NULL_TEXT:
+                return null;
+            default:
+                return "";
+        }
+    }
+
+    public String[] getStringArray(char arg) {
+        int slot = schema.slotOf(arg);
+        int record = slot < 0 ? ArgsCodec.NONE : record(slot);
+        if (record == ArgsCodec.NONE || buffer.get(base + record) != ArgsCodec.STRING_ARRAY) {
+            return new String[0];
+        }
+        return ArgsCodec.readStrings(buffer, base + record + 1);
+    }
+}
@@ -0,0 +1,51 @@
+package wscheng.cleancode.example.args;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Reads the name of a constant of type, ignoring case. It is not registered under any tail by
+// default, as the tail has to say which enum is meant:
+//     MarshalerRegistry.builtIn().with("{color}", new EnumArgumentMarshaler<Color>(Color.class))
+public final class EnumArgumentMarshaler<E extends Enum<E>> extends ArgumentMarshaler {
+    private final Class<E> type;
+    private final Map<String, E> constants = new HashMap<String, E>();
+
+    public EnumArgumentMarshaler(Class<E> type) {
+        this.type = type;
+        for (E constant : type.getEnumConstants()) {
+            constants.put(constant.name().toUpperCase(Locale.ROOT), constant);
+        }
+    }
+
+    @Override
+    public boolean hasParameter() {
+        return true;
+    }
+
+    @Override
+    public ErrorCode missingParameterCode() {
+        return ErrorCode.MISSING_VALUE;
+    }
+
+    @Override
+    public ErrorCode set(ParsedArgs values, int slot, CharSequence parameter) {
+        E constant = constants.get(parameter.toString().toUpperCase(Locale.ROOT));
+        if (constant == null) {
+            return ErrorCode.INVALID_VALUE;
+        }
+        setObject(values, slot, constant);
+        return ErrorCode.OK;
+    }
+
+    @Override
+    public String getString(ParsedArgs values, int slot) {
+        E constant = type.cast(object(values, slot));
+        return constant == null ? null : constant.name();
+    }
+
+    @Override
+    public String encode(ParsedArgs values, int slot) {
+        return getString(values, slot);
+    }
+}
@@ -0,0 +1,7 @@
+package wscheng.cleancode.example.args;
+
+public enum ErrorCode {
+    OK, MISSING_STRING, INVALID_INTEGER, MISSING_INTEGER, UNEXPECTED_ARGUMENT, INVALID_ARGUMENT_FILE,
+    INTEGER_OVERFLOW, MISSING_LONG, INVALID_LONG, LONG_OVERFLOW, MISSING_DOUBLE, INVALID_DOUBLE, DOUBLE_OVERFLOW,
+    MISSING_DURATION, INVALID_DURATION, MISSING_VALUE, INVALID_VALUE, VALIDATION_FAILED, VALIDATION_TIMED_OUT
+}
@@ -0,0 +1,11 @@
+package wscheng.cleancode.example.args;
+
+public enum ErrorPolicy {
+    // Keep walking the arguments after an error, only the last one is remembered.
+    LENIENT,
+    // Stop at the first argument that could not be set.
+    FAIL_FAST,
+    // Keep walking the arguments and remember every error, in the order they were found; the
+    // last one is also the error of the parse, as under LENIENT.
+    COLLECT_ALL
+}
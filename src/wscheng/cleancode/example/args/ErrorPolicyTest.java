@@ -0,0 +1,77 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+public class ErrorPolicyTest extends TestCase {
+    private static final String SCHEMA = "n#,l##,s*,b";
+    private static final String[] ERRORS = {"-n", "x", "-b", "-l", "1.5", "-zq", "-s"};
+
+    public void testCollectAllKeepsEveryErrorInOrder() throws Exception {
+        ParsedArgs parsed = ArgsSchema.compile(SCHEMA).withErrorPolicy(ErrorPolicy.COLLECT_ALL).parse(ERRORS);
+        assertEquals(false, parsed.isValid());
+        assertEquals(true, parsed.getBoolean('b'));
+        assertEquals(3, parsed.errorCount());
+        assertError(parsed, 0, ErrorCode.INVALID_INTEGER, 'n', "x", 1);
+        assertError(parsed, 1, ErrorCode.INVALID_LONG, 'l', "1.5", 4);
+        assertError(parsed, 2, ErrorCode.MISSING_STRING, 's', null, 7);
+        assertEquals(ErrorCode.MISSING_STRING, parsed.errorCode());
+        assertEquals("qz", parsed.unexpectedArguments());
+    }
+
+    public void testCollectAllMessageListsEveryError() throws Exception {
+        ParsedArgs parsed = ArgsSchema.compile(SCHEMA).withErrorPolicy(ErrorPolicy.COLLECT_ALL).parse(ERRORS);
+        assertEquals("Argument(s) =qz unexpected.\n"
+                + "Argument -n expects an integer but was 'x'.\n"
+                + "Argument -l expects a long but was '1.5'.\n"
+                + "Could not find string parameter for -s.", parsed.errorMessage());
+    }
+
+    public void testOtherPoliciesReportOneError() throws Exception {
+        ParsedArgs lenient = ArgsSchema.compile(SCHEMA).parse(ERRORS);
+        assertEquals(1, lenient.errorCount());
+        assertError(lenient, 0, ErrorCode.MISSING_STRING, 's', null, 7);
+        assertEquals("Argument(s) =qz unexpected.", lenient.errorMessage());
+        ParsedArgs failFast = ArgsSchema.compile(SCHEMA).withErrorPolicy(ErrorPolicy.FAIL_FAST).parse(ERRORS);
+        assertEquals(1, failFast.errorCount());
+        assertError(failFast, 0, ErrorCode.INVALID_INTEGER, 'n', "x", 1);
+        assertEquals(false, failFast.getBoolean('b'));
+        assertEquals(0, ArgsSchema.compile(SCHEMA).parse(new String[] {"-b"}).errorCount());
+        try {
+            lenient.errorCode(1);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    public void testCollectedErrorsAreClearedBetweenParses() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile(SCHEMA).withErrorPolicy(ErrorPolicy.COLLECT_ALL);
+        IncrementalArgsParser parser = new IncrementalArgsParser(schema);
+        for (String arg : ERRORS) {
+            parser.feed(arg);
+        }
+        assertEquals(3, parser.finish().errorCount());
+        parser.reset();
+        parser.feed("-b");
+        assertEquals(0, parser.finish().errorCount());
+    }
+
+    public void testCollectedErrorsSurviveEncoding() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile(SCHEMA).withErrorPolicy(ErrorPolicy.COLLECT_ALL);
+        ParsedArgs parsed = schema.parse(ERRORS);
+        ParsedArgs decoded = ArgsCodec.read(schema, ArgsCodec.encode(parsed));
+        assertEquals(3, decoded.errorCount());
+        for (int i = 0; i < 3; i++) {
+            assertError(decoded, i, parsed.errorCode(i), parsed.errorArgument(i), parsed.errorParameter(i),
+                    parsed.errorPosition(i));
+        }
+        assertEquals(parsed.errorMessage(), decoded.errorMessage());
+    }
+
+    private static void assertError(ParsedArgs parsed, int index, ErrorCode errorCode, char errorArgument,
+                                    String errorParameter, int errorPosition) {
+        assertEquals(errorCode, parsed.errorCode(index));
+        assertEquals(errorArgument, parsed.errorArgument(index));
+        assertEquals(errorParameter, parsed.errorParameter(index));
+        assertEquals(errorPosition, parsed.errorPosition(index));
+    }
+}
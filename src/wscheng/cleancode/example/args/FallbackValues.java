@@ -0,0 +1,113 @@
+package wscheng.cleancode.example.args;
+
+import java.util.Arrays;
+
+// The fallbacks of a snapshot converted for one schema. Conversion waits for the first parse
+// that needs a fallback and then happens once; after that, a parse only copies the converted
+// column entries of the options its command line did not give, so the getters read them the
+// way they read any other value.
+//
+// A fallback that does not convert is reported by every parse that falls back on it, with
+// position -1, so that an error on the command line itself wins over it. Under COLLECT_ALL it
+// is collected after the errors of the command line even when one of them wins.
+final class FallbackValues {
+    static final FallbackValues NONE = new FallbackValues(null, new int[0], new String[0]);
+
+    private final ArgsSchema schema;
+    // The slots that have a fallback, and its text.
+    private final int[] slots;
+    private final String[] texts;
+    private volatile Converted converted;
+
+    private FallbackValues(ArgsSchema schema, int[] slots, String[] texts) {
+        this.schema = schema;
+        this.slots = slots;
+        this.texts = texts;
+    }
+
+    static FallbackValues of(ArgsSchema schema, ArgsFallbacks.Snapshot snapshot) {
+        int count = 0;
+        int[] slots = new int[schema.size()];
+        String[] texts = new String[schema.size()];
+        for (int slot = 0; slot < schema.size(); slot++) {
+            String text = snapshot.valueOf(schema.idOf(slot));
+            if (text != null) {
+                slots[count] = slot;
+                texts[count] = text;
+                count++;
+            }
+        }
+        if (count == 0) {
+            return NONE;
+        }
+        return new FallbackValues(schema, Arrays.copyOf(slots, count), Arrays.copyOf(texts, count));
+    }
+
+    // Fills every slot with a fallback that is not set in given.
+    void fill(ParsedArgs result, long[] given) {
+        Converted values = converted();
+        for (int i = 0; i < slots.length; i++) {
+            int slot = slots[i];
+            if ((given[slot >>> 6] & (1L << slot)) != 0) {
+                continue;
+            }
+            if (values.columns.isFound(slot)) {
+                result.copySlot(values.columns, slot);
+            } else if (values.errors[i] != ErrorCode.OK) {
+                reportError(result, values.errors[i], slot, texts[i]);
+            }
+        }
+    }
+
+    private void reportError(ParsedArgs result, ErrorCode errorCode, int slot, String text) {
+        if (result.recordedErrorPosition() < 0) {
+            result.setError(errorCode, schema.idOf(slot), text, -1);
+        } else if (result.collectedErrors() != null) {
+            result.collectedErrors().add(errorCode, schema.idOf(slot), text, -1);
+        }
+    }
+
+    private Converted converted() {
+        Converted values = converted;
+        if (values == null) {
+            synchronized (this) {
+                if (converted == null) {
+                    converted = new Converted();
+                }
+                values = converted;
+            }
+        }
+        return values;
+    }
+
+    private final class Converted {
+        private final ParsedArgs columns = new ParsedArgs(schema);
+        private final ErrorCode[] errors = new ErrorCode[slots.length];
+
+        Converted() {
+            for (int i = 0; i < slots.length; i++) {
+                errors[i] = convert(slots[i], texts[i]);
+            }
+        }
+
+        private ErrorCode convert(int slot, String text) {
+            ArgumentMarshaler m = schema.marshalerAt(slot);
+            if (!m.hasParameter()) {
+                return convertBoolean(slot, text);
+            }
+            ErrorCode errorCode = m.set(columns, slot, text);
+            if (errorCode == ErrorCode.OK) {
+                columns.markFound(slot);
+            }
+            return errorCode;
+        }
+
+        private ErrorCode convertBoolean(int slot, String text) {
+            if (text.equalsIgnoreCase("true")) {
+                columns.markFound(slot);
+                return ErrorCode.OK;
+            }
+            return text.equalsIgnoreCase("false") ? ErrorCode.OK : ErrorCode.INVALID_VALUE;
+        }
+    }
+}
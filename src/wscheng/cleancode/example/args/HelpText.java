@@ -0,0 +1,193 @@
+package wscheng.cleancode.example.args;
+
+import java.io.IOException;
+
+// The help of a schema: its usage line and one line per option, in schema order,
+//     Usage: -[v|verbose,o|output*,n#]
+//       -v, --verbose          Print every step.
+//       -o, --output <string>  Where to write the report. (default: report.txt)
+//       -n <int>
+// with the descriptions in one column, wrapped at the width asked for; a width of 0 or less
+// does not wrap. The text of a width is rendered the first time it is asked for and kept, so
+// a tool that prints the help of many commands, or of one command many times, renders each
+// once and afterwards only copies it out. The few widths a terminal is likely to have are
+// kept; asking for more drops the oldest.
+final class HelpText {
+    static final int DEFAULT_WIDTH = 80;
+    private static final int MAX_WIDTHS = 8;
+    private static final String INDENT = "  ";
+    private static final int GAP = 2;
+    // Descriptions start at most this far in, and wrap at no fewer columns than MIN_COLUMNS.
+    private static final int MAX_OPTION_COLUMN = 32;
+    private static final int MIN_COLUMNS = 20;
+
+    private final ArgsSchema schema;
+    private final ArgsHelp help;
+    // Copy on write; rendering the same width twice in a race is harmless.
+    private volatile Rendered[] rendered = new Rendered[0];
+
+    HelpText(ArgsSchema schema, ArgsHelp help) {
+        this.schema = schema;
+        this.help = help;
+    }
+
+    String text(int width) {
+        int key = Math.max(0, width);
+        Rendered[] known = rendered;
+        for (Rendered r : known) {
+            if (r.width == key) {
+                return r.text;
+            }
+        }
+        String text = render(key);
+        int kept = Math.min(known.length, MAX_WIDTHS - 1);
+        Rendered[] more = new Rendered[kept + 1];
+        System.arraycopy(known, known.length - kept, more, 0, kept);
+        more[kept] = new Rendered(key, text);
+        rendered = more;
+        return text;
+    }
+
+    void write(Appendable out, int width) throws IOException {
+        out.append(text(width));
+    }
+
+    private String render(int width) {
+        String usage = schema.usage();
+        if (usage.length() == 0) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        text.append("Usage: ").append(usage).append('\n');
+        int column = INDENT.length() + optionWidth() + GAP;
+        for (int slot = 0; slot < schema.size(); slot++) {
+            int start = text.length();
+            text.append(INDENT);
+            appendOption(text, slot);
+            String description = descriptionOf(slot);
+            if (description != null) {
+                if (text.length() - start + GAP > column) {
+                    text.append('\n');
+                    start = text.length();
+                }
+                pad(text, column - (text.length() - start));
+                appendWrapped(text, description, column, width);
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    private int optionWidth() {
+        int widest = 0;
+        for (int slot = 0; slot < schema.size(); slot++) {
+            int width = 2;
+            String longName = schema.longNameAt(slot);
+            if (longName != null) {
+                width += 4 + longName.length();
+            }
+            String typeName = typeNameOf(slot);
+            if (typeName != null) {
+                width += 3 + typeName.length();
+            }
+            widest = Math.max(widest, width);
+        }
+        return Math.min(widest, MAX_OPTION_COLUMN);
+    }
+
+    private void appendOption(StringBuilder text, int slot) {
+        text.append('-').append(schema.idOf(slot));
+        String longName = schema.longNameAt(slot);
+        if (longName != null) {
+            text.append(", --").append(longName);
+        }
+        String typeName = typeNameOf(slot);
+        if (typeName != null) {
+            text.append(" <").append(typeName).append('>');
+        }
+    }
+
+    // null for an option that has neither description nor default.
+    String descriptionOf(int slot) {
+        char id = schema.idOf(slot);
+        String description = help.descriptionOf(id);
+        String defaultValue = help.defaultOf(id);
+        if (defaultValue == null) {
+            return description;
+        }
+        String mention = "(default: " + defaultValue + ")";
+        return description == null ? mention : description + " " + mention;
+    }
+
+    // null for a boolean, which takes no parameter.
+    String typeNameOf(int slot) {
+        String typeName = help.typeNameOf(schema.idOf(slot));
+        if (typeName != null) {
+            return typeName;
+        }
+        ArgumentMarshaler m = schema.marshalerAt(slot);
+        if (!m.hasParameter()) {
+            return null;
+        } else if (m == StringArrayArgumentMarshaler.INSTANCE) {
+            return "string";
+        } else if (m == DurationArgumentMarshaler.INSTANCE) {
+            return "duration";
+        }
+        switch (m.valueType()) {
+            case STRING:
+                return "string";
+            case INTEGER:
+                return "int";
+            case LONG:
+                return "long";
+            case DOUBLE:
+                return "double";
+            default:
+                return "value";
+        }
+    }
+
+    // Breaks at spaces only; a word longer than the line gets a line of its own.
+    private static void appendWrapped(StringBuilder text, String description, int column, int width) {
+        if (width <= 0) {
+            text.append(description);
+            return;
+        }
+        int columns = Math.max(MIN_COLUMNS, width - column);
+        int lineStart = 0;
+        int i = 0;
+        while (i < description.length()) {
+            int wordEnd = description.indexOf(' ', i);
+            if (wordEnd < 0) {
+                wordEnd = description.length();
+            }
+            if (i > lineStart && wordEnd - lineStart > columns) {
+                text.setLength(text.length() - 1);
+                text.append('\n');
+                pad(text, column);
+                lineStart = i;
+            }
+            text.append(description, i, wordEnd);
+            if (wordEnd < description.length()) {
+                text.append(' ');
+            }
+            i = wordEnd + 1;
+        }
+    }
+
+    private static void pad(StringBuilder text, int spaces) {
+        for (int i = 0; i < spaces; i++) {
+            text.append(' ');
+        }
+    }
+
+    private static final class Rendered {
+        final int width;
+        final String text;
+
+        Rendered(int width, String text) {
+            this.width = width;
+            this.text = text;
+        }
+    }
+}
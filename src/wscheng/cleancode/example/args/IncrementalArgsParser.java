@@ -0,0 +1,81 @@
+package wscheng.cleancode.example.args;
+
+// Parses arguments that arrive one at a time, such as tokens read from a pipe, without ever
+// holding the whole argument list: feed() each argument as it comes and finish() at the end.
+// The result is exactly what schema.parse() returns for the same arguments, errors included.
+//
+// In between, partial() shows what has been parsed so far and isAwaitingValue() tells whether
+// the last option still waits for its parameter. Not thread-safe; reset() starts over, reusing
+// the same ParsedArgs.
+public final class IncrementalArgsParser {
+    private final ArgsSchema schema;
+    private final ParsedArgs result;
+    private final ArgumentParser parser;
+    // Time spent in feed() and finish() so far, for the schema's listener.
+    private long nanos;
+    private boolean finished;
+
+    public IncrementalArgsParser(ArgsSchema schema) {
+        this.schema = schema;
+        this.result = new ParsedArgs(schema);
+        this.parser = new ArgumentParser(schema, result);
+        parser.start();
+    }
+
+    public void feed(String arg) {
+        checkNotFinished();
+        if (schema.listener() == ArgsListener.NONE) {
+            parser.feed(arg);
+            return;
+        }
+        long start = System.nanoTime();
+        parser.feed(arg);
+        nanos += System.nanoTime() - start;
+    }
+
+    // An option still waiting for its parameter is reported as missing it.
+    public ParsedArgs finish() {
+        checkNotFinished();
+        finished = true;
+        ArgsListener listener = schema.listener();
+        if (listener == ArgsListener.NONE) {
+            return parser.finish();
+        }
+        long start = System.nanoTime();
+        parser.finish();
+        listener.argumentsParsed(result, nanos + System.nanoTime() - start);
+        return result;
+    }
+
+    public void reset() {
+        parser.start();
+        nanos = 0;
+        finished = false;
+    }
+
+    // The arguments parsed so far; it changes with every feed(). An option that waits for its
+    // parameter is not in it yet, and neither is its error if the parameter never comes.
+    public ParsedArgs partial() {
+        return result;
+    }
+
+    public boolean isAwaitingValue() {
+        return parser.awaitedSlot() >= 0;
+    }
+
+    // The option waiting for its parameter, or '\0'.
+    public char awaitedOption() {
+        int slot = parser.awaitedSlot();
+        return slot < 0 ? '\0' : schema.idOf(slot);
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    private void checkNotFinished() {
+        if (finished) {
+            throw new IllegalStateException("Already finished; reset() to parse again");
+        }
+    }
+}
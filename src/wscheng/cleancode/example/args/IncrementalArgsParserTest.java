@@ -0,0 +1,132 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+public class IncrementalArgsParserTest extends TestCase {
+    private static final String SCHEMA = "b,c,s|string*,n|number#,d##.,v|verbose";
+
+    private File argumentFile;
+
+    @Override
+    protected void setUp() throws Exception {
+        argumentFile = File.createTempFile("incremental", ".args");
+        Files.write(argumentFile.toPath(), "-sn 'in file' 7 -b".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        argumentFile.delete();
+    }
+
+    public void testWaitsForParameterInsideCluster() throws Exception {
+        IncrementalArgsParser parser = new IncrementalArgsParser(ArgsSchema.compile(SCHEMA));
+        parser.feed("-bsn");
+        assertEquals(true, parser.isAwaitingValue());
+        assertEquals('s', parser.awaitedOption());
+        assertEquals(true, parser.partial().getBoolean('b'));
+        parser.feed("text");
+        assertEquals('n', parser.awaitedOption());
+        assertEquals("text", parser.partial().getString('s'));
+        parser.feed("5");
+        assertEquals(false, parser.isAwaitingValue());
+        assertEquals('\0', parser.awaitedOption());
+        ParsedArgs parsed = parser.finish();
+        assertEquals(true, parsed.isValid());
+        assertEquals(5, parsed.getInt('n'));
+    }
+
+    public void testMissingParameterIsReportedAtFinish() throws Exception {
+        IncrementalArgsParser parser = new IncrementalArgsParser(ArgsSchema.compile(SCHEMA));
+        parser.feed("--string");
+        assertEquals(true, parser.partial().isValid());
+        ParsedArgs parsed = parser.finish();
+        assertEquals(ErrorCode.MISSING_STRING, parsed.errorCode());
+        assertEquals("Could not find string parameter for -s.", parsed.errorMessage());
+        assertEquals(1, parsed.errorPosition());
+    }
+
+    public void testFinishOnlyOnce() throws Exception {
+        IncrementalArgsParser parser = new IncrementalArgsParser(ArgsSchema.compile(SCHEMA));
+        parser.finish();
+        assertEquals(true, parser.isFinished());
+        try {
+            parser.feed("-b");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Already finished; reset() to parse again", e.getMessage());
+        }
+        parser.reset();
+        parser.feed("-c");
+        assertEquals(true, parser.finish().getBoolean('c'));
+    }
+
+    public void testListenerSeesOneParse() throws Exception {
+        ArgsMetrics metrics = new ArgsMetrics();
+        IncrementalArgsParser parser = new IncrementalArgsParser(ArgsSchema.compile(SCHEMA).withListener(metrics));
+        parser.feed("-n");
+        parser.feed("x");
+        parser.finish();
+        assertEquals(1, metrics.snapshot().parses());
+        assertEquals(1, metrics.snapshot().errors(ErrorCode.INVALID_INTEGER));
+    }
+
+    public void testMatchesBatchParse() throws Exception {
+        ArgsSchema lenient = ArgsSchema.compile(SCHEMA).withArgumentFiles(true);
+        ArgsSchema[] schemas = {
+                lenient,
+                lenient.withErrorPolicy(ErrorPolicy.FAIL_FAST),
+                lenient.withLazyValues(true),
+                ArgsSchema.compile("b,c,s*,n#")
+        };
+        String[] tokens = {
+                "-b", "-c", "-s", "-n", "-sn", "-ns", "-bsc", "-bx", "-z", "x", "5", "1.5", "99999999999",
+                "--string", "--number=3", "--number=q", "--verbose", "--verbose=1", "--nope", "--", "-",
+                "-d", "@" + argumentFile, "@/no/such/file", ""
+        };
+        Random random = new Random(15);
+        for (int i = 0; i < 5000; i++) {
+            String[] args = new String[random.nextInt(8)];
+            for (int j = 0; j < args.length; j++) {
+                args[j] = tokens[random.nextInt(tokens.length)];
+            }
+            for (ArgsSchema schema : schemas) {
+                IncrementalArgsParser parser = new IncrementalArgsParser(schema);
+                for (String arg : args) {
+                    parser.feed(arg);
+                }
+                assertSameResult(Arrays.toString(args), schema.parse(args), parser.finish());
+            }
+        }
+    }
+
+    private static void assertSameResult(String message, ParsedArgs expected, ParsedArgs actual) {
+        assertEquals(message, expected.isValid(), actual.isValid());
+        assertEquals(message, expected.errorCode(), actual.errorCode());
+        assertEquals(message, expected.errorArgument(), actual.errorArgument());
+        assertEquals(message, expected.errorParameter(), actual.errorParameter());
+        assertEquals(message, expected.errorPosition(), actual.errorPosition());
+        assertEquals(message, expected.unexpectedArguments(), actual.unexpectedArguments());
+        assertEquals(message, errorMessageOf(expected), errorMessageOf(actual));
+        assertEquals(message, expected.cardinality(), actual.cardinality());
+        for (char c : "bcsndv".toCharArray()) {
+            assertEquals(message, expected.getBoolean(c), actual.getBoolean(c));
+            assertEquals(message, expected.getString(c), actual.getString(c));
+            assertEquals(message, expected.getInt(c), actual.getInt(c));
+            assertEquals(message, expected.getDouble(c), actual.getDouble(c));
+        }
+    }
+
+    private static String errorMessageOf(ParsedArgs parsed) {
+        try {
+            return parsed.errorMessage();
+        } catch (Exception e) {
+            return e.getMessage();
+        }
+    }
+}
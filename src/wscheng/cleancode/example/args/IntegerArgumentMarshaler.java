@@ -0,0 +1,49 @@
+package wscheng.cleancode.example.args;
+
+class IntegerArgumentMarshaler extends ArgumentMarshaler {
+    static final IntegerArgumentMarshaler INSTANCE = new IntegerArgumentMarshaler();
+
+    @Override
+    public boolean hasParameter() {
+        return true;
+    }
+
+    @Override
+    public ErrorCode missingParameterCode() {
+        return ErrorCode.MISSING_INTEGER;
+    }
+
+    @Override
+    public ErrorCode set(ParsedArgs values, int slot, CharSequence parameter) {
+        return setInt(values, slot, parameter);
+    }
+
+    // Static, so that a specialized parse can call it without going through the marshaler.
+    static ErrorCode setInt(ParsedArgs values, int slot, CharSequence parameter) {
+        switch (NumberParser.parseLong(parameter, 0, parameter.length(),
+                Integer.MIN_VALUE, Integer.MAX_VALUE, values.primitiveColumn(), slot)) {
+            case OK:
+                return ErrorCode.OK;
+            case OVERFLOW:
+                return ErrorCode.INTEGER_OVERFLOW;
+            default:
+                return ErrorCode.INVALID_INTEGER;
+        }
+    }
+
+    @Override
+    public ValueType valueType() {
+        return ValueType.INTEGER;
+    }
+
+    @Override
+    public int getInt(ParsedArgs values, int slot) {
+        return (int) values.primitive(slot);
+    }
+
+    // null when the argument was not given.
+    @Override
+    public Object getValue(ParsedArgs values, int slot) {
+        return values.isFound(slot) ? getInt(values, slot) : null;
+    }
+}
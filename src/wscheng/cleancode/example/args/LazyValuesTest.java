@@ -0,0 +1,106 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class LazyValuesTest extends TestCase {
+    private ArgsSchema eager;
+    private ArgsSchema lazy;
+
+    @Override
+    protected void setUp() throws Exception {
+        eager = ArgsSchema.compile("b,c,s*,n#,l##,d##.");
+        lazy = eager.withLazyValues(true);
+    }
+
+    public void testValuesAreConvertedOnFirstAccess() throws Exception {
+        ParsedArgs parsed = lazy.parse(new String[] {"-n", "42", "-s", "text", "-d", "0.5"});
+        assertEquals(42, parsed.getInt('n'));
+        assertEquals(42, parsed.getInt('n'));
+        assertEquals("text", parsed.getString('s'));
+        assertEquals(0.5, parsed.getDouble('d'));
+        assertEquals(3, parsed.cardinality());
+        assertEquals(true, parsed.isValid());
+    }
+
+    public void testInvalidValueIsOnlyFoundWhenAskedFor() throws Exception {
+        ParsedArgs parsed = lazy.parse(new String[] {"-s", "text", "-n", "x"});
+        assertEquals("text", parsed.getString('s'));
+        assertEquals(0, parsed.getInt('n'));
+        assertEquals(false, parsed.isValid());
+        assertEquals(ErrorCode.INVALID_INTEGER, parsed.errorCode());
+        assertEquals("x", parsed.errorParameter());
+        assertEquals(3, parsed.errorPosition());
+    }
+
+    public void testLastValidOccurrenceWins() throws Exception {
+        ParsedArgs parsed = lazy.parse(new String[] {"-n", "1", "-n", "2", "-n", "bad"});
+        assertEquals(2, parsed.getInt('n'));
+        assertEquals(ErrorCode.INVALID_INTEGER, parsed.errorCode());
+    }
+
+    // -n in -nb is not the last element of its argument, so its value is set eagerly, after
+    // the deferred one before it.
+    public void testDeferredValueDoesNotWinOverALaterEagerOne() throws Exception {
+        ParsedArgs parsed = lazy.parse(new String[] {"-n", "1", "-nb", "2"});
+        assertEquals(2, parsed.getInt('n'));
+    }
+
+    public void testDeferredArrayValuesKeepTheirOrder() throws Exception {
+        ArgsSchema arrays = ArgsSchema.compile("f[*],b").withLazyValues(true);
+        assertEquals(Arrays.asList("x", "y"),
+                Arrays.asList(arrays.parse(new String[] {"-f", "x", "-fb", "y"}).getStringArray('f')));
+    }
+
+    public void testLazyMatchesEager() throws Exception {
+        List<String[]> commandLines = Arrays.asList(
+                new String[] {"-bn", "1", "-c"},
+                new String[] {"-nb", "x", "-c"},
+                new String[] {"-nl", "1", "2"},
+                new String[] {"-ln", "x", "2", "-s", "y"},
+                new String[] {"-n", "x", "-l", "1", "-s"},
+                new String[] {"-n", "x", "-z", "-l", "y"},
+                new String[] {"-d", "1e999", "-n", "2147483648", "-l", "7"},
+                new String[] {"-s", "a", "-s", "b", "-n", "1", "-n", "q", "-n", "3"},
+                new String[] {});
+        for (String[] args : commandLines) {
+            assertSame(Arrays.toString(args), eager.parse(args), lazy.parse(args));
+        }
+    }
+
+    public void testOtherPoliciesStayEager() throws Exception {
+        ArgsSchema failFast = lazy.withErrorPolicy(ErrorPolicy.FAIL_FAST);
+        ParsedArgs parsed = failFast.parse(new String[] {"-n", "x", "-b"});
+        assertEquals(false, parsed.getBoolean('b'));
+        assertEquals(ErrorCode.INVALID_INTEGER, parsed.errorCode());
+    }
+
+    public void testArgsStaysLazyUntilAsked() throws Exception {
+        Args args = new Args(lazy, new String[] {"-n", "x", "-s", "value"});
+        assertEquals("value", args.getString('s'));
+        assertEquals(false, args.isValid());
+    }
+
+    private void assertSame(String message, ParsedArgs expected, ParsedArgs actual) throws Exception {
+        // Ask for values before validating, so that both the per-slot and the full resolution are exercised.
+        for (char c : "bcsnld".toCharArray()) {
+            assertEquals(message, expected.getString(c), actual.getString(c));
+            assertEquals(message, expected.getInt(c), actual.getInt(c));
+            assertEquals(message, expected.getLong(c), actual.getLong(c));
+            assertEquals(message, expected.getDouble(c), actual.getDouble(c));
+            assertEquals(message, expected.getBoolean(c), actual.getBoolean(c));
+        }
+        assertEquals(message, expected.isValid(), actual.isValid());
+        assertEquals(message, expected.cardinality(), actual.cardinality());
+        assertEquals(message, expected.errorCode(), actual.errorCode());
+        assertEquals(message, expected.errorArgument(), actual.errorArgument());
+        assertEquals(message, expected.errorParameter(), actual.errorParameter());
+        assertEquals(message, expected.errorPosition(), actual.errorPosition());
+        assertEquals(message, expected.unexpectedArguments(), actual.unexpectedArguments());
+        for (char c : "bcsnld".toCharArray()) {
+            assertEquals(message, expected.has(c), actual.has(c));
+        }
+    }
+}
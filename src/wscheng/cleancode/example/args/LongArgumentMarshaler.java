@@ -0,0 +1,48 @@
+package wscheng.cleancode.example.args;
+
+class LongArgumentMarshaler extends ArgumentMarshaler {
+    static final LongArgumentMarshaler INSTANCE = new LongArgumentMarshaler();
+
+    @Override
+    public boolean hasParameter() {
+        return true;
+    }
+
+    @Override
+    public ErrorCode missingParameterCode() {
+        return ErrorCode.MISSING_LONG;
+    }
+
+    @Override
+    public ErrorCode set(ParsedArgs values, int slot, CharSequence parameter) {
+        return setLong(values, slot, parameter);
+    }
+
+    static ErrorCode setLong(ParsedArgs values, int slot, CharSequence parameter) {
+        switch (NumberParser.parseLong(parameter, 0, parameter.length(),
+                Long.MIN_VALUE, Long.MAX_VALUE, values.primitiveColumn(), slot)) {
+            case OK:
+                return ErrorCode.OK;
+            case OVERFLOW:
+                return ErrorCode.LONG_OVERFLOW;
+            default:
+                return ErrorCode.INVALID_LONG;
+        }
+    }
+
+    @Override
+    public ValueType valueType() {
+        return ValueType.LONG;
+    }
+
+    @Override
+    public long getLong(ParsedArgs values, int slot) {
+        return values.primitive(slot);
+    }
+
+    // null when the argument was not given.
+    @Override
+    public Object getValue(ParsedArgs values, int slot) {
+        return values.isFound(slot) ? getLong(values, slot) : null;
+    }
+}
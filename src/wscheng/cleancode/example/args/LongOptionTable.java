@@ -0,0 +1,88 @@
+package wscheng.cleancode.example.args;
+
+// Maps long option names to slots with a perfect hash built once when the schema is compiled:
+// the seed is chosen so that no two names share a bucket, so a lookup hashes the name straight
+// off the argument, probes one bucket and compares one candidate. That is O(length of the name)
+// and allocates nothing.
+final class LongOptionTable {
+    static final LongOptionTable EMPTY = new LongOptionTable(0, new String[1], new int[1]);
+
+    private static final int SEEDS_PER_SIZE = 1 << 12;
+    private static final int MAXIMUM_BUCKETS = 1 << 20;
+
+    private final int seed;
+    private final int mask;
+    private final String[] names;
+    private final int[] slots;
+
+    private LongOptionTable(int seed, String[] names, int[] slots) {
+        this.seed = seed;
+        this.mask = names.length - 1;
+        this.names = names;
+        this.slots = slots;
+    }
+
+    // names[slot] is the long name of slot, or null when it has none. Names must be distinct.
+    // null when no seed separates them even in the largest table.
+    static LongOptionTable build(String[] names) {
+        int count = 0;
+        for (String name : names) {
+            if (name != null) {
+                count++;
+            }
+        }
+        // Start at two to four buckets per name and double whenever no seed separates the names.
+        for (int buckets = Integer.highestOneBit(Math.max(1, count)) * 4; buckets <= MAXIMUM_BUCKETS; buckets *= 2) {
+            for (int seed = 0; seed < SEEDS_PER_SIZE; seed++) {
+                LongOptionTable table = tryBuild(names, seed, buckets);
+                if (table != null) {
+                    return table;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static LongOptionTable tryBuild(String[] names, int seed, int buckets) {
+        String[] table = new String[buckets];
+        int[] slots = new int[buckets];
+        for (int slot = 0; slot < names.length; slot++) {
+            if (names[slot] == null) {
+                continue;
+            }
+            int bucket = hash(names[slot], 0, names[slot].length(), seed) & (buckets - 1);
+            if (table[bucket] != null) {
+                return null;
+            }
+            table[bucket] = names[slot];
+            slots[bucket] = slot;
+        }
+        return new LongOptionTable(seed, table, slots);
+    }
+
+    // The slot named by s[start, end), or -1.
+    int slotOf(CharSequence s, int start, int end) {
+        int bucket = hash(s, start, end, seed) & mask;
+        String name = names[bucket];
+        if (name == null || name.length() != end - start) {
+            return -1;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != s.charAt(start + i)) {
+                return -1;
+            }
+        }
+        return slots[bucket];
+    }
+
+    // The seed picks the multiplier, so two names that collide for one seed rarely do for the next.
+    private static int hash(CharSequence s, int start, int end, int seed) {
+        int multiplier = 31 + 2 * seed;
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = h * multiplier + s.charAt(i);
+        }
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,131 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.text.ParseException;
+
+public class LongOptionTest extends TestCase {
+    private ArgsSchema schema;
+
+    @Override
+    protected void setUp() throws Exception {
+        schema = ArgsSchema.compile("v|verbose,o|output*,n|max-count#,q,d|dry-run");
+    }
+
+    public void testLongOptionsAndShortClustersMix() throws Exception {
+        ParsedArgs parsed = schema.parse(new String[] {
+                "--verbose", "--output=out.txt", "-qn", "3", "--dry-run"});
+        assertEquals(true, parsed.isValid());
+        assertEquals(true, parsed.getBoolean('v'));
+        assertEquals("out.txt", parsed.getString('o'));
+        assertEquals(3, parsed.getInt('n'));
+        assertEquals(true, parsed.getBoolean('q'));
+        assertEquals(true, parsed.getBoolean('d'));
+        assertEquals(5, parsed.cardinality());
+    }
+
+    public void testValueInNextArgument() throws Exception {
+        ParsedArgs parsed = schema.parse(new String[] {"--max-count", "12", "--output", "--verbose"});
+        assertEquals(12, parsed.getInt('n'));
+        assertEquals("--verbose", parsed.getString('o'));
+        assertEquals(false, parsed.getBoolean('v'));
+    }
+
+    public void testEmptyValueAfterEquals() throws Exception {
+        assertEquals("", schema.parse(new String[] {"--output="}).getString('o'));
+    }
+
+    public void testDoubleDashEndsOptions() throws Exception {
+        ParsedArgs parsed = schema.parse(new String[] {"-v", "--", "-q", "--dry-run", "-x"});
+        assertEquals(true, parsed.isValid());
+        assertEquals(true, parsed.getBoolean('v'));
+        assertEquals(false, parsed.getBoolean('q'));
+        assertEquals(false, parsed.getBoolean('d'));
+    }
+
+    public void testUnknownLongOption() throws Exception {
+        ParsedArgs parsed = schema.parse(new String[] {"--verbos=1", "-q"});
+        assertEquals(false, parsed.isValid());
+        assertEquals(ErrorCode.UNEXPECTED_ARGUMENT, parsed.errorCode());
+        assertEquals("--verbos", parsed.errorParameter());
+        assertEquals("Argument --verbos unexpected.", parsed.errorMessage());
+        assertEquals(true, parsed.getBoolean('q'));
+    }
+
+    public void testErrors() throws Exception {
+        ParsedArgs parsed = schema.parse(new String[] {"--verbose=yes"});
+        assertEquals(ErrorCode.INVALID_VALUE, parsed.errorCode());
+        assertEquals('v', parsed.errorArgument());
+        assertEquals("yes", parsed.errorParameter());
+        parsed = schema.parse(new String[] {"--max-count=ten"});
+        assertEquals(ErrorCode.INVALID_INTEGER, parsed.errorCode());
+        assertEquals("ten", parsed.errorParameter());
+        assertEquals(0, parsed.errorPosition());
+        parsed = schema.parse(new String[] {"-q", "--max-count"});
+        assertEquals(ErrorCode.MISSING_INTEGER, parsed.errorCode());
+        assertEquals(2, parsed.errorPosition());
+    }
+
+    public void testLazyValuesMatchEager() throws Exception {
+        String[] args = {"--max-count=x", "--output", "a", "--max-count", "4"};
+        ParsedArgs eager = schema.parse(args);
+        ParsedArgs lazy = schema.withLazyValues(true).parse(args);
+        assertEquals(eager.getInt('n'), lazy.getInt('n'));
+        assertEquals(eager.getString('o'), lazy.getString('o'));
+        assertEquals(eager.errorCode(), lazy.errorCode());
+        assertEquals(eager.errorPosition(), lazy.errorPosition());
+    }
+
+    public void testSchemaWithoutLongNamesKeepsOldMeaning() throws Exception {
+        ParsedArgs parsed = ArgsSchema.compile("x").parse(new String[] {"--x"});
+        assertEquals(true, parsed.getBoolean('x'));
+        assertEquals("-", parsed.unexpectedArguments());
+    }
+
+    public void testBadLongNames() throws Exception {
+        assertBadSchema("v|", "Bad long name for v in Args format: v|");
+        assertBadSchema("v|-x", "Bad long name for v in Args format: v|-x");
+        assertBadSchema("v|same,w|same", "Long name same used twice in Args format: v|same,w|same");
+        assertEquals("renamed", longNameOf(ArgsSchema.compile("v|old,v|renamed"), 'v'));
+    }
+
+    public void testTableLookup() throws Exception {
+        LongOptionTable table = LongOptionTable.build(new String[] {"a", "ab", null, "abc", "b", "zeta", "Aa", "BB"});
+        assertEquals(0, table.slotOf("a", 0, 1));
+        assertEquals(1, table.slotOf("ab", 0, 2));
+        assertEquals(3, table.slotOf("--abc=", 2, 5));
+        assertEquals(4, table.slotOf("b", 0, 1));
+        assertEquals(5, table.slotOf("zeta", 0, 4));
+        // "Aa" and "BB" have the same String.hashCode.
+        assertEquals(6, table.slotOf("Aa", 0, 2));
+        assertEquals(7, table.slotOf("BB", 0, 2));
+        assertEquals(-1, table.slotOf("z", 0, 1));
+        assertEquals(-1, table.slotOf("abcd", 0, 4));
+        assertEquals(-1, table.slotOf("", 0, 0));
+        assertEquals(-1, LongOptionTable.EMPTY.slotOf("a", 0, 1));
+    }
+
+    public void testManyLongNames() throws Exception {
+        String[] names = new String[2000];
+        for (int slot = 0; slot < names.length; slot++) {
+            names[slot] = "option-" + slot;
+        }
+        LongOptionTable table = LongOptionTable.build(names);
+        for (int slot = 0; slot < names.length; slot++) {
+            assertEquals(slot, table.slotOf(names[slot], 0, names[slot].length()));
+        }
+    }
+
+    private static String longNameOf(ArgsSchema schema, char id) {
+        return schema.longNameAt(schema.slotOf(id));
+    }
+
+    private static void assertBadSchema(String schema, String message) {
+        try {
+            ArgsSchema.compile(schema);
+            fail(schema);
+        } catch (ParseException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
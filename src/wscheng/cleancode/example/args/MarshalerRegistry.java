@@ -0,0 +1,64 @@
+package wscheng.cleancode.example.args;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Maps the tail of a schema element (what follows its id) to the marshaler that handles it.
+// builtIn() knows "" (boolean), * (string), # (int), ## (long), ##. (double), [*] (string
+// array) and ~ (duration); with() adds or replaces a tail. Compile against a registry with
+// ArgsSchema.compile(schema, registry). Marshalers hold no state, so one
+// registered instance serves every schema compiled against the registry.
+// Registries are immutable, like the schemas compiled from them.
+public final class MarshalerRegistry {
+    private static final MarshalerRegistry BUILT_IN = new MarshalerRegistry(new HashMap<String, ArgumentMarshaler>())
+            .put("", BooleanArgumentMarshaler.INSTANCE)
+            .put("*", StringArgumentMarshaler.INSTANCE)
+            .put("#", IntegerArgumentMarshaler.INSTANCE)
+            .put("##", LongArgumentMarshaler.INSTANCE)
+            .put("##.", DoubleArgumentMarshaler.INSTANCE)
+            .put("[*]", StringArrayArgumentMarshaler.INSTANCE)
+            .put("~", DurationArgumentMarshaler.INSTANCE);
+
+    private final Map<String, ArgumentMarshaler> marshalers;
+
+    private MarshalerRegistry(Map<String, ArgumentMarshaler> marshalers) {
+        this.marshalers = marshalers;
+    }
+
+    public static MarshalerRegistry builtIn() {
+        return BUILT_IN;
+    }
+
+    // A tail may not contain the element separator, nor end in whitespace, which the schema
+    // compiler trims away.
+    public MarshalerRegistry with(String tail, ArgumentMarshaler marshaler) {
+        if (tail.indexOf(',') >= 0 || !tail.equals(tail.trim())) {
+            throw new IllegalArgumentException("Bad schema tail: '" + tail + "'");
+        }
+        return new MarshalerRegistry(new HashMap<String, ArgumentMarshaler>(marshalers)).put(tail, marshaler);
+    }
+
+    // Only the given tails of this registry, for a parser that must keep an older, narrower
+    // schema language.
+    public MarshalerRegistry restrictedTo(String... tails) {
+        MarshalerRegistry restricted = new MarshalerRegistry(new HashMap<String, ArgumentMarshaler>());
+        for (String tail : tails) {
+            ArgumentMarshaler marshaler = marshalers.get(tail);
+            if (marshaler == null) {
+                throw new IllegalArgumentException("Nothing registered under: '" + tail + "'");
+            }
+            restricted.put(tail, marshaler);
+        }
+        return restricted;
+    }
+
+    private MarshalerRegistry put(String tail, ArgumentMarshaler marshaler) {
+        marshalers.put(tail, marshaler);
+        return this;
+    }
+
+    // null for a tail nothing is registered under.
+    ArgumentMarshaler marshalerFor(String tail) {
+        return marshalers.get(tail);
+    }
+}
@@ -0,0 +1,161 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Arrays;
+
+public class MarshalerRegistryTest extends TestCase {
+    enum Color {
+        RED, GREEN, BLUE
+    }
+
+    // A custom type outside the built-ins: a hexadecimal int, stored in the primitive column.
+    static class HexArgumentMarshaler extends ArgumentMarshaler {
+        @Override
+        public boolean hasParameter() {
+            return true;
+        }
+
+        @Override
+        public ErrorCode missingParameterCode() {
+            return ErrorCode.MISSING_VALUE;
+        }
+
+        @Override
+        public ErrorCode set(ParsedArgs values, int slot, CharSequence parameter) {
+            long value = 0;
+            for (int i = 0; i < parameter.length(); i++) {
+                int digit = Character.digit(parameter.charAt(i), 16);
+                if (digit < 0 || i >= 8) {
+                    return ErrorCode.INVALID_VALUE;
+                }
+                value = value * 16 + digit;
+            }
+            setPrimitive(values, slot, value);
+            return ErrorCode.OK;
+        }
+
+        @Override
+        public ValueType valueType() {
+            return ValueType.INTEGER;
+        }
+
+        @Override
+        public int getInt(ParsedArgs values, int slot) {
+            return (int) primitive(values, slot);
+        }
+    }
+
+    private MarshalerRegistry registry;
+
+    @Override
+    protected void setUp() throws Exception {
+        registry = MarshalerRegistry.builtIn()
+                .with("{color}", new EnumArgumentMarshaler<Color>(Color.class))
+                .with("#x", new HexArgumentMarshaler());
+    }
+
+    public void testStringArrayCollectsEveryOccurrence() throws Exception {
+        ParsedArgs parsed = ArgsSchema.compile("f[*],b").parse(new String[] {"-f", "a", "-bf", "b", "-f", "c"});
+        assertEquals(Arrays.asList("a", "b", "c"), Arrays.asList(parsed.getStringArray('f')));
+        assertEquals(0, ArgsSchema.compile("f[*]").parse(new String[0]).getStringArray('f').length);
+        assertEquals(ErrorCode.MISSING_STRING, ArgsSchema.compile("f[*]").parse(new String[] {"-f"}).errorCode());
+    }
+
+    public void testManyOccurrencesKeepTheirOrder() throws Exception {
+        String[] args = new String[2 * 1000];
+        for (int i = 0; i < 1000; i++) {
+            args[2 * i] = "-f";
+            args[2 * i + 1] = Integer.toString(i);
+        }
+        ParsedArgs parsed = ArgsSchema.compile("f[*]").parse(args);
+        String[] strings = parsed.getStringArray('f');
+        assertEquals(1000, strings.length);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.toString(i), strings[i]);
+        }
+        strings[0] = "changed";
+        assertEquals("0", parsed.getStringArray('f')[0]);
+    }
+
+    public void testDurations() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("t~");
+        assertEquals(Duration.ofMillis(250), schema.parse(new String[] {"-t", "250ms"}).getDuration('t'));
+        assertEquals(Duration.ofHours(-2), schema.parse(new String[] {"-t", "-2h"}).getDuration('t'));
+        assertEquals(Duration.ofSeconds(90), schema.parse(new String[] {"-t", "PT1M30S"}).getDuration('t'));
+        assertEquals(Duration.ofDays(3), schema.parse(new String[] {"-t", "3d"}).getValue('t'));
+        assertEquals(Duration.ZERO, schema.parse(new String[0]).getDuration('t'));
+        assertEquals(null, schema.parse(new String[0]).getValue('t'));
+        for (String invalid : new String[] {"5", "ms", "5 s", "5sec", "1.5s", "PT", "999999999d"}) {
+            ParsedArgs parsed = schema.parse(new String[] {"-t", invalid});
+            assertEquals(invalid, ErrorCode.INVALID_DURATION, parsed.errorCode());
+            assertEquals(invalid, false, parsed.has('t'));
+        }
+        assertEquals(ErrorCode.MISSING_DURATION, schema.parse(new String[] {"-t"}).errorCode());
+    }
+
+    public void testEnumsIgnoreCase() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("c{color}", registry);
+        ParsedArgs parsed = schema.parse(new String[] {"-c", "green"});
+        assertEquals(Color.GREEN, parsed.getValue('c', Color.class));
+        assertEquals("GREEN", parsed.getString('c'));
+        parsed = schema.parse(new String[] {"-c", "purple"});
+        assertEquals(ErrorCode.INVALID_VALUE, parsed.errorCode());
+        assertEquals("purple", parsed.errorParameter());
+        assertEquals(null, parsed.getValue('c', Color.class));
+    }
+
+    public void testCustomMarshaler() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("n#,h#x", registry);
+        ParsedArgs parsed = schema.parse(new String[] {"-n", "10", "-h", "ff"});
+        assertEquals(10, parsed.getInt('n'));
+        assertEquals(255, parsed.getInt('h'));
+        assertEquals(ErrorCode.INVALID_VALUE, schema.parse(new String[] {"-h", "xyz"}).errorCode());
+        ArgsColumns columns = new ArgsBatchParser(schema).parse(Arrays.asList(
+                new String[] {"-h", "1"}, new String[] {"-h", "a"}));
+        assertEquals(10, columns.intColumn('h')[1]);
+    }
+
+    public void testBuiltInRegistryIsUnchanged() throws Exception {
+        assertEquals(0, ArgsSchema.compile("c{color}").size());
+        try {
+            ArgsSchema.compileStrict("c{color}");
+            fail();
+        } catch (ParseException e) {
+            assertEquals("Argument: c has invalid format: {color}.", e.getMessage());
+        }
+        assertEquals(1, ArgsSchema.compileStrict("c{color}", registry).size());
+    }
+
+    public void testBadTails() throws Exception {
+        for (String tail : new String[] {"a,b", " x", "x "}) {
+            try {
+                registry.with(tail, StringArgumentMarshaler.INSTANCE);
+                fail(tail);
+            } catch (IllegalArgumentException e) {
+                assertEquals("Bad schema tail: '" + tail + "'", e.getMessage());
+            }
+        }
+    }
+
+    public void testObjectColumns() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("c{color},t~,f[*]", registry);
+        ArgsColumns columns = new ArgsBatchParser(schema).parse(Arrays.asList(
+                new String[] {"-c", "red", "-t", "1s"},
+                new String[] {"-f", "x", "-f", "y"}));
+        assertEquals(Color.RED, columns.objectColumn('c')[0]);
+        assertEquals(null, columns.objectColumn('c')[1]);
+        assertEquals(Duration.ofSeconds(1), columns.objectColumn('t')[0]);
+        assertEquals(Arrays.asList("x", "y"), Arrays.asList((String[]) columns.objectColumn('f')[1]));
+    }
+
+    public void testLazyValuesWithCustomTypes() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("c{color},f[*]", registry).withLazyValues(true);
+        ParsedArgs parsed = schema.parse(new String[] {"-f", "a", "-c", "blue", "-f", "b"});
+        assertEquals(Arrays.asList("a", "b"), Arrays.asList(parsed.getStringArray('f')));
+        assertEquals(Color.BLUE, parsed.getValue('c', Color.class));
+        assertEquals(true, parsed.isValid());
+    }
+}
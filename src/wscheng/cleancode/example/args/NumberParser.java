@@ -0,0 +1,182 @@
+package wscheng.cleancode.example.args;
+
+// Parses decimal numbers straight out of a CharSequence range, without substrings and without
+// exceptions. A parsed value is written into out[index] and out is left alone on any error, so
+// a long[] column can be filled directly; doubles are stored as their raw long bits.
+public final class NumberParser {
+    public enum Result {
+        OK, INVALID, OVERFLOW
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    // Up to this many significant digits the mantissa is exact as a double.
+    private static final int EXACT_DIGITS = 15;
+    private static final int EXPONENT_LIMIT = 100000;
+    private static final int SAFE_LONG_DIGITS = 18;
+
+    private NumberParser() {
+    }
+
+    // Accepts what Long.parseLong accepts (an optional sign followed by decimal digits,
+    // Unicode digits included), then checks that the value lies within [min, max].
+    // min must not be positive and max must not be negative.
+    public static Result parseLong(CharSequence s, int start, int end, long min, long max,
+                                   long[] out, int index) {
+        if (start >= end) {
+            return Result.INVALID;
+        }
+        int i = start;
+        boolean negative = false;
+        char first = s.charAt(i);
+        if (first == '-' || first == '+') {
+            if (end - start == 1) {
+                return Result.INVALID;
+            }
+            negative = first == '-';
+            i++;
+        }
+        if (end - i <= SAFE_LONG_DIGITS) {
+            return parseShortLong(s, i, end, negative, min, max, out, index);
+        }
+        // Accumulate negatively, as Long.parseLong does, so that Long.MIN_VALUE fits.
+        long limit = negative ? min : -max;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        boolean overflow = false;
+        for (; i < end; i++) {
+            int digit = digit(s.charAt(i));
+            if (digit < 0) {
+                return Result.INVALID;
+            }
+            if (overflow) {
+                continue;
+            }
+            if (result < multiplyLimit || result * 10 < limit + digit) {
+                overflow = true;
+                continue;
+            }
+            result = result * 10 - digit;
+        }
+        if (overflow) {
+            return Result.OVERFLOW;
+        }
+        out[index] = negative ? result : -result;
+        return Result.OK;
+    }
+
+    // Few enough digits that the value cannot overflow a long, so only the range needs checking.
+    private static Result parseShortLong(CharSequence s, int i, int end, boolean negative, long min, long max,
+                                         long[] out, int index) {
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = digit(s.charAt(i));
+            if (digit < 0) {
+                return Result.INVALID;
+            }
+            result = result * 10 + digit;
+        }
+        if (negative) {
+            result = -result;
+        }
+        if (result < min || result > max) {
+            return Result.OVERFLOW;
+        }
+        out[index] = result;
+        return Result.OK;
+    }
+
+    // Accepts [+-] digits [. digits] [(e|E) [+-] digits], with at least one digit before or
+    // after the point. Unlike Double.parseDouble it rejects NaN, Infinity, hex and the d/f
+    // suffixes. A finite number too large for a double is an OVERFLOW.
+    public static Result parseDouble(CharSequence s, int start, int end, long[] out, int index) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int digits = 0;
+        int exponent = 0;
+        for (; i < end && isAsciiDigit(s.charAt(i)); i++, digits++) {
+            if (mantissa == 0 && s.charAt(i) == '0') {
+                continue;
+            }
+            if (significantDigits < 19) {
+                mantissa = mantissa * 10 + (s.charAt(i) - '0');
+            } else {
+                exponent++;
+            }
+            significantDigits++;
+        }
+        if (i < end && s.charAt(i) == '.') {
+            for (i++; i < end && isAsciiDigit(s.charAt(i)); i++, digits++) {
+                if (mantissa == 0 && s.charAt(i) == '0') {
+                    exponent--;
+                    continue;
+                }
+                if (significantDigits < 19) {
+                    mantissa = mantissa * 10 + (s.charAt(i) - '0');
+                    exponent--;
+                }
+                significantDigits++;
+            }
+        }
+        if (digits == 0) {
+            return Result.INVALID;
+        }
+        if (i < end && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                negativeExponent = s.charAt(i) == '-';
+                i++;
+            }
+            int exponentStart = i;
+            int explicitExponent = 0;
+            for (; i < end && isAsciiDigit(s.charAt(i)); i++) {
+                // Anything beyond this is out of range for a double either way.
+                if (explicitExponent < EXPONENT_LIMIT) {
+                    explicitExponent = explicitExponent * 10 + (s.charAt(i) - '0');
+                }
+            }
+            if (i == exponentStart) {
+                return Result.INVALID;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (i != end) {
+            return Result.INVALID;
+        }
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (significantDigits <= EXACT_DIGITS && Math.abs(exponent) < POWERS_OF_TEN.length) {
+            // Both operands are exact, so the single multiplication or division rounds correctly.
+            value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        } else {
+            // The syntax has been checked above, so this cannot throw.
+            value = Math.abs(Double.parseDouble(s.subSequence(start, end).toString()));
+        }
+        if (Double.isInfinite(value)) {
+            return Result.OVERFLOW;
+        }
+        out[index] = Double.doubleToRawLongBits(negative ? -value : value);
+        return Result.OK;
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int digit(char c) {
+        if (isAsciiDigit(c)) {
+            return c - '0';
+        }
+        return c < 128 ? -1 : Character.digit(c, 10);
+    }
+}
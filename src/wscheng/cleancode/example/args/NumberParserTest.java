@@ -0,0 +1,108 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+public class NumberParserTest extends TestCase {
+    private final long[] out = new long[1];
+
+    public void testLongMatchesLongParseLong() throws Exception {
+        String[] inputs = {"0", "-0", "+1", "-", "+", "", "1-", "9223372036854775807", "9223372036854775808",
+                "-9223372036854775808", "-9223372036854775809", "00000000000000000000042", "٤٢", "1 "};
+        for (String input : inputs) {
+            assertLongMatches(input);
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 10000; i++) {
+            assertLongMatches(Long.toString(random.nextLong() >> random.nextInt(64)));
+        }
+    }
+
+    public void testParsesWithinRange() throws Exception {
+        out[0] = 99;
+        assertEquals(NumberParser.Result.OK, NumberParser.parseLong("x-42x", 1, 4, -100, 100, out, 0));
+        assertEquals(-42, out[0]);
+        assertEquals(NumberParser.Result.OVERFLOW, NumberParser.parseLong("101", 0, 3, -100, 100, out, 0));
+        assertEquals(NumberParser.Result.OVERFLOW, NumberParser.parseLong("-101", 0, 4, -100, 100, out, 0));
+        assertEquals(NumberParser.Result.INVALID, NumberParser.parseLong("1x", 0, 2, -100, 100, out, 0));
+        assertEquals(-42, out[0]);
+    }
+
+    public void testDoubleMatchesDoubleParseDouble() throws Exception {
+        String[] inputs = {"0", "-0", "0.0", ".5", "5.", "1e10", "1E-5", "-1.25e+3", "123456789012345678901234",
+                "0.000000000000000000000000001", "3.141592653589793238462643", "1.7976931348623157e308",
+                "4.9e-324", "1e-400", "2.2250738585072014E-308", "00012.5000", "9007199254740993"};
+        for (String input : inputs) {
+            assertDoubleMatches(input);
+        }
+        Random random = new Random(11);
+        for (int i = 0; i < 10000; i++) {
+            double bits = Double.longBitsToDouble(random.nextLong());
+            if (!Double.isNaN(bits) && !Double.isInfinite(bits)) {
+                assertDoubleMatches(Double.toString(bits));
+            }
+            assertDoubleMatches(Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20)));
+            assertDoubleMatches(random.nextInt(100000) + "." + random.nextInt(100000));
+        }
+    }
+
+    public void testDoubleRejectsWhatIsNotADecimal() throws Exception {
+        for (String input : new String[] {"", "-", ".", "e5", "1e", "1e+", "1.2.3", "NaN", "Infinity",
+                "0x1p3", "1d", "1f", " 1", "1 "}) {
+            assertEquals(input, NumberParser.Result.INVALID, NumberParser.parseDouble(input, 0, input.length(), out, 0));
+        }
+    }
+
+    public void testDoubleOverflow() throws Exception {
+        assertEquals(NumberParser.Result.OVERFLOW, NumberParser.parseDouble("1e309", 0, 5, out, 0));
+        assertEquals(NumberParser.Result.OVERFLOW, NumberParser.parseDouble("-1e999999999", 0, 12, out, 0));
+    }
+
+    public void testLongAndDoubleSchemaElements() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("n#,l##,d##.");
+        ParsedArgs parsed = schema.parse(new String[] {"-l", "9223372036854775807", "-d", "-2.5e-3", "-n", "7"});
+        assertEquals(true, parsed.isValid());
+        assertEquals(7, parsed.getInt('n'));
+        assertEquals(Long.MAX_VALUE, parsed.getLong('l'));
+        assertEquals(-2.5e-3, parsed.getDouble('d'));
+        assertEquals(0L, parsed.getLong('n'));
+        assertEquals(0.0, parsed.getDouble('l'));
+    }
+
+    public void testNumberErrorCodes() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("n#,l##,d##.");
+        assertEquals(ErrorCode.INTEGER_OVERFLOW, schema.parse(new String[] {"-n", "2147483648"}).errorCode());
+        assertEquals(ErrorCode.LONG_OVERFLOW, schema.parse(new String[] {"-l", "9223372036854775808"}).errorCode());
+        assertEquals(ErrorCode.INVALID_LONG, schema.parse(new String[] {"-l", "1.0"}).errorCode());
+        assertEquals(ErrorCode.MISSING_LONG, schema.parse(new String[] {"-l"}).errorCode());
+        assertEquals(ErrorCode.DOUBLE_OVERFLOW, schema.parse(new String[] {"-d", "1e400"}).errorCode());
+        assertEquals(ErrorCode.INVALID_DOUBLE, schema.parse(new String[] {"-d", "one"}).errorCode());
+        assertEquals(ErrorCode.MISSING_DOUBLE, schema.parse(new String[] {"-d"}).errorCode());
+    }
+
+    private void assertLongMatches(String input) {
+        out[0] = 0;
+        NumberParser.Result result = NumberParser.parseLong(input, 0, input.length(),
+                Long.MIN_VALUE, Long.MAX_VALUE, out, 0);
+        try {
+            long expected = Long.parseLong(input);
+            assertEquals(input, NumberParser.Result.OK, result);
+            assertEquals(input, expected, out[0]);
+        } catch (NumberFormatException e) {
+            assertEquals(input, input.matches("[-+]?[0-9]+") ? NumberParser.Result.OVERFLOW
+                    : NumberParser.Result.INVALID, result);
+        }
+    }
+
+    private void assertDoubleMatches(String input) {
+        NumberParser.Result result = NumberParser.parseDouble(input, 0, input.length(), out, 0);
+        double expected = Double.parseDouble(input);
+        if (Double.isInfinite(expected)) {
+            assertEquals(input, NumberParser.Result.OVERFLOW, result);
+        } else {
+            assertEquals(input, NumberParser.Result.OK, result);
+            assertEquals(input, Double.doubleToRawLongBits(expected), out[0]);
+        }
+    }
+}
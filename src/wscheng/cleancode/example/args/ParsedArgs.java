@@ -0,0 +1,443 @@
+package wscheng.cleancode.example.args;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+
+// The outcome of ArgsSchema.parse(): the values found and the last error, if any; under
+// COLLECT_ALL, every error.
+// Values live in columns indexed by schema slot, so reading them never boxes.
+// Every parse gets its own instance; it is meant to stay with the thread that asked for it,
+// unless it comes out of an ArgsCache, which only shares instances that are fully resolved.
+public final class ParsedArgs {
+    private final ArgsSchema schema;
+    private final long[] found;
+    private final long[] primitives;
+    private final Object[] objects;
+    // Indexed by the argument character itself; only allocated once something unexpected shows up.
+    private BitSet unexpectedArguments;
+    private char errorArgument = '\0';
+    private String errorParameter;
+    private int errorPosition = -1;
+    private ErrorCode errorCode = ErrorCode.OK;
+    // Why the validators failed, one clause per failed check.
+    private String errorDetail;
+    // Only allocated by a lazy parse.
+    private DeferredValues deferred;
+    // Only allocated under COLLECT_ALL.
+    private final CollectedErrors collected;
+
+    ParsedArgs(ArgsSchema schema) {
+        this.schema = schema;
+        int size = schema.size();
+        found = new long[(size + 63) >>> 6];
+        primitives = new long[size];
+        objects = new Object[size];
+        collected = schema.errorPolicy() == ErrorPolicy.COLLECT_ALL ? new CollectedErrors() : null;
+    }
+
+    // Resets everything to the state of a fresh instance, so batch parsing can reuse one.
+    void clear() {
+        Arrays.fill(found, 0L);
+        Arrays.fill(primitives, 0L);
+        Arrays.fill(objects, null);
+        if (unexpectedArguments != null) {
+            unexpectedArguments.clear();
+        }
+        errorArgument = '\0';
+        errorParameter = null;
+        errorPosition = -1;
+        errorCode = ErrorCode.OK;
+        errorDetail = null;
+        if (deferred != null) {
+            deferred.clear();
+        }
+        if (collected != null) {
+            collected.clear();
+        }
+    }
+
+    void deferValue(int slot, String parameter, int position) {
+        if (deferred == null) {
+            deferred = new DeferredValues(schema.size());
+        }
+        deferred.add(slot, parameter, position);
+    }
+
+    // Also called before a value of slot is set eagerly, so the ones deferred before it are
+    // converted first and the last one still wins.
+    void resolve(int slot) {
+        if (deferred != null) {
+            deferred.resolve(this, slot);
+        }
+    }
+
+    // Converts whatever is still deferred; from then on the public API only reads.
+    void resolveAll() {
+        if (deferred != null) {
+            deferred.resolveAll(this);
+        }
+    }
+
+    void markFound(int slot) {
+        found[slot >>> 6] |= 1L << slot;
+    }
+
+    boolean isFound(int slot) {
+        return (found[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    // The first found slot at or after fromSlot, or -1.
+    int nextFoundSlot(int fromSlot) {
+        resolveAll();
+        int word = fromSlot >>> 6;
+        if (word >= found.length) {
+            return -1;
+        }
+        long bits = found[word] & (-1L << fromSlot);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == found.length) {
+                return -1;
+            }
+            bits = found[word];
+        }
+    }
+
+    // Takes over the value of slot from other, which must share the schema. Objects are shared,
+    // except a StringList, which the [*] marshaler appends to and so is copied.
+    void copySlot(ParsedArgs other, int slot) {
+        Object value = other.objects[slot];
+        primitives[slot] = other.primitives[slot];
+        objects[slot] = value instanceof StringList ? ((StringList) value).copy() : value;
+        markFound(slot);
+    }
+
+    void setPrimitive(int slot, long value) {
+        primitives[slot] = value;
+    }
+
+    long primitive(int slot) {
+        return primitives[slot];
+    }
+
+    // For NumberParser, which writes a value into the column only when it parsed.
+    long[] primitiveColumn() {
+        return primitives;
+    }
+
+    void setObject(int slot, Object value) {
+        objects[slot] = value;
+    }
+
+    Object object(int slot) {
+        return objects[slot];
+    }
+
+    void addUnexpectedArgument(char argChar) {
+        if (unexpectedArguments == null) {
+            unexpectedArguments = new BitSet(128);
+        }
+        unexpectedArguments.set(argChar);
+    }
+
+    // The first unexpected argument character at or after from, or -1.
+    int nextUnexpectedArgument(int from) {
+        return hasUnexpectedArguments() ? unexpectedArguments.nextSetBit(from) : -1;
+    }
+
+    void setError(ErrorCode errorCode, char errorArgument, String errorParameter, int errorPosition) {
+        setLastError(errorCode, errorArgument, errorParameter, errorPosition);
+        if (collected != null) {
+            collected.add(errorCode, errorArgument, errorParameter, errorPosition);
+        }
+    }
+
+    // Sets the error of the parse without collecting it, for ArgsCodec, which restores both.
+    void setLastError(ErrorCode errorCode, char errorArgument, String errorParameter, int errorPosition) {
+        this.errorCode = errorCode;
+        this.errorArgument = errorArgument;
+        this.errorParameter = errorParameter;
+        this.errorPosition = errorPosition;
+        this.errorDetail = null;
+    }
+
+    void setValidationError(ErrorCode errorCode, char errorArgument, String errorParameter, String errorDetail) {
+        setError(errorCode, errorArgument, errorParameter, -1);
+        setErrorDetail(errorDetail);
+    }
+
+    void setErrorDetail(String errorDetail) {
+        this.errorDetail = errorDetail;
+    }
+
+    // null unless a validator failed.
+    String errorDetail() {
+        return errorDetail;
+    }
+
+    // null unless the schema collects every error.
+    CollectedErrors collectedErrors() {
+        return collected;
+    }
+
+    int recordedErrorPosition() {
+        return errorPosition;
+    }
+
+    public ArgsSchema schema() {
+        return schema;
+    }
+
+    public boolean isValid() {
+        resolveAll();
+        return errorCode == ErrorCode.OK && !hasUnexpectedArguments();
+    }
+
+    public int cardinality() {
+        resolveAll();
+        int cardinality = 0;
+        for (long word : found) {
+            cardinality += Long.bitCount(word);
+        }
+        return cardinality;
+    }
+
+    public boolean has(char arg) {
+        resolveAll();
+        int slot = schema.slotOf(arg);
+        return slot >= 0 && isFound(slot);
+    }
+
+    public ErrorCode errorCode() {
+        resolveAll();
+        return errorCode;
+    }
+
+    public char errorArgument() {
+        resolveAll();
+        return errorArgument;
+    }
+
+    public String errorParameter() {
+        resolveAll();
+        return errorParameter;
+    }
+
+    // Index into the argument array of the offending parameter, or of the missing one; -1 when
+    // valid, or when the error is in a fallback value or was found by a validator.
+    public int errorPosition() {
+        resolveAll();
+        return errorPosition;
+    }
+
+    // Under COLLECT_ALL the number of errors found, otherwise 1 when there is an error and 0
+    // when there is none. Unexpected argument characters are not counted; they are listed by
+    // unexpectedArguments().
+    public int errorCount() {
+        resolveAll();
+        if (collected != null) {
+            return collected.size();
+        }
+        return errorCode == ErrorCode.OK ? 0 : 1;
+    }
+
+    // The error at index, 0 <= index < errorCount(), in the order the errors were found.
+    public ErrorCode errorCode(int index) {
+        checkErrorIndex(index);
+        return collected != null ? collected.code(index) : errorCode;
+    }
+
+    public char errorArgument(int index) {
+        checkErrorIndex(index);
+        return collected != null ? collected.argument(index) : errorArgument;
+    }
+
+    public String errorParameter(int index) {
+        checkErrorIndex(index);
+        return collected != null ? collected.parameter(index) : errorParameter;
+    }
+
+    public int errorPosition(int index) {
+        checkErrorIndex(index);
+        return collected != null ? collected.position(index) : errorPosition;
+    }
+
+    private void checkErrorIndex(int index) {
+        Objects.checkIndex(index, errorCount());
+    }
+
+    private boolean hasUnexpectedArguments() {
+        return unexpectedArguments != null && !unexpectedArguments.isEmpty();
+    }
+
+    // The unexpected argument characters, sorted and without duplicates.
+    public String unexpectedArguments() {
+        if (!hasUnexpectedArguments()) {
+            return "";
+        }
+        StringBuilder chars = new StringBuilder(unexpectedArguments.cardinality());
+        for (int c = unexpectedArguments.nextSetBit(0); c >= 0; c = unexpectedArguments.nextSetBit(c + 1)) {
+            chars.append((char) c);
+        }
+        return chars.toString();
+    }
+
+    // Under COLLECT_ALL, one line for the unexpected arguments, if any, and one for every error.
+    public String errorMessage() throws Exception {
+        resolveAll();
+        if (collected != null) {
+            return collectedErrorMessage();
+        }
+        if (hasUnexpectedArguments()) {
+            return unexpectedArgumentsMessage();
+        } else if (errorCode == ErrorCode.OK) {
+            throw new Exception("TILT: Should not get here.");
+        }
+        return messageOf(errorCode, errorArgument, errorParameter);
+    }
+
+    private String unexpectedArgumentsMessage() {
+        return "Argument(s) =" + unexpectedArguments() + " unexpected.";
+    }
+
+    private String messageOf(ErrorCode errorCode, char errorArgument, String errorParameter) {
+        switch (errorCode) {
+            case MISSING_STRING:
+                return String.format("Could not find string parameter for -%c.", errorArgument);
+            case MISSING_INTEGER:
+                return String.format("Could not find integer parameter for -%c.", errorArgument);
+            case MISSING_LONG:
+                return String.format("Could not find long parameter for -%c.", errorArgument);
+            case MISSING_DOUBLE:
+                return String.format("Could not find double parameter for -%c.", errorArgument);
+            case MISSING_DURATION:
+                return String.format("Could not find duration parameter for -%c.", errorArgument);
+            case MISSING_VALUE:
+                return String.format("Could not find parameter for -%c.", errorArgument);
+            case INVALID_INTEGER:
+                return String.format("Argument -%c expects an integer but was '%s'.", errorArgument, errorParameter);
+            case INVALID_LONG:
+                return String.format("Argument -%c expects a long but was '%s'.", errorArgument, errorParameter);
+            case INVALID_DOUBLE:
+                return String.format("Argument -%c expects a double but was '%s'.", errorArgument, errorParameter);
+            case INVALID_DURATION:
+                return String.format("Argument -%c expects a duration but was '%s'.", errorArgument, errorParameter);
+            case INVALID_VALUE:
+                return String.format("Argument -%c does not take '%s'.", errorArgument, errorParameter);
+            case INTEGER_OVERFLOW:
+                return String.format("Argument -%c is out of range for an integer: '%s'.", errorArgument,
+                        errorParameter);
+            case LONG_OVERFLOW:
+                return String.format("Argument -%c is out of range for a long: '%s'.", errorArgument,
+                        errorParameter);
+            case DOUBLE_OVERFLOW:
+                return String.format("Argument -%c is out of range for a double: '%s'.", errorArgument,
+                        errorParameter);
+            case INVALID_ARGUMENT_FILE:
+                return String.format("Could not read argument file %s.", errorParameter);
+            case UNEXPECTED_ARGUMENT:
+                return String.format("Argument %s unexpected.", errorParameter);
+            case VALIDATION_FAILED:
+            case VALIDATION_TIMED_OUT:
+                return String.format("Validation failed: %s.", errorDetail);
+            default:
+                return "";
+        }
+    }
+
+    private String collectedErrorMessage() throws Exception {
+        if (isValid()) {
+            throw new Exception("TILT: Should not get here.");
+        }
+        StringBuilder message = new StringBuilder();
+        if (hasUnexpectedArguments()) {
+            message.append(unexpectedArgumentsMessage());
+        }
+        for (int i = 0; i < collected.size(); i++) {
+            if (message.length() > 0) {
+                message.append('\n');
+            }
+            message.append(messageOf(collected.code(i), collected.argument(i), collected.parameter(i)));
+        }
+        return message.toString();
+    }
+
+    public boolean getBoolean(char arg) {
+        int slot = schema.slotOf(arg);
+        return slot >= 0 && schema.marshalerAt(slot).getBoolean(this, slot);
+    }
+
+    // An unknown argument reads as "", a declared string argument that was not given reads as null.
+    public String getString(char arg) {
+        int slot = schema.slotOf(arg);
+        if (slot < 0) {
+            return "";
+        }
+        resolve(slot);
+        return schema.marshalerAt(slot).getString(this, slot);
+    }
+
+    public int getInt(char arg) {
+        int slot = schema.slotOf(arg);
+        if (slot < 0) {
+            return 0;
+        }
+        resolve(slot);
+        return schema.marshalerAt(slot).getInt(this, slot);
+    }
+
+    public long getLong(char arg) {
+        int slot = schema.slotOf(arg);
+        if (slot < 0) {
+            return 0L;
+        }
+        resolve(slot);
+        return schema.marshalerAt(slot).getLong(this, slot);
+    }
+
+    public double getDouble(char arg) {
+        int slot = schema.slotOf(arg);
+        if (slot < 0) {
+            return 0.0;
+        }
+        resolve(slot);
+        return schema.marshalerAt(slot).getDouble(this, slot);
+    }
+
+    public String[] getStringArray(char arg) {
+        int slot = schema.slotOf(arg);
+        if (slot < 0) {
+            return new String[0];
+        }
+        resolve(slot);
+        return schema.marshalerAt(slot).getStringArray(this, slot);
+    }
+
+    public Duration getDuration(char arg) {
+        int slot = schema.slotOf(arg);
+        if (slot < 0) {
+            return Duration.ZERO;
+        }
+        resolve(slot);
+        return schema.marshalerAt(slot).getDuration(this, slot);
+    }
+
+    // The value of any type of argument, boxed; null when it is unknown or was not given.
+    public Object getValue(char arg) {
+        int slot = schema.slotOf(arg);
+        if (slot < 0) {
+            return null;
+        }
+        resolve(slot);
+        return schema.marshalerAt(slot).getValue(this, slot);
+    }
+
+    // As getValue(arg), for values of a type only a registered marshaler knows, such as an enum.
+    public <T> T getValue(char arg, Class<T> type) {
+        return type.cast(getValue(arg));
+    }
+}
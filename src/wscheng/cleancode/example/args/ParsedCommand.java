@@ -0,0 +1,59 @@
+package wscheng.cleancode.example.args;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// The outcome of ArgsCommand.parse(): the subcommands the arguments named and what each command
+// on the way parsed. Depth 0 is the command parse() was called on, depth() the one that ran.
+public final class ParsedCommand {
+    private final List<String> names = new ArrayList<String>();
+    private final List<ArgsCommand> commands = new ArrayList<ArgsCommand>();
+    private final List<ParsedArgs> results = new ArrayList<ParsedArgs>();
+
+    ParsedCommand() {
+    }
+
+    void add(ArgsCommand command, ParsedArgs result) {
+        commands.add(command);
+        results.add(result);
+    }
+
+    void addName(String name) {
+        names.add(name);
+    }
+
+    // The number of subcommands named.
+    public int depth() {
+        return names.size();
+    }
+
+    // The subcommand names, such as [remote, add] for tool -v remote add -f origin.
+    public List<String> commandPath() {
+        return Collections.unmodifiableList(names);
+    }
+
+    // The command that ran, the last one named.
+    public ArgsCommand command() {
+        return commands.get(depth());
+    }
+
+    // What the command that ran parsed.
+    public ParsedArgs args() {
+        return results.get(depth());
+    }
+
+    public ParsedArgs argsAt(int depth) {
+        return results.get(depth);
+    }
+
+    // Whether every command on the way parsed its arguments cleanly.
+    public boolean isValid() {
+        for (ParsedArgs result : results) {
+            if (!result.isValid()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,89 @@
+package wscheng.cleancode.example.args;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+// The parser a specialized schema generates for itself: one method handle that switches on the
+// slot, with a case per option of this schema. A built-in option's case calls the static setter
+// of its type directly and a flag's case just returns OK, so the parse stores each value without
+// asking the marshaler through a virtual call. With mixed types those call sites are megamorphic,
+// which keeps the JIT from inlining them; the cases of the switch are each bound to one target.
+// Anything that is not one of the built-in instances, such as a registered type, gets a case
+// bound to its marshaler's set().
+final class SlotDispatcher {
+    // (int slot, ParsedArgs values, CharSequence parameter)ErrorCode, the slot being the selector.
+    private static final MethodType CASE = MethodType.methodType(ErrorCode.class, int.class, ParsedArgs.class,
+            CharSequence.class);
+    private static final MethodType SETTER = MethodType.methodType(ErrorCode.class, ParsedArgs.class, int.class,
+            CharSequence.class);
+
+    private final MethodHandle set;
+    private final boolean[] parameters;
+
+    private SlotDispatcher(MethodHandle set, boolean[] parameters) {
+        this.set = set;
+        this.parameters = parameters;
+    }
+
+    static SlotDispatcher of(ArgumentMarshaler[] marshalers) {
+        MethodHandle[] cases = new MethodHandle[marshalers.length];
+        boolean[] parameters = new boolean[marshalers.length];
+        for (int slot = 0; slot < marshalers.length; slot++) {
+            cases[slot] = caseOf(marshalers[slot]);
+            parameters[slot] = marshalers[slot].hasParameter();
+        }
+        MethodHandle unknownSlot = setter(SlotDispatcher.class, "unknownSlot");
+        MethodHandle set = cases.length == 0 ? unknownSlot : MethodHandles.tableSwitch(unknownSlot, cases);
+        return new SlotDispatcher(set, parameters);
+    }
+
+    private static MethodHandle caseOf(ArgumentMarshaler m) {
+        if (m == BooleanArgumentMarshaler.INSTANCE) {
+            return MethodHandles.dropArguments(MethodHandles.constant(ErrorCode.class, ErrorCode.OK), 0,
+                    CASE.parameterList());
+        } else if (m == StringArgumentMarshaler.INSTANCE) {
+            return setter(StringArgumentMarshaler.class, "setString");
+        } else if (m == IntegerArgumentMarshaler.INSTANCE) {
+            return setter(IntegerArgumentMarshaler.class, "setInt");
+        } else if (m == LongArgumentMarshaler.INSTANCE) {
+            return setter(LongArgumentMarshaler.class, "setLong");
+        } else if (m == DoubleArgumentMarshaler.INSTANCE) {
+            return setter(DoubleArgumentMarshaler.class, "setDouble");
+        }
+        try {
+            MethodHandle set = MethodHandles.lookup().findVirtual(ArgumentMarshaler.class, "set", SETTER);
+            return MethodHandles.permuteArguments(set.bindTo(m), CASE, 1, 0, 2);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // A static setter of the same shape as set(), reordered to take the slot first.
+    private static MethodHandle setter(Class<?> owner, String name) {
+        try {
+            MethodHandle setter = MethodHandles.lookup().findStatic(owner, name, SETTER);
+            return MethodHandles.permuteArguments(setter, CASE, 1, 0, 2);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ErrorCode unknownSlot(ParsedArgs values, int slot, CharSequence parameter) {
+        throw new IndexOutOfBoundsException("No slot " + slot);
+    }
+
+    boolean hasParameter(int slot) {
+        return parameters[slot];
+    }
+
+    ErrorCode set(ParsedArgs values, int slot, CharSequence parameter) {
+        try {
+            return (ErrorCode) set.invokeExact(slot, values, parameter);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package wscheng.cleancode.example.args;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class SpecializedParsingTest extends TestCase {
+    // The command lines of ArgsTest.
+    private static final String[][] ARGS_TEST_CASES = {
+            {""},
+            {"b,c,d", "-b", "-c", "-d"},
+            {"b,c,d*", "-b", "-c", "-d", "test"},
+            {"b", "-b"},
+            {"b,c", "-b", "-c"},
+            {"b*", "-b", "my test String"},
+            {"b*,c*", "-b", "my test String1", "-c", "my test String2"},
+            {"b*,c*,d", "-b", "my test String1", "-c", "my test String2", "-d"},
+            {"b*,c*,d,e#", "-b", "my test String1", "-c", "my test String2", "-d", "-e", "15"},
+            {"b*,c*,d", "-b", "my test String1", "-c", "my test String2", "-d", "-e"}
+    };
+
+    public void testArgsTestCases() throws Exception {
+        for (String[] testCase : ARGS_TEST_CASES) {
+            ArgsSchema schema = ArgsSchema.compile(testCase[0]);
+            String[] args = Arrays.copyOfRange(testCase, 1, testCase.length);
+            Args generic = new Args(schema, args);
+            Args specialized = new Args(schema.withSpecializedParsing(true), args);
+            String message = Arrays.toString(testCase);
+            assertEquals(message, generic.isValid(), specialized.isValid());
+            assertEquals(message, generic.cardinality(), specialized.cardinality());
+            assertEquals(message, errorMessageOf(generic), errorMessageOf(specialized));
+            for (char c : "bcde".toCharArray()) {
+                assertEquals(message, generic.getBoolean(c), specialized.getBoolean(c));
+                assertEquals(message, generic.getString(c), specialized.getString(c));
+                assertEquals(message, generic.getInt(c), specialized.getInt(c));
+            }
+        }
+    }
+
+    private static String errorMessageOf(Args args) {
+        try {
+            return args.errorMessage();
+        } catch (Exception e) {
+            return e.getMessage();
+        }
+    }
+
+    public void testMatchesGenericParse() throws Exception {
+        ArgsSchema generic = ArgsSchema.compile("b,c,s|string*,n|number#,l##,d##.,f[*],t~");
+        ArgsSchema[] specialized = {
+                generic.withSpecializedParsing(true),
+                generic.withSpecializedParsing(true).withErrorPolicy(ErrorPolicy.FAIL_FAST),
+                generic.withSpecializedParsing(true).withLazyValues(true)
+        };
+        String[] tokens = {
+                "-b", "-c", "-s", "-n", "-l", "-d", "-f", "-t", "-sn", "-bld", "-bx", "-z", "x", "5", "-7", "1.5",
+                "99999999999", "99999999999999999999", "1e400", "5s", "--string", "--number=3", "--number=q",
+                "--", "-", ""
+        };
+        Random random = new Random(19);
+        for (int i = 0; i < 5000; i++) {
+            String[] args = new String[random.nextInt(8)];
+            for (int j = 0; j < args.length; j++) {
+                args[j] = tokens[random.nextInt(tokens.length)];
+            }
+            for (ArgsSchema schema : specialized) {
+                ArgsSchema reference = generic.withErrorPolicy(schema.errorPolicy())
+                        .withLazyValues(schema.hasLazyValues());
+                assertSameResult(Arrays.toString(args), reference.parse(args), schema.parse(args));
+            }
+        }
+    }
+
+    public void testRegisteredTypesStillGoThroughTheirMarshaler() throws Exception {
+        MarshalerRegistry registry = MarshalerRegistry.builtIn()
+                .with("#x", new MarshalerRegistryTest.HexArgumentMarshaler());
+        ArgsSchema schema = ArgsSchema.compile("h#x,n#", registry).withSpecializedParsing(true);
+        ParsedArgs parsed = schema.parse(new String[] {"-h", "ff", "-n", "3"});
+        assertEquals(255, parsed.getInt('h'));
+        assertEquals(3, parsed.getInt('n'));
+        assertEquals(true, schema.hasSpecializedParsing());
+        assertEquals(false, schema.withSpecializedParsing(false).hasSpecializedParsing());
+    }
+
+    public void testParserIsGeneratedOncePerSchema() throws Exception {
+        ArgsSchema schema = ArgsSchema.compile("b,s*,n#").withSpecializedParsing(true);
+        assertSame(schema.dispatcher(), schema.withErrorPolicy(ErrorPolicy.FAIL_FAST).dispatcher());
+        assertSame(schema.dispatcher(), schema.withSpecializedParsing(true).dispatcher());
+        assertNotSame(schema.dispatcher(), ArgsSchema.compile("b,s*,n#").withSpecializedParsing(true).dispatcher());
+        assertEquals(null, schema.withSpecializedParsing(false).dispatcher());
+        ParsedArgs empty = ArgsSchema.compile("").withSpecializedParsing(true).parse(new String[] {"-x"});
+        assertEquals("Argument(s) =x unexpected.", empty.errorMessage());
+    }
+
+    private static void assertSameResult(String message, ParsedArgs expected, ParsedArgs actual) {
+        assertEquals(message, expected.isValid(), actual.isValid());
+        assertEquals(message, expected.errorCode(), actual.errorCode());
+        assertEquals(message, expected.errorArgument(), actual.errorArgument());
+        assertEquals(message, expected.errorParameter(), actual.errorParameter());
+        assertEquals(message, expected.errorPosition(), actual.errorPosition());
+        assertEquals(message, expected.unexpectedArguments(), actual.unexpectedArguments());
+        assertEquals(message, expected.cardinality(), actual.cardinality());
+        for (char c : "bcsnldft".toCharArray()) {
+            assertEquals(message, valueOf(expected, c), valueOf(actual, c));
+        }
+    }
+
+    private static Object valueOf(ParsedArgs parsed, char c) {
+        Object value = parsed.getValue(c);
+        return value instanceof String[] ? Arrays.asList((String[]) value) : value;
+    }
+}
@@ -0,0 +1,36 @@
+package wscheng.cleancode.example.args;
+
+class StringArgumentMarshaler extends ArgumentMarshaler {
+    static final StringArgumentMarshaler INSTANCE = new StringArgumentMarshaler();
+
+    @Override
+    public boolean hasParameter() {
+        return true;
+    }
+
+    @Override
+    public ErrorCode missingParameterCode() {
+        return ErrorCode.MISSING_STRING;
+    }
+
+    @Override
+    public ErrorCode set(ParsedArgs values, int slot, CharSequence parameter) {
+        return setString(values, slot, parameter);
+    }
+
+    static ErrorCode setString(ParsedArgs values, int slot, CharSequence parameter) {
+        values.setObject(slot, parameter.toString());
+        return ErrorCode.OK;
+    }
+
+    @Override
+    public ValueType valueType() {
+        return ValueType.STRING;
+    }
+
+    // null when the argument was declared but not given.
+    @Override
+    public String getString(ParsedArgs values, int slot) {
+        return (String) values.object(slot);
+    }
+}
@@ -0,0 +1,39 @@
+package wscheng.cleancode.example.args;
+
+// Declared as [*]: every occurrence adds its parameter, so -f a -f b reads as {"a", "b"}.
+class StringArrayArgumentMarshaler extends ArgumentMarshaler {
+    static final StringArrayArgumentMarshaler INSTANCE = new StringArrayArgumentMarshaler();
+
+    @Override
+    public boolean hasParameter() {
+        return true;
+    }
+
+    @Override
+    public ErrorCode missingParameterCode() {
+        return ErrorCode.MISSING_STRING;
+    }
+
+    @Override
+    public ErrorCode set(ParsedArgs values, int slot, CharSequence parameter) {
+        StringList strings = (StringList) object(values, slot);
+        if (strings == null) {
+            strings = new StringList();
+            setObject(values, slot, strings);
+        }
+        strings.add(parameter.toString());
+        return ErrorCode.OK;
+    }
+
+    // A new array on every call, as a cached ParsedArgs may be read by other callers too.
+    @Override
+    public String[] getStringArray(ParsedArgs values, int slot) {
+        StringList strings = (StringList) object(values, slot);
+        return strings == null ? new String[0] : strings.toArray();
+    }
+
+    @Override
+    public Object getValue(ParsedArgs values, int slot) {
+        return object(values, slot) == null ? null : getStringArray(values, slot);
+    }
+}
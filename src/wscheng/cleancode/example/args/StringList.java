@@ -0,0 +1,50 @@
+package wscheng.cleancode.example.args;
+
+import java.util.Arrays;
+
+// The strings a [*] option has collected so far. Adding one doubles the capacity when it runs
+// out, so n occurrences cost O(n) rather than a copy of the whole array each; the String[]
+// the getters hand out is built when it is read.
+final class StringList {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private String[] strings;
+    private int count;
+
+    StringList() {
+        strings = new String[INITIAL_CAPACITY];
+    }
+
+    private StringList(String[] strings) {
+        this.strings = strings;
+        count = strings.length;
+    }
+
+    // Takes strings over without a copy.
+    static StringList of(String[] strings) {
+        return new StringList(strings);
+    }
+
+    StringList copy() {
+        return new StringList(toArray());
+    }
+
+    void add(String string) {
+        if (count == strings.length) {
+            strings = Arrays.copyOf(strings, Math.max(INITIAL_CAPACITY, count * 2));
+        }
+        strings[count++] = string;
+    }
+
+    int size() {
+        return count;
+    }
+
+    String get(int i) {
+        return strings[i];
+    }
+
+    String[] toArray() {
+        return Arrays.copyOf(strings, count);
+    }
+}
@@ -0,0 +1,7 @@
+package wscheng.cleancode.example.args;
+
+// What a marshaler stores, and so which getter reads it back and which column a batch
+// parse keeps it in. Marshalers of any other kind of value are OBJECT and read via getValue.
+public enum ValueType {
+    BOOLEAN, STRING, INTEGER, LONG, DOUBLE, OBJECT
+}
@@ -1,232 +1,82 @@
 package wscheng.cleancode.example.args.draftv1;
 
+import wscheng.cleancode.example.args.ArgsSchema;
+import wscheng.cleancode.example.args.ErrorPolicy;
+import wscheng.cleancode.example.args.MarshalerRegistry;
+import wscheng.cleancode.example.args.ParsedArgs;
+
 import java.text.ParseException;
-import java.util.*;
+import java.util.Arrays;
+import java.util.List;
+
 public class Args {
-    private String schema;
-    private String[] args;
-    private boolean valid = true;
-    private Set<Character> unexpectedArguments = new TreeSet<Character>();
-    private Map<Character, Boolean> booleanArgs =
-            new HashMap<Character, Boolean>();
-    private Map<Character, String> stringArgs = new HashMap<Character, String>();
-    private Map<Character, Integer> intArgs = new HashMap<Character, Integer>();
-    private Set<Character> argsFound = new HashSet<Character>();
-    private int currentArgument;
-    private char errorArgumentId = '\0';
-    private String errorParameter = "TILT";
-    private ErrorCode errorCode = ErrorCode.OK;
-    private enum ErrorCode {
-        OK, MISSING_STRING, MISSING_INTEGER, INVALID_INTEGER, UNEXPECTED_ARGUMENT}
+    // The draft only ever knew booleans, strings and integers, and no long names.
+    private static final List<String> TAILS = Arrays.asList("", "*", "#");
+    private static final MarshalerRegistry REGISTRY =
+            MarshalerRegistry.builtIn().restrictedTo(TAILS.toArray(new String[0]));
 
-    public Args(String schema, String[] args) throws ParseException {
-        this.schema = schema;
-        this.args = args;
-        valid = parse();
-    }
+    private ArgsSchema schema;
+    private ParsedArgs parsed;
 
-    private boolean parse() throws ParseException {
-        if (schema.length() == 0 && args.length == 0)
-            return true;
-        parseSchema();
-        try {
-            parseArguments();
-        } catch (ArgsException e) {
-            // do nothing in this example(book)
-        }
-        return valid;
+    public Args(String schema, String[] args) throws ParseException {
+        rejectLongNames(schema);
+        this.schema = ArgsSchema.compileStrict(schema, REGISTRY).withErrorPolicy(ErrorPolicy.FAIL_FAST);
+        parsed = this.schema.parse(args);
     }
 
-    private boolean parseSchema() throws ParseException {
+    // In element order, so the first bad element is the one reported, as the draft did; any
+    // other problem is left to the schema compiler.
+    private static void rejectLongNames(String schema) throws ParseException {
         for (String element : schema.split(",")) {
-            if (element.length() > 0) {
-                String trimmedElement = element.trim();
-                parseSchemaElement(trimmedElement);
+            String trimmedElement = element.trim();
+            if (trimmedElement.length() == 0) {
+                continue;
+            }
+            char elementId = trimmedElement.charAt(0);
+            String elementTail = trimmedElement.substring(1);
+            if (!Character.isLetter(elementId)) {
+                return;
+            }
+            if (elementTail.startsWith("|")) {
+                throw new ParseException(
+                        String.format("Argument: %c has invalid format: %s.", elementId, elementTail), 0);
+            }
+            if (!TAILS.contains(elementTail)) {
+                return;
             }
         }
-        return true;
-    }
-
-    private void parseSchemaElement(String element) throws ParseException {
-        char elementId = element.charAt(0);
-        String elementTail = element.substring(1);
-        validateSchemaElementId(elementId);
-        if (isBooleanSchemaElement(elementTail))
-            parseBooleanSchemaElement(elementId);
-        else if (isStringSchemaElement(elementTail))
-            parseStringSchemaElement(elementId);
-        else if (isIntegerSchemaElement(elementTail)) {
-            parseIntegerSchemaElement(elementId);
-        } else {
-            throw new ParseException(
-                    String.format("Argument: %c has invalid format: %s.",
-                            elementId, elementTail), 0);
-        }
-    }
-
-    private void validateSchemaElementId(char elementId) throws ParseException {
-        if (!Character.isLetter(elementId)) {
-            throw new ParseException(
-                    "Bad character:" + elementId + "in Args format: " + schema, 0);
-        }
-    }
-
-    private void parseBooleanSchemaElement(char elementId) {
-        booleanArgs.put(elementId, false);
-    }
-
-    private void parseIntegerSchemaElement(char elementId) {
-        intArgs.put(elementId, 0);
-    }
-
-    private void parseStringSchemaElement(char elementId) {
-        stringArgs.put(elementId, "");
-    }
-
-    private boolean isStringSchemaElement(String elementTail) {
-        return elementTail.equals("*");
-    }
-
-    private boolean isBooleanSchemaElement(String elementTail) {
-        return elementTail.length() == 0;
-    }
-
-    private boolean isIntegerSchemaElement(String elementTail) {
-        return elementTail.equals("#");
-    }
-
-    private boolean parseArguments() throws ArgsException {
-        for (currentArgument = 0; currentArgument < args.length; currentArgument++)
-        {
-            String arg = args[currentArgument];
-            parseArgument(arg);
-        }
-        return true;
-    }
-
-    private void parseArgument(String arg) throws ArgsException {
-        if (arg.startsWith("-"))
-            parseElements(arg);
-    }
-
-    private void parseElements(String arg) throws ArgsException {
-        for (int i = 1; i < arg.length(); i++)
-            parseElement(arg.charAt(i));
-    }
-
-    private void parseElement(char argChar) throws ArgsException {
-        if (setArgument(argChar))
-            argsFound.add(argChar);
-        else {
-            unexpectedArguments.add(argChar);
-            errorCode = ErrorCode.UNEXPECTED_ARGUMENT;
-            valid = false;
-        }
-    }
-
-    private boolean setArgument(char argChar) throws ArgsException {
-        if (isBooleanArg(argChar))
-            setBooleanArg(argChar, true);
-        else if (isStringArg(argChar))
-            setStringArg(argChar);
-        else if (isIntArg(argChar))
-            setIntArg(argChar);
-        else
-            return false;
-        return true;
-    }
-
-    private boolean isIntArg(char argChar) {return intArgs.containsKey(argChar);}
-
-    private void setIntArg(char argChar) throws ArgsException {
-        currentArgument++;
-        String parameter = null;
-        try {
-            parameter = args[currentArgument];
-            intArgs.put(argChar, new Integer(parameter));
-        } catch (ArrayIndexOutOfBoundsException e) {
-            valid = false;
-            errorArgumentId = argChar;
-            errorCode = ErrorCode.MISSING_INTEGER;
-            throw new ArgsException();
-        } catch (NumberFormatException e) {
-            valid = false;
-            errorArgumentId = argChar;
-            errorParameter = parameter;
-            errorCode = ErrorCode.INVALID_INTEGER;
-            throw new ArgsException();
-        }
-    }
-
-    private void setStringArg(char argChar) throws ArgsException {
-        currentArgument++;
-        try {
-            stringArgs.put(argChar, args[currentArgument]);
-        } catch (ArrayIndexOutOfBoundsException e) {
-            valid = false;
-            errorArgumentId = argChar;
-            errorCode = ErrorCode.MISSING_STRING;
-            throw new ArgsException();
-        }
-    }
-
-    private boolean isStringArg(char argChar) {
-        return stringArgs.containsKey(argChar);
-    }
-
-    private void setBooleanArg(char argChar, boolean value) {
-        booleanArgs.put(argChar, value);
-    }
-
-    private boolean isBooleanArg(char argChar) {
-        return booleanArgs.containsKey(argChar);
     }
 
     public int cardinality() {
-        return argsFound.size();
+        return parsed.cardinality();
     }
 
     public String usage() {
-        if (schema.length() > 0)
-            return "-[" + schema + "]";
-        else
-            return "";
+        return schema.usage();
     }
 
     public String errorMessage() throws Exception {
-        switch (errorCode) {
+        switch (parsed.errorCode()) {
             case OK:
+                if (parsed.unexpectedArguments().length() > 0)
+                    return unexpectedArgumentMessage();
                 throw new Exception("TILT: Should not get here.");
-            case UNEXPECTED_ARGUMENT:
-                return unexpectedArgumentMessage();
             case MISSING_STRING:
                 return String.format("Could not find string parameter for -%c.",
-                        errorArgumentId);
+                        parsed.errorArgument());
             case INVALID_INTEGER:
+            case INTEGER_OVERFLOW:
                 return String.format("Argument -%c expects an integer but was '%s'.",
-                        errorArgumentId, errorParameter);
+                        parsed.errorArgument(), parsed.errorParameter());
             case MISSING_INTEGER:
                 return String.format("Could not find integer parameter for -%c.",
-                        errorArgumentId);
+                        parsed.errorArgument());
         }
         return "";
     }
 
     private String unexpectedArgumentMessage() {
-        StringBuffer message = new StringBuffer("Argument(s) -");
-        for (char c : unexpectedArguments) {
-            message.append(c);
-        }
-        message.append(" unexpected.");
-        return message.toString();
-    }
-
-    private boolean falseIfNull(Boolean b) {
-        return b != null && b;
-    }
-
-    private int zeroIfNull(Integer i) {
-        return i == null ? 0 : i;
+        return "Argument(s) -" + parsed.unexpectedArguments() + " unexpected.";
     }
 
     private String blankIfNull(String s) {
@@ -234,25 +84,22 @@ public class Args {
     }
 
     public String getString(char arg) {
-        return blankIfNull(stringArgs.get(arg));
+        return blankIfNull(parsed.getString(arg));
     }
 
     public int getInt(char arg) {
-        return zeroIfNull(intArgs.get(arg));
+        return parsed.getInt(arg);
     }
 
     public boolean getBoolean(char arg) {
-        return falseIfNull(booleanArgs.get(arg));
+        return parsed.getBoolean(arg);
     }
 
     public boolean has(char arg) {
-        return argsFound.contains(arg);
+        return parsed.has(arg);
     }
 
     public boolean isValid() {
-        return valid;
-    }
-
-    public class ArgsException extends Exception {
+        return parsed.isValid();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+package wscheng.cleancode.example.args.draftv1;
+
+import junit.framework.TestCase;
+
+import java.text.ParseException;
+
+public class ArgsTest extends TestCase {
+    public void testOnlyTheDraftTypesAreKnown() throws Exception {
+        for (String schema : new String[] {"x##", "x##.", "x[*]", "x~"}) {
+            try {
+                new Args(schema, new String[0]);
+                fail(schema);
+            } catch (ParseException e) {
+                assertEquals("Argument: x has invalid format: " + schema.substring(1) + ".", e.getMessage());
+            }
+        }
+        assertEquals(true, new Args("b,s*,n#", new String[] {"-b", "-s", "x", "-n", "1"}).isValid());
+    }
+
+    public void testLongNamesAreRejected() throws Exception {
+        try {
+            new Args("b,v|verbose", new String[0]);
+            fail();
+        } catch (ParseException e) {
+            assertEquals("Argument: v has invalid format: |verbose.", e.getMessage());
+        }
+        // The first bad element is the one reported.
+        try {
+            new Args("x##,v|verbose", new String[0]);
+            fail();
+        } catch (ParseException e) {
+            assertEquals("Argument: x has invalid format: ##.", e.getMessage());
+        }
+    }
+
+    public void testErrorMessages() throws Exception {
+        assertEquals("Could not find integer parameter for -n.",
+                new Args("n#", new String[] {"-n"}).errorMessage());
+        assertEquals("Argument -n expects an integer but was 'x'.",
+                new Args("n#", new String[] {"-n", "x"}).errorMessage());
+        assertEquals("Could not find string parameter for -s.",
+                new Args("s*", new String[] {"-s"}).errorMessage());
+    }
+}